@@ -3,8 +3,10 @@ package it.spot.android.animatorchain.sample;
 import android.os.Bundle;
 import android.view.View;
 
+import java.io.IOException;
+
 import it.spot.android.animatorchain.AnimatorChain;
-import it.spot.android.animatorchain.AnimatorChainItem;
+import it.spot.android.animatorchain.AnimatorChainLoader;
 
 public class SimpleChainActivity extends BaseActivity {
 
@@ -26,15 +28,12 @@ public class SimpleChainActivity extends BaseActivity {
         super.onResume();
 
         if (this.mChain == null) {
-            this.mChain = new AnimatorChain();
-            this.mChain
-                    .chain(AnimatorChainItem.create().setDuration(200).setX(300))
-                    .chain(AnimatorChainItem.create().setDuration(400).setX(100).setY(350))
-                    .chain(AnimatorChainItem.create().setDuration(200).setX(400))
-                    .chain(AnimatorChainItem.create().setDuration(600).setX(100).setY(150))
-                    .enableRepeat(true)
-                    .setRepeatCount(200)
-                    .execute(this.mViewToAnimate);
+            try {
+                this.mChain = AnimatorChainLoader.getDefault().loadRawResource(this, R.raw.simple_chain);
+            } catch (IOException e) {
+                throw new IllegalStateException("Unable to load the chain", e);
+            }
+            this.mChain.execute(this.mViewToAnimate);
         }
     }
 
@@ -0,0 +1,62 @@
+package it.spot.android.animatorchain;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time needed by an {@link AnimatorChainBatch} to advance
+ * all of its targets by one frame.
+ *
+ * @author a.rinaldi
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnimatorChainBatchBenchmark {
+
+    private static final long FRAME_INTERVAL = 16666667L;
+
+    @Param({"1000", "10000", "50000"})
+    public int targets;
+
+    private AnimatorChainBatch mBatch;
+    private long mFrameTime;
+
+    @Setup
+    public void setUp() {
+        AnimatorChain chain = new AnimatorChain()
+                .chain(AnimatorChainItem.create().setDuration(300).setY(100).setAlpha(0.5f))
+                .chain(AnimatorChainItem.create().setDuration(300).setX(300).setRotation(180))
+                .chain(AnimatorChainItem.create().setDuration(300).setScaleX(2).setAlpha(1))
+                .enableRepeat(true)
+                .setRepeatCount(Integer.MAX_VALUE);
+
+        this.mBatch = new AnimatorChainBatch(chain, this.targets);
+        for (int i = 0; i < this.targets; i++) {
+            this.mBatch.add(i % 100, i / 100, i % 50);
+        }
+
+        this.mBatch.reset();
+        this.mFrameTime = 0;
+    }
+
+    @Benchmark
+    public boolean advanceOneFrame() {
+        this.mFrameTime += FRAME_INTERVAL;
+        return this.mBatch.advance(this.mFrameTime);
+    }
+}
@@ -0,0 +1,67 @@
+package it.spot.android.animatorchain;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the acquiring and releasing of the cursors of a list of items
+ * scrolled back and forth, without any view: cursors are bound but never
+ * started, as starting them needs a {@link android.view.Choreographer}.<br/>
+ * The reuse of the cursors by whole executions on real views, started and
+ * cancelled, is checked on a device by {@code AnimatorChainCursorPoolTest}.
+ *
+ * @author a.rinaldi
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnimatorChainCursorPoolBenchmark {
+
+    @Param({"8", "32"})
+    public int visibleItems;
+
+    private AnimatorChainTemplate mTemplate;
+    private AnimatorChainCursorPool mPool;
+    private AnimatorChainCursor[] mBoundCursors;
+    private int mNext;
+
+    @Setup
+    public void setUp() {
+        this.mTemplate = AnimatorChainTemplate.from(new AnimatorChain()
+                .chain(AnimatorChainItem.create().setDuration(200).setAlpha(1f))
+                .chain(AnimatorChainItem.create().setDuration(200).setTranslationY(0)));
+
+        this.mPool = new AnimatorChainCursorPool(this.visibleItems);
+        this.mBoundCursors = new AnimatorChainCursor[this.visibleItems];
+    }
+
+    @Benchmark
+    public AnimatorChainCursor bindAndRecycle() {
+        int slot = this.mNext;
+        this.mNext = (slot + 1) % this.visibleItems;
+
+        AnimatorChainCursor recycled = this.mBoundCursors[slot];
+        if (recycled != null) {
+            recycled.release();
+        }
+
+        AnimatorChainCursor cursor = this.mPool.acquire();
+        cursor.init(this.mTemplate, null, null);
+        this.mBoundCursors[slot] = cursor;
+        return cursor;
+    }
+}
@@ -0,0 +1,62 @@
+package it.spot.android.animatorchain;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the notification of the start and end events of an item
+ * to many registered listeners.
+ *
+ * @author a.rinaldi
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnimatorChainDispatchBenchmark {
+
+    @Param({"1", "8", "64"})
+    public int listeners;
+
+    private AnimatorChain mChain;
+
+    @Setup
+    public void setUp(final Blackhole blackhole) {
+        this.mChain = new AnimatorChain().chain(AnimatorChainItem.create());
+
+        for (int i = 0; i < this.listeners; i++) {
+            this.mChain.registerListener(new IAnimatorChainListener() {
+
+                @Override
+                public void onChainedItemStart(int position) {
+                    blackhole.consume(position);
+                }
+
+                @Override
+                public void onChainedItemEnd(int position) {
+                    blackhole.consume(position);
+                }
+            });
+        }
+    }
+
+    @Benchmark
+    public void dispatchStartAndEnd() {
+        this.mChain.dispatchItemStart(0, 0);
+        this.mChain.dispatchItemEnd(0, 0);
+    }
+}
@@ -0,0 +1,67 @@
+package it.spot.android.animatorchain;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of applying a single chained item: reading it into a
+ * compiled row, and writing a compiled row to a target.
+ *
+ * @author a.rinaldi
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnimatorChainItemBenchmark {
+
+    private AnimatorChainItem mItem;
+    private CompiledAnimatorChain.Row mRow;
+    private CompiledAnimatorChain mCompiledChain;
+    private RecordingAnimatorChainTarget mTarget;
+    private float[] mFrom;
+
+    @Setup
+    public void setUp() {
+        this.mItem = AnimatorChainItem.create()
+                .setDuration(200)
+                .setX(100)
+                .setY(200)
+                .setAlpha(0.5f)
+                .setRotation(90);
+
+        this.mRow = new CompiledAnimatorChain.Row();
+        this.mCompiledChain = new AnimatorChain().chain(this.mItem).compile();
+        this.mTarget = new RecordingAnimatorChainTarget();
+        this.mFrom = new float[AnimatorChainProperty.COUNT];
+    }
+
+    @Benchmark
+    public CompiledAnimatorChain.Row readItem() {
+        this.mItem.readInto(this.mRow);
+        return this.mRow;
+    }
+
+    @Benchmark
+    public RecordingAnimatorChainTarget applyCompiledRow() {
+        this.mCompiledChain.writeTo(0, this.mFrom, 0, 0.5f, this.mTarget);
+        return this.mTarget;
+    }
+
+    @Benchmark
+    public AnimatorChainItem setProperty() {
+        return this.mItem.setDuration(300);
+    }
+}
@@ -0,0 +1,65 @@
+package it.spot.android.animatorchain;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building and tearing down chains made of many items.
+ *
+ * @author a.rinaldi
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnimatorChainStructureBenchmark {
+
+    @Param({"100", "1000", "5000"})
+    public int size;
+
+    private AnimatorChainItem[] mItems;
+
+    @Setup
+    public void setUp() {
+        this.mItems = new AnimatorChainItem[this.size];
+        for (int i = 0; i < this.size; i++) {
+            this.mItems[i] = AnimatorChainItem.create().setDuration(10).setX(i);
+        }
+    }
+
+    @Benchmark
+    public AnimatorChain chain() {
+        AnimatorChain chain = new AnimatorChain();
+        for (AnimatorChainItem item : this.mItems) {
+            chain.chain(item);
+        }
+        return chain;
+    }
+
+    @Benchmark
+    public AnimatorChain chainAndUnchain() {
+        AnimatorChain chain = this.chain();
+        for (AnimatorChainItem item : this.mItems) {
+            chain.unchain(item);
+        }
+        return chain;
+    }
+
+    @Benchmark
+    public CompiledAnimatorChain chainAndCompile() {
+        return this.chain().compile();
+    }
+}
@@ -0,0 +1,64 @@
+package it.spot.android.animatorchain;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the frame work of a long repeating chain executed as a timeline
+ * on headless targets: every frame crosses many item boundaries.
+ *
+ * @author a.rinaldi
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnimatorChainTimelineBenchmark {
+
+    private static final long FRAME_INTERVAL = 16666667L;
+
+    @Param({"1", "100"})
+    public int targets;
+
+    private AnimatorChainTimeline mTimeline;
+    private long mFrameTime;
+
+    @Setup
+    public void setUp() {
+        AnimatorChain chain = new AnimatorChain()
+                .chain(AnimatorChainItem.create().setDuration(1).setY(100).setX(200))
+                .chain(AnimatorChainItem.create().setDuration(2).setY(200).setX(300))
+                .chain(AnimatorChainItem.create().setDuration(3).setY(300).setX(200))
+                .chain(AnimatorChainItem.create().setDuration(4).setY(200).setX(100))
+                .enableRepeat(true)
+                .setRepeatCount(Integer.MAX_VALUE);
+
+        IAnimatorChainTarget[] targets = new IAnimatorChainTarget[this.targets];
+        for (int i = 0; i < this.targets; i++) {
+            targets[i] = new RecordingAnimatorChainTarget();
+        }
+
+        this.mTimeline = new AnimatorChainTimeline(chain, targets, 1);
+        this.mTimeline.reset();
+        this.mFrameTime = 0;
+    }
+
+    @Benchmark
+    public boolean advanceOneFrame() {
+        this.mFrameTime += FRAME_INTERVAL;
+        return this.mTimeline.advance(this.mFrameTime);
+    }
+}
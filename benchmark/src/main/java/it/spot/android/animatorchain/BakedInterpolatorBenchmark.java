@@ -0,0 +1,134 @@
+package it.spot.android.animatorchain;
+
+import android.animation.TimeInterpolator;
+import android.view.animation.AnticipateOvershootInterpolator;
+import android.view.animation.BounceInterpolator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the evaluation of composite curves with the evaluation of their
+ * {@link BakedInterpolator}s, at different numbers of samples.<br/>
+ * The inputs sweep the whole [0, 1] range, as frames do.
+ *
+ * @author a.rinaldi
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BakedInterpolatorBenchmark {
+
+    private static final float INPUT_STEP = 0.0013f;
+
+    @Param({"anticipateOvershoot", "bounce", "spring", "path"})
+    public String curve;
+
+    @Param({"64", "256", "4096"})
+    public int samples;
+
+    private TimeInterpolator mLive;
+    private TimeInterpolator mBaked;
+    private float mInput;
+
+    @Setup
+    public void setUp() {
+        if ("anticipateOvershoot".equals(this.curve)) {
+            this.mLive = new AnticipateOvershootInterpolator();
+        } else if ("bounce".equals(this.curve)) {
+            this.mLive = new BounceInterpolator();
+        } else if ("spring".equals(this.curve)) {
+            this.mLive = new SpringInterpolator();
+        } else {
+            this.mLive = new PathInterpolator(new SpringInterpolator());
+        }
+
+        this.mBaked = BakedInterpolator.bake(this.mLive, this.samples);
+    }
+
+    @Benchmark
+    public float live() {
+        return this.mLive.getInterpolation(this.nextInput());
+    }
+
+    @Benchmark
+    public float baked() {
+        return this.mBaked.getInterpolation(this.nextInput());
+    }
+
+    private float nextInput() {
+        float input = this.mInput + INPUT_STEP;
+        this.mInput = input > 1f ? 0f : input;
+        return this.mInput;
+    }
+
+    /**
+     * A damped oscillation, standing for the composite curves built by apps.
+     */
+    private static final class SpringInterpolator implements TimeInterpolator {
+
+        @Override
+        public float getInterpolation(float input) {
+            return (float) (1d - Math.exp(-6d * input) * Math.cos(4d * Math.PI * input));
+        }
+    }
+
+    /**
+     * A curve approximated by a polyline and evaluated by a binary search over its
+     * points, as {@link android.view.animation.PathInterpolator} does.
+     */
+    private static final class PathInterpolator implements TimeInterpolator {
+
+        private static final int POINTS = 201;
+
+        private final float[] mX;
+        private final float[] mY;
+
+        PathInterpolator(TimeInterpolator curve) {
+            this.mX = new float[POINTS];
+            this.mY = new float[POINTS];
+
+            for (int i = 0; i < POINTS; i++) {
+                // denser points at the start, as a real path would have
+                float t = (float) i / (POINTS - 1);
+                this.mX[i] = t * t;
+                this.mY[i] = curve.getInterpolation(this.mX[i]);
+            }
+        }
+
+        @Override
+        public float getInterpolation(float input) {
+            int low = 0;
+            int high = POINTS - 1;
+
+            while (high - low > 1) {
+                int middle = (low + high) >>> 1;
+                if (input < this.mX[middle]) {
+                    high = middle;
+                } else {
+                    low = middle;
+                }
+            }
+
+            float range = this.mX[high] - this.mX[low];
+            if (range == 0f) {
+                return this.mY[low];
+            }
+            return this.mY[low] + (this.mY[high] - this.mY[low]) * (input - this.mX[low]) / range;
+        }
+    }
+}
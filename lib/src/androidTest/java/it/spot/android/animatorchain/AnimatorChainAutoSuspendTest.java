@@ -0,0 +1,91 @@
+package it.spot.android.animatorchain;
+
+import android.view.animation.LinearInterpolator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Tests how a timeline catches up with the time elapsed while it was suspended.<br/>
+ * The timeline is driven manually on the main thread, where it can be suspended and woken up.
+ *
+ * @author a.rinaldi
+ */
+public class AnimatorChainAutoSuspendTest extends AnimatorChainTestCase {
+
+    private static final long NANOS_PER_MILLI = 1000000L;
+    private static final long SUSPENSION_MS = 60 * 60 * 1000 + 123;
+    private static final float DELTA = 0.01f;
+
+    /**
+     * After an hour of suspension the first frame jumps straight to the current item: the item
+     * running when the timeline was suspended ends, a single repeat is notified, and the current
+     * item starts, with the values it would have had if the timeline had kept running.
+     */
+    public void testWakeJumpsToCurrentItem() throws Exception {
+        AnimatorChain chain = new AnimatorChain()
+                .chain(AnimatorChainItem.create()
+                        .setDuration(100)
+                        .setInterpolator(new LinearInterpolator())
+                        .setX(100f))
+                .chain(AnimatorChainItem.create()
+                        .setStartDelay(20)
+                        .setDuration(100)
+                        .setInterpolator(new LinearInterpolator())
+                        .setX(0f)
+                        .setY(50f))
+                .enableRepeat(true)
+                .setRepeatCount(AnimatorChain.REPEAT_INFINITE);
+
+        final ArrayList<String> events = new ArrayList<String>();
+        chain.registerListener(new ChainListenerAdapter() {
+
+            @Override
+            public void onChainedItemStart(int position) {
+                events.add("start " + position);
+            }
+
+            @Override
+            public void onChainedItemEnd(int position) {
+                events.add("end " + position);
+            }
+
+            @Override
+            public void onChainRepeat(int repeatCount) {
+                events.add("repeat " + repeatCount);
+            }
+        });
+
+        final RecordingAnimatorChainTarget target = new RecordingAnimatorChainTarget();
+        final AnimatorChainTimeline timeline =
+                new AnimatorChainTimeline(chain, new IAnimatorChainTarget[]{target}, 0);
+
+        this.runOnMainSync(new Runnable() {
+
+            @Override
+            public void run() {
+                // the times are far ahead of the real frames, which never reach the timeline anyway
+                long start = System.nanoTime() + SUSPENSION_MS * NANOS_PER_MILLI;
+
+                timeline.reset();
+                timeline.advance(start);
+                timeline.advance(start + 10 * NANOS_PER_MILLI);
+
+                timeline.suspend();
+                timeline.wake();
+                events.clear();
+
+                timeline.advance(start + SUSPENSION_MS * NANOS_PER_MILLI);
+                timeline.cancel();
+            }
+        });
+
+        // 3600123 ms are 16364 iterations of 220 ms, plus 43 ms of the first item
+        assertEquals(Arrays.asList("end 0", "repeat 16364", "start 0"), events);
+
+        float[] expected = new float[AnimatorChainProperty.COUNT];
+        new AnimatorChainEvaluator(chain, new RecordingAnimatorChainTarget()).evaluate(SUSPENSION_MS, expected);
+        assertEquals(expected[AnimatorChainProperty.X], target.getProperty(AnimatorChainProperty.X), DELTA);
+        assertEquals(expected[AnimatorChainProperty.Y], target.getProperty(AnimatorChainProperty.Y), DELTA);
+    }
+}
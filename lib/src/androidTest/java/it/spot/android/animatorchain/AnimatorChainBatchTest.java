@@ -0,0 +1,144 @@
+package it.spot.android.animatorchain;
+
+import android.view.animation.LinearInterpolator;
+
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+
+/**
+ * Tests the {@link AnimatorChainBatch} driven manually through {@link AnimatorChainBatch#advance(long)}.
+ *
+ * @author a.rinaldi
+ */
+public class AnimatorChainBatchTest extends TestCase {
+
+    private static final long NANOS_PER_MILLI = 1000000L;
+    private static final float DELTA = 0.001f;
+
+    /**
+     * Removing items while the batch runs must not move the targets onto missing items:
+     * the removal is picked up by the next reset, while the other changes are picked up at once.
+     */
+    public void testUnchainWhileRunning() {
+        AnimatorChainItem last = linear(100).setX(300f);
+        AnimatorChain chain = new AnimatorChain()
+                .chain(linear(100).setX(100f))
+                .chain(linear(100).setX(200f))
+                .chain(last);
+
+        AnimatorChainBatch batch = new AnimatorChainBatch(chain, 2);
+        batch.add(0f, 0f, 0);
+        batch.add(0f, 0f, 150);
+        batch.reset();
+
+        batch.advance(0);
+        batch.advance(250 * NANOS_PER_MILLI);
+        assertEquals(250f, batch.getX()[0], DELTA);
+
+        chain.unchain(last);
+        assertTrue(batch.advance(275 * NANOS_PER_MILLI));
+        assertEquals(275f, batch.getX()[0], DELTA);
+
+        assertTrue(batch.advance(400 * NANOS_PER_MILLI));
+        assertEquals(300f, batch.getX()[0], DELTA);
+        assertEquals(250f, batch.getX()[1], DELTA);
+
+        assertFalse(batch.advance(450 * NANOS_PER_MILLI));
+        assertEquals(300f, batch.getX()[1], DELTA);
+
+        // the next execution only plays the items left
+        batch.reset();
+        batch.advance(1000 * NANOS_PER_MILLI);
+        assertTrue(batch.advance(1200 * NANOS_PER_MILLI));
+        assertFalse(batch.advance(1350 * NANOS_PER_MILLI));
+    }
+
+    public void testItemChangesArePickedUp() {
+        AnimatorChainItem item = linear(100).setX(100f);
+        AnimatorChainBatch batch = new AnimatorChainBatch(new AnimatorChain().chain(item), 1);
+        batch.add(0f, 0f, 0);
+        batch.reset();
+
+        batch.advance(0);
+        item.setX(200f);
+        batch.advance(50 * NANOS_PER_MILLI);
+        assertEquals(100f, batch.getX()[0], DELTA);
+    }
+
+    /**
+     * The translations move every target from the point it has been added at, while the
+     * absolute positions bring all of them to the same point.
+     */
+    public void testTranslationsAreOffsetsFromTheOrigin() {
+        AnimatorChainBatch batch = new AnimatorChainBatch(new AnimatorChain()
+                .chain(linear(100).setTranslationX(50f).setY(200f)), 2);
+        batch.add(0f, 0f, 0);
+        batch.add(100f, 100f, 0);
+        batch.reset();
+
+        batch.advance(0);
+        batch.advance(50 * NANOS_PER_MILLI);
+        assertEquals(25f, batch.getX()[0], DELTA);
+        assertEquals(125f, batch.getX()[1], DELTA);
+        assertEquals(100f, batch.getY()[0], DELTA);
+        assertEquals(150f, batch.getY()[1], DELTA);
+
+        assertFalse(batch.advance(100 * NANOS_PER_MILLI));
+        assertEquals(50f, batch.getX()[0], DELTA);
+        assertEquals(150f, batch.getX()[1], DELTA);
+        assertEquals(200f, batch.getY()[0], DELTA);
+        assertEquals(200f, batch.getY()[1], DELTA);
+    }
+
+    public void testReverseRepeatModeIsRejected() {
+        AnimatorChainBatch batch = new AnimatorChainBatch(new AnimatorChain()
+                .chain(linear(100).setX(100f))
+                .enableRepeat(true)
+                .setRepeatMode(AnimatorChain.REPEAT_MODE_REVERSE), 1);
+        batch.add(0f, 0f, 0);
+
+        try {
+            batch.reset();
+            fail("A batch has accepted a reversed chain");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    public void testLazyChainIsRejected() {
+        AnimatorChainBatch batch = new AnimatorChainBatch(new AnimatorChain()
+                .setItemSource(Arrays.asList(linear(100).setX(100f)).iterator(), 1), 1);
+        batch.add(0f, 0f, 0);
+
+        try {
+            batch.reset();
+            fail("A batch has accepted a lazy chain");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    public void testStagesAreRejected() {
+        AnimatorChainBatch batch = new AnimatorChainBatch(new AnimatorChain()
+                .chain(AnimatorChainStage.create().add(linear(100).setX(100f))), 1);
+        batch.add(0f, 0f, 0);
+
+        try {
+            batch.reset();
+            fail("A batch has accepted a stage");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    // region Private methods
+
+    private static AnimatorChainItem linear(int duration) {
+        return AnimatorChainItem.create()
+                .setDuration(duration)
+                .setInterpolator(new LinearInterpolator());
+    }
+
+    // endregion
+}
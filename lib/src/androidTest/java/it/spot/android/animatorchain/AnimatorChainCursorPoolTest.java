@@ -0,0 +1,156 @@
+package it.spot.android.animatorchain;
+
+import android.view.View;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests the executions of an {@link AnimatorChainTemplate} through an
+ * {@link AnimatorChainCursorPool} on real views, as a list being scrolled does.
+ *
+ * @author a.rinaldi
+ */
+public class AnimatorChainCursorPoolTest extends AnimatorChainTestCase {
+
+    private static final int VISIBLE_ITEMS = 8;
+    private static final int WARM_UP_BINDS = 100;
+    private static final int MEASURED_BINDS = 1000;
+
+    private AnimatorChainTemplate mTemplate;
+    private AnimatorChainCursorPool mPool;
+    private View[] mViews;
+    private AnimatorChainCursor[] mBoundCursors;
+    private int mNext;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        this.mTemplate = AnimatorChainTemplate.from(new AnimatorChain()
+                .chain(AnimatorChainItem.create().setDuration(200).setAlpha(1f))
+                .chain(AnimatorChainItem.create().setDuration(200).setTranslationY(0)));
+        this.mPool = new AnimatorChainCursorPool(VISIBLE_ITEMS);
+
+        this.mViews = new View[VISIBLE_ITEMS];
+        for (int i = 0; i < VISIBLE_ITEMS; i++) {
+            this.mViews[i] = this.createView();
+        }
+        this.mBoundCursors = new AnimatorChainCursor[VISIBLE_ITEMS];
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        this.runOnMainSync(new Runnable() {
+
+            @Override
+            public void run() {
+                for (AnimatorChainCursor cursor : mBoundCursors) {
+                    if (cursor != null) {
+                        cursor.release();
+                    }
+                }
+            }
+        });
+
+        super.tearDown();
+    }
+
+    /**
+     * Once every visible item has been bound, binding a recycled item takes back the
+     * very cursor released by it, so that no new cursor is created.
+     */
+    public void testSteadyStateReusesTheCursors() throws Exception {
+        final Set<AnimatorChainCursor> warmUpCursors =
+                Collections.newSetFromMap(new IdentityHashMap<AnimatorChainCursor, Boolean>());
+        final AtomicInteger foreignCursors = new AtomicInteger();
+
+        this.runOnMainSync(new Runnable() {
+
+            @Override
+            public void run() {
+                for (int i = 0; i < WARM_UP_BINDS; i++) {
+                    warmUpCursors.add(bindNext());
+                }
+
+                for (int i = 0; i < MEASURED_BINDS; i++) {
+                    if (!warmUpCursors.contains(bindNext())) {
+                        foreignCursors.incrementAndGet();
+                    }
+                }
+            }
+        });
+
+        assertEquals(VISIBLE_ITEMS, warmUpCursors.size());
+        assertEquals(VISIBLE_ITEMS, this.mPool.getCreatedCount());
+        assertEquals(0, foreignCursors.get());
+    }
+
+    public void testReleasedCursorIsReused() throws Exception {
+        final AnimatorChainCursor[] cursors = new AnimatorChainCursor[2];
+
+        this.runOnMainSync(new Runnable() {
+
+            @Override
+            public void run() {
+                cursors[0] = mTemplate.execute(mViews[0], null, mPool);
+                cursors[0].release();
+                cursors[1] = mTemplate.execute(mViews[0], null, mPool);
+                cursors[1].release();
+            }
+        });
+
+        assertSame(cursors[0], cursors[1]);
+        assertEquals(1, this.mPool.getCreatedCount());
+    }
+
+    public void testCancelLeavesOtherAnimations() throws Exception {
+        final View view = this.mViews[0];
+        final AtomicInteger otherEnds = new AtomicInteger();
+
+        this.runOnMainSync(new Runnable() {
+
+            @Override
+            public void run() {
+                view.animate().setDuration(100).rotation(90f).withEndAction(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        otherEnds.incrementAndGet();
+                    }
+                });
+
+                mTemplate.execute(view, null, mPool).cancel();
+            }
+        });
+
+        Thread.sleep(500);
+        this.getInstrumentation().waitForIdleSync();
+
+        assertEquals(1, otherEnds.get());
+        assertEquals(90f, view.getRotation(), 0.01f);
+    }
+
+    // region Private methods
+
+    /**
+     * Recycles the least recently bound view and binds it again, starting a new execution on it.
+     *
+     * @return the cursor of the new execution
+     */
+    private AnimatorChainCursor bindNext() {
+        int slot = this.mNext;
+        this.mNext = (slot + 1) % VISIBLE_ITEMS;
+
+        AnimatorChainCursor recycled = this.mBoundCursors[slot];
+        if (recycled != null) {
+            recycled.release();
+        }
+        this.mBoundCursors[slot] = this.mTemplate.execute(this.mViews[slot], null, this.mPool);
+        return this.mBoundCursors[slot];
+    }
+
+    // endregion
+}
@@ -0,0 +1,167 @@
+package it.spot.android.animatorchain;
+
+import android.view.animation.LinearInterpolator;
+
+import junit.framework.TestCase;
+
+import java.util.Random;
+
+/**
+ * Tests the {@link AnimatorChainEvaluator} against hand computed values.
+ *
+ * @author a.rinaldi
+ */
+public class AnimatorChainEvaluatorTest extends TestCase {
+
+    private static final float DELTA = 0.001f;
+
+    private final float[] mValues = new float[AnimatorChainProperty.COUNT];
+
+    public void testValuesAtTimes() {
+        AnimatorChainEvaluator evaluator = new AnimatorChainEvaluator(new AnimatorChain()
+                .chain(linear(100).setX(100f))
+                .chain(linear(100).setStartDelay(50).setY(200f)), new RecordingAnimatorChainTarget());
+
+        assertEquals(250, evaluator.getIterationDuration());
+        assertEquals(250, evaluator.getTotalDuration());
+
+        this.assertValues(evaluator, 0, 0f, 0f);
+        this.assertValues(evaluator, 50, 50f, 0f);
+        this.assertValues(evaluator, 100, 100f, 0f);
+        // the second item is still waiting for its delay
+        this.assertValues(evaluator, 125, 100f, 0f);
+        this.assertValues(evaluator, 200, 100f, 100f);
+        this.assertValues(evaluator, 250, 100f, 200f);
+        this.assertValues(evaluator, 1000, 100f, 200f);
+
+        assertEquals(0, evaluator.getPositionAt(99));
+        assertEquals(1, evaluator.getPositionAt(100));
+        assertEquals(-1, evaluator.getPositionAt(250));
+    }
+
+    public void testRestartRepetitions() {
+        AnimatorChainEvaluator evaluator = new AnimatorChainEvaluator(new AnimatorChain()
+                .chain(linear(100).setX(100f))
+                .chain(linear(100).setX(0f))
+                .enableRepeat(true)
+                .setRepeatCount(2), new RecordingAnimatorChainTarget());
+
+        assertEquals(600, evaluator.getTotalDuration());
+
+        for (long time = 0; time < 200; time += 10) {
+            evaluator.evaluate(time, this.mValues);
+            float x = this.mValues[AnimatorChainProperty.X];
+
+            this.assertValues(evaluator, time + 200, x, 0f);
+            this.assertValues(evaluator, time + 400, x, 0f);
+        }
+        this.assertValues(evaluator, 600, 0f, 0f);
+    }
+
+    public void testReverseRepetitions() {
+        AnimatorChainEvaluator evaluator = new AnimatorChainEvaluator(new AnimatorChain()
+                .chain(linear(100).setX(100f))
+                .chain(linear(100).setStartDelay(20).setY(50f))
+                .enableRepeat(true)
+                .setRepeatCount(1)
+                .setRepeatMode(AnimatorChain.REPEAT_MODE_REVERSE), new RecordingAnimatorChainTarget());
+
+        long iteration = evaluator.getIterationDuration();
+        assertEquals(220, iteration);
+
+        // the backward iteration mirrors the forward one in time
+        for (long time = 0; time <= iteration; time += 5) {
+            evaluator.evaluate(time, this.mValues);
+            this.assertValues(evaluator, 2 * iteration - time,
+                    this.mValues[AnimatorChainProperty.X], this.mValues[AnimatorChainProperty.Y]);
+        }
+        this.assertValues(evaluator, 2 * iteration + 100, 0f, 0f);
+    }
+
+    public void testVirtualClock() {
+        AnimatorChainEvaluator evaluator = new AnimatorChainEvaluator(new AnimatorChain()
+                .chain(linear(100).setX(100f)), new RecordingAnimatorChainTarget());
+
+        int frames = 0;
+        while (!evaluator.isFinished()) {
+            evaluator.evaluate(this.mValues);
+            assertEquals(evaluator.getPlayTime(), this.mValues[AnimatorChainProperty.X], DELTA);
+
+            evaluator.advance(16);
+            frames++;
+        }
+        assertEquals(7, frames);
+
+        float[] precomputed = evaluator.precompute(25);
+        assertEquals(5 * AnimatorChainProperty.COUNT, precomputed.length);
+        assertEquals(75f, precomputed[3 * AnimatorChainProperty.COUNT + AnimatorChainProperty.X], DELTA);
+    }
+
+    public void testInfiniteRepetitions() {
+        AnimatorChainEvaluator evaluator = new AnimatorChainEvaluator(new AnimatorChain()
+                .chain(linear(100).setX(100f))
+                .chain(linear(100).setX(0f))
+                .enableRepeat(true)
+                .setRepeatCount(AnimatorChain.REPEAT_INFINITE), new RecordingAnimatorChainTarget());
+
+        assertEquals(Long.MAX_VALUE, evaluator.getTotalDuration());
+        assertEquals(1, evaluator.getPositionAt(1000L * 1000 * 1000 + 150));
+        this.assertValues(evaluator, 1000L * 1000 * 1000 + 50, 50f, 0f);
+
+        try {
+            evaluator.precompute(16);
+            fail("A chain repeated forever has been precomputed");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    /**
+     * The binary search must find the same items as a linear scan, including
+     * the items taking no time and the ones only made of a delay.
+     */
+    public void testBinarySearchMatchesLinearScan() {
+        Random random = new Random(42);
+        int size = 200;
+        int[] delays = new int[size];
+        int[] durations = new int[size];
+
+        AnimatorChain chain = new AnimatorChain();
+        for (int i = 0; i < size; i++) {
+            delays[i] = random.nextInt(4) == 0 ? random.nextInt(30) : 0;
+            durations[i] = random.nextInt(4) == 0 ? 0 : random.nextInt(50);
+            chain.chain(linear(durations[i]).setStartDelay(delays[i]).setX(i));
+        }
+
+        AnimatorChainEvaluator evaluator = new AnimatorChainEvaluator(chain, new RecordingAnimatorChainTarget());
+
+        for (long time = 0; time < evaluator.getTotalDuration(); time++) {
+            int expected = 0;
+            long start = 0;
+            for (int i = 0; i < size; i++) {
+                if (start <= time) {
+                    expected = i;
+                }
+                start += delays[i] + durations[i];
+            }
+
+            assertEquals("At " + time, expected, evaluator.getPositionAt(time));
+        }
+    }
+
+    // region Private methods
+
+    private static AnimatorChainItem linear(int duration) {
+        return AnimatorChainItem.create()
+                .setDuration(duration)
+                .setInterpolator(new LinearInterpolator());
+    }
+
+    private void assertValues(AnimatorChainEvaluator evaluator, long time, float x, float y) {
+        evaluator.evaluate(time, this.mValues);
+        assertEquals("X at " + time, x, this.mValues[AnimatorChainProperty.X], DELTA);
+        assertEquals("Y at " + time, y, this.mValues[AnimatorChainProperty.Y], DELTA);
+    }
+
+    // endregion
+}
@@ -0,0 +1,225 @@
+package it.spot.android.animatorchain;
+
+import android.animation.TimeInterpolator;
+import android.view.animation.LinearInterpolator;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Tests that {@link AnimatorChainFormat} reads back what it writes, and only
+ * fails with an {@link IOException} on corrupt data.
+ *
+ * @author a.rinaldi
+ */
+public class AnimatorChainFormatTest extends TestCase {
+
+    private static final int CUSTOM_INTERPOLATOR_ID = AnimatorChainFormat.INTERPOLATOR_FIRST_CUSTOM;
+    private static final float DELTA = 0.0001f;
+
+    private static final TimeInterpolator CUSTOM_INTERPOLATOR = new TimeInterpolator() {
+
+        @Override
+        public float getInterpolation(float input) {
+            return input * input * input;
+        }
+    };
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        AnimatorChainFormat.registerInterpolator(CUSTOM_INTERPOLATOR_ID, CUSTOM_INTERPOLATOR);
+    }
+
+    public void testRoundTrip() throws Exception {
+        AnimatorChain chain = createChain();
+        byte[] bytes = write(chain);
+
+        assertSameChain(chain, AnimatorChainFormat.read(new ByteArrayInputStream(bytes)));
+        assertSameChain(chain, AnimatorChainFormat.read(ByteBuffer.wrap(bytes)));
+    }
+
+    public void testChainsDoNotShareItems() throws Exception {
+        AnimatorChainFormat.Definition definition =
+                AnimatorChainFormat.readDefinition(new ByteArrayInputStream(write(createChain())));
+
+        AnimatorChain first = definition.newChain();
+        AnimatorChain second = definition.newChain();
+        assertNotSame(first.getChainedItems().get(0), second.getChainedItems().get(0));
+
+        first.getChainedItems().get(0).setX(-1f);
+        assertEquals(10f, second.compile().getTarget(0, AnimatorChainProperty.X), DELTA);
+    }
+
+    public void testTruncatedInput() throws Exception {
+        byte[] bytes = write(createChain());
+
+        for (int length = 0; length < bytes.length; length++) {
+            byte[] truncated = new byte[length];
+            System.arraycopy(bytes, 0, truncated, 0, length);
+
+            assertNotReadable(truncated);
+        }
+    }
+
+    /**
+     * Every single corrupt byte must either be read as a valid chain or be
+     * rejected with an {@link IOException}, never with any other exception.
+     */
+    public void testCorruptInput() throws Exception {
+        byte[] bytes = write(createChain());
+        int[] corruptions = {0xFF, 0x80, 0x7F, 0x01};
+
+        for (int position = 0; position < bytes.length; position++) {
+            for (int corruption : corruptions) {
+                byte[] corrupt = bytes.clone();
+                corrupt[position] ^= corruption;
+
+                readIgnoringIOException(corrupt);
+            }
+        }
+    }
+
+    public void testHugeCountIsRejected() throws Exception {
+        byte[] bytes = write(new AnimatorChain());
+        // the item count is the last byte: a 5 bytes varint announcing 2^31 - 1 items
+        byte[] corrupt = new byte[bytes.length + 4];
+        System.arraycopy(bytes, 0, corrupt, 0, bytes.length - 1);
+        corrupt[bytes.length - 1] = (byte) 0xFF;
+        corrupt[bytes.length] = (byte) 0xFF;
+        corrupt[bytes.length + 1] = (byte) 0xFF;
+        corrupt[bytes.length + 2] = (byte) 0xFF;
+        corrupt[bytes.length + 3] = (byte) 0x07;
+
+        assertNotReadable(corrupt);
+    }
+
+    // region Private methods
+
+    private static AnimatorChain createChain() {
+        return new AnimatorChain()
+                .chain(AnimatorChainItem.create()
+                        .setX(10f)
+                        .setAlpha(0.5f)
+                        .setDuration(200)
+                        .setInterpolator(new LinearInterpolator()))
+                .chain(AnimatorChainItem.create()
+                        .setRotation(90f)
+                        .setStartDelay(50)
+                        .setDuration(300)
+                        .setInterpolator(CUSTOM_INTERPOLATOR)
+                        .setLayerPolicy(AnimatorChain.LAYER_POLICY_ALWAYS))
+                .chain(AnimatorChainItem.create()
+                        .setScaleX(2f)
+                        .setScaleY(2f)
+                        .setDuration(150)
+                        .setBakedInterpolator(CUSTOM_INTERPOLATOR, 64))
+                .chain(AnimatorChainStage.create()
+                        .add(AnimatorChainItem.create()
+                                .setY(-20f)
+                                .setDuration(100)
+                                .setInterpolator(CUSTOM_INTERPOLATOR))
+                        .add(2, AnimatorChainItem.create()
+                                .setTranslationX(5f)
+                                .setDuration(400)
+                                .setInterpolator(new LinearInterpolator()))
+                        .setDuration(400)
+                        .setInterpolator(new LinearInterpolator()))
+                .enableRepeat(true)
+                .setRepeatCount(3)
+                .setRepeatMode(AnimatorChain.REPEAT_MODE_REVERSE)
+                .setExecutionMode(AnimatorChain.EXECUTION_MODE_TIMELINE)
+                .enableOptimization(true)
+                .setLayerPolicy(AnimatorChain.LAYER_POLICY_AUTO);
+    }
+
+    private static byte[] write(AnimatorChain chain) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AnimatorChainFormat.write(chain, out);
+        return out.toByteArray();
+    }
+
+    private static void assertNotReadable(byte[] bytes) {
+        try {
+            AnimatorChainFormat.read(new ByteArrayInputStream(bytes));
+            fail("A stream of " + bytes.length + " bytes has been read");
+        } catch (IOException e) {
+            // expected
+        }
+
+        try {
+            AnimatorChainFormat.read(ByteBuffer.wrap(bytes));
+            fail("A buffer of " + bytes.length + " bytes has been read");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    private static void readIgnoringIOException(byte[] bytes) {
+        try {
+            AnimatorChainFormat.read(new ByteArrayInputStream(bytes));
+        } catch (IOException e) {
+            // rejected as expected
+        }
+
+        try {
+            AnimatorChainFormat.read(ByteBuffer.wrap(bytes));
+        } catch (IOException e) {
+            // rejected as expected
+        }
+    }
+
+    private static void assertSameChain(AnimatorChain expected, AnimatorChain actual) {
+        assertEquals(expected.isRepeatEnabled(), actual.isRepeatEnabled());
+        assertEquals(expected.getRepeatCount(), actual.getRepeatCount());
+        assertEquals(expected.getRepeatMode(), actual.getRepeatMode());
+        assertEquals(expected.getExecutionMode(), actual.getExecutionMode());
+        assertEquals(expected.isOptimizationEnabled(), actual.isOptimizationEnabled());
+        assertEquals(expected.getLayerPolicy(), actual.getLayerPolicy());
+
+        assertSameItems(expected.compile(), actual.compile());
+    }
+
+    private static void assertSameItems(CompiledAnimatorChain expected, CompiledAnimatorChain actual) {
+        assertEquals(expected.size(), actual.size());
+
+        for (int position = 0; position < expected.size(); position++) {
+            assertEquals(expected.getPropertyMask(position), actual.getPropertyMask(position));
+            for (int property = 0; property < AnimatorChainProperty.COUNT; property++) {
+                assertEquals(expected.getTarget(position, property), actual.getTarget(position, property), DELTA);
+            }
+            assertEquals(expected.getStartDelay(position), actual.getStartDelay(position));
+            assertEquals(expected.getDuration(position), actual.getDuration(position));
+            assertEquals(expected.getLayerPolicy(position), actual.getLayerPolicy(position));
+            assertSameInterpolator(expected.getInterpolator(position), actual.getInterpolator(position));
+
+            assertEquals(expected.isStage(position), actual.isStage(position));
+            if (expected.isStage(position)) {
+                CompiledAnimatorChain expectedStage = expected.getStage(position);
+                for (int child = 0; child < expectedStage.size(); child++) {
+                    assertEquals(expected.getStageTarget(position, child), actual.getStageTarget(position, child));
+                }
+                assertSameItems(expectedStage, actual.getStage(position));
+            }
+        }
+    }
+
+    private static void assertSameInterpolator(TimeInterpolator expected, TimeInterpolator actual) {
+        assertEquals(expected.getClass(), actual.getClass());
+        if (expected instanceof BakedInterpolator) {
+            assertEquals(((BakedInterpolator) expected).getSamples(), ((BakedInterpolator) actual).getSamples());
+        }
+
+        for (int i = 0; i <= 10; i++) {
+            float input = i / 10f;
+            assertEquals(expected.getInterpolation(input), actual.getInterpolation(input), DELTA);
+        }
+    }
+
+    // endregion
+}
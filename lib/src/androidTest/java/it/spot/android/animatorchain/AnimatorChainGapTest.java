@@ -0,0 +1,176 @@
+package it.spot.android.animatorchain;
+
+import android.test.InstrumentationTestCase;
+import android.util.Log;
+import android.view.Choreographer;
+import android.view.View;
+import android.view.animation.LinearInterpolator;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures, on a real device, the frames in which a view stands still between two
+ * chained steps of a continuous motion, in both the execution modes.
+ *
+ * @author a.rinaldi
+ */
+public class AnimatorChainGapTest extends InstrumentationTestCase {
+
+    private static final String TAG = "AnimatorChainGapTest";
+
+    private static final int STEP_COUNT = 10;
+    private static final int STEP_DURATION = 100;
+    private static final float STEP_DISTANCE = 100f;
+    private static final long TIMEOUT_MS = 10000;
+
+    /**
+     * A timeline crosses the step boundaries within the frame, so the view moves at every frame.
+     */
+    public void testTimelineHasNoGapFrames() throws Exception {
+        int idleFrames = this.measureIdleFrames(AnimatorChain.EXECUTION_MODE_TIMELINE);
+
+        assertEquals(0, idleFrames);
+    }
+
+    /**
+     * The idle frames of the animators, one or two per step on most devices, are only
+     * reported: they depend on the device, and are what the timeline mode gets rid of.
+     */
+    public void testTimelineHasFewerGapFramesThanAnimators() throws Exception {
+        int animatorIdleFrames = this.measureIdleFrames(AnimatorChain.EXECUTION_MODE_ANIMATOR);
+        int timelineIdleFrames = this.measureIdleFrames(AnimatorChain.EXECUTION_MODE_TIMELINE);
+
+        Log.i(TAG, "Idle frames over " + (STEP_COUNT - 1) + " step boundaries: animator "
+                + animatorIdleFrames + ", timeline " + timelineIdleFrames);
+        assertTrue(timelineIdleFrames <= animatorIdleFrames);
+    }
+
+    // region Private methods
+
+    /**
+     * Executes a chain of linear steps moving a view at a constant speed, and counts
+     * the frames in which the view doesn't move between its first and its last move.
+     *
+     * @param executionMode the execution mode of the chain
+     * @return the number of idle frames
+     */
+    private int measureIdleFrames(final int executionMode) throws InterruptedException {
+        final View view = new View(this.getInstrumentation().getTargetContext());
+        view.setX(0f);
+
+        final AnimatorChain chain = new AnimatorChain().setExecutionMode(executionMode);
+        for (int i = 1; i <= STEP_COUNT; i++) {
+            chain.chain(AnimatorChainItem.create()
+                    .setDuration(STEP_DURATION)
+                    .setInterpolator(new LinearInterpolator())
+                    .setX(i * STEP_DISTANCE));
+        }
+
+        final CountDownLatch completion = new CountDownLatch(1);
+        final IAnimatorChainListener listener = new IAnimatorChainListener() {
+
+            @Override
+            public void onChainedItemStart(int position) {
+            }
+
+            @Override
+            public void onChainedItemEnd(int position) {
+                if (position == STEP_COUNT - 1) {
+                    completion.countDown();
+                }
+            }
+        };
+
+        final FrameSampler sampler = new FrameSampler(view);
+        this.getInstrumentation().runOnMainSync(new Runnable() {
+
+            @Override
+            public void run() {
+                chain.registerListener(listener);
+                sampler.start();
+                chain.execute(view);
+            }
+        });
+
+        assertTrue("The chain didn't complete", completion.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+
+        this.getInstrumentation().runOnMainSync(new Runnable() {
+
+            @Override
+            public void run() {
+                sampler.stop();
+                chain.unregisterListener(listener);
+            }
+        });
+
+        return sampler.getIdleFrames();
+    }
+
+    // endregion
+
+    // region Inner classes
+
+    /**
+     * Reads the position of a view at every frame, counting the frames in which it
+     * hasn't changed since the previous one, once the view has started moving.
+     */
+    private static class FrameSampler implements Choreographer.FrameCallback {
+
+        private final View mView;
+
+        private boolean mRunning;
+        private boolean mMoving;
+        private float mLastX;
+        private int mIdleFrames;
+        private int mPendingIdleFrames;
+
+        public FrameSampler(View view) {
+            super();
+
+            this.mView = view;
+        }
+
+        public void start() {
+            this.mRunning = true;
+            this.mLastX = this.mView.getX();
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+
+        public void stop() {
+            this.mRunning = false;
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+
+        /**
+         * Gets the idle frames found between two moves, ignoring the ones before the
+         * first move and after the last one.
+         */
+        public int getIdleFrames() {
+            return this.mIdleFrames;
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            if (!this.mRunning) {
+                return;
+            }
+
+            float x = this.mView.getX();
+            if (x != this.mLastX) {
+                if (this.mMoving) {
+                    this.mIdleFrames += this.mPendingIdleFrames;
+                }
+                this.mMoving = true;
+                this.mPendingIdleFrames = 0;
+                this.mLastX = x;
+            } else {
+                this.mPendingIdleFrames++;
+            }
+
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    // endregion
+}
@@ -0,0 +1,155 @@
+package it.spot.android.animatorchain;
+
+import junit.framework.TestCase;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Races many writer threads mutating a chained {@link AnimatorChainItem} through its
+ * public setters against a reader compiling the chain, as the chain does at every
+ * step boundary.
+ *
+ * @author a.rinaldi
+ */
+public class AnimatorChainItemConcurrencyTest extends TestCase {
+
+    private static final int WRITER_COUNT = 8;
+    private static final int WRITES_PER_WRITER = 20000;
+    private static final long TIMEOUT_MS = 60000;
+
+    // every writer owns one property, and writes it with increasing values
+    private static final int[] PROPERTIES = {
+            AnimatorChainProperty.X,
+            AnimatorChainProperty.Y,
+            AnimatorChainProperty.ROTATION,
+            AnimatorChainProperty.ROTATION_X,
+            AnimatorChainProperty.ROTATION_Y,
+            AnimatorChainProperty.SCALE_X,
+            AnimatorChainProperty.SCALE_Y,
+            AnimatorChainProperty.ALPHA
+    };
+
+    /**
+     * The reader must only see whole versions of the item: every property it finds set
+     * holds a value written by its own writer and never goes back to an older value.
+     * Once the writers are done, no write has been lost.
+     */
+    public void testReaderNeverSeesHalfAppliedRows() throws Exception {
+        final AnimatorChainItem item = AnimatorChainItem.create();
+        AnimatorChain chain = new AnimatorChain().chain(item);
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(WRITER_COUNT);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+        for (int w = 0; w < WRITER_COUNT; w++) {
+            final int property = PROPERTIES[w];
+            final boolean timing = property == AnimatorChainProperty.X;
+
+            new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        for (int i = 1; i <= WRITES_PER_WRITER; i++) {
+                            set(item, property, valueOf(property, i));
+                            if (timing) {
+                                // the delay always follows the value written just before
+                                item.setStartDelay(i);
+                            }
+                        }
+                    } catch (Throwable t) {
+                        failure.compareAndSet(null, t);
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }).start();
+        }
+
+        int[] lastSteps = new int[AnimatorChainProperty.COUNT];
+
+        start.countDown();
+        do {
+            CompiledAnimatorChain compiled = chain.compile();
+
+            int xStep = 0;
+            for (int property = 0; property < AnimatorChainProperty.COUNT; property++) {
+                if (!compiled.hasProperty(0, property)) {
+                    assertEquals(0, lastSteps[property]);
+                    continue;
+                }
+
+                int step = stepOf(property, compiled.getTarget(0, property));
+                assertTrue("Property " + property + " went back", step >= lastSteps[property]);
+                lastSteps[property] = step;
+                if (property == AnimatorChainProperty.X) {
+                    xStep = step;
+                }
+            }
+
+            // the delay is written after the X value, so it's either its step or the one before
+            int delay = compiled.getStartDelay(0);
+            assertTrue("The delay doesn't follow X", delay == xStep || delay == xStep - 1);
+        } while (!done.await(0, TimeUnit.MILLISECONDS) && failure.get() == null);
+
+        assertTrue(done.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        assertNull(failure.get());
+
+        CompiledAnimatorChain compiled = chain.compile();
+        assertEquals(WRITES_PER_WRITER, compiled.getStartDelay(0));
+        for (int property : PROPERTIES) {
+            assertEquals(WRITES_PER_WRITER, stepOf(property, compiled.getTarget(0, property)));
+        }
+    }
+
+    // region Private methods
+
+    private static void set(AnimatorChainItem item, int property, float value) {
+        switch (property) {
+            case AnimatorChainProperty.X:
+                item.setX(value);
+                break;
+            case AnimatorChainProperty.Y:
+                item.setY(value);
+                break;
+            case AnimatorChainProperty.ROTATION:
+                item.setRotation(value);
+                break;
+            case AnimatorChainProperty.ROTATION_X:
+                item.setRotationX(value);
+                break;
+            case AnimatorChainProperty.ROTATION_Y:
+                item.setRotationY(value);
+                break;
+            case AnimatorChainProperty.SCALE_X:
+                item.setScaleX(value);
+                break;
+            case AnimatorChainProperty.SCALE_Y:
+                item.setScaleY(value);
+                break;
+            default:
+                item.setAlpha(value);
+                break;
+        }
+    }
+
+    /**
+     * Encodes the property along with the step, so that a value written to the
+     * wrong property is detected.
+     */
+    private static float valueOf(int property, int step) {
+        return step * AnimatorChainProperty.COUNT + property;
+    }
+
+    private static int stepOf(int property, float value) {
+        int encoded = (int) value;
+        assertEquals("Property " + property + " holds another property's value",
+                property, encoded % AnimatorChainProperty.COUNT);
+        return encoded / AnimatorChainProperty.COUNT;
+    }
+
+    // endregion
+}
@@ -0,0 +1,64 @@
+package it.spot.android.animatorchain;
+
+import android.view.View;
+import android.view.animation.LinearInterpolator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Tests the optimized execution of {@link AnimatorChain} on a real view.
+ *
+ * @author a.rinaldi
+ */
+public class AnimatorChainOptimizationTest extends AnimatorChainTestCase {
+
+    private static final float DELTA = 0.01f;
+
+    /**
+     * An item changed while the chain runs can merge the following row into the segment
+     * of the running one: the chain, reaching it in the middle of the new segment, must
+     * still animate it instead of skipping it as a snap.
+     */
+    public void testItemChangedWhileRunningStillAnimates() throws Exception {
+        final View view = this.createView();
+        view.setX(0f);
+
+        // the last item is faster than the second one, so every item is a segment of its own
+        final AnimatorChainItem changed = AnimatorChainItem.create()
+                .setDuration(100).setInterpolator(new LinearInterpolator()).setX(500f);
+        AnimatorChain chain = new AnimatorChain()
+                .chain(AnimatorChainItem.create().setDuration(100).setInterpolator(new LinearInterpolator()).setX(100f))
+                .chain(AnimatorChainItem.create().setDuration(100).setInterpolator(new LinearInterpolator()).setX(200f))
+                .chain(changed)
+                .enableOptimization(true);
+
+        final ArrayList<Integer> positions = new ArrayList<Integer>();
+        final ArrayList<Float> values = new ArrayList<Float>();
+        IAnimatorChainEventListener listener = new ChainListenerAdapter() {
+
+            @Override
+            public void onChainedItemStart(int position) {
+                if (position == 1) {
+                    // the last two items now keep the same speed, and are planned as a single segment
+                    changed.setX(300f);
+                }
+            }
+
+            @Override
+            public void onChainedItemEnd(int position) {
+                positions.add(position);
+                values.add(view.getX());
+            }
+        };
+        chain.registerListener(listener);
+
+        this.executeAndWait(chain, view);
+        chain.unregisterListener(listener);
+
+        assertEquals(Arrays.asList(0, 1, 2), positions);
+        assertEquals(100f, values.get(0), DELTA);
+        assertEquals(200f, values.get(1), DELTA);
+        assertEquals(300f, values.get(2), DELTA);
+    }
+}
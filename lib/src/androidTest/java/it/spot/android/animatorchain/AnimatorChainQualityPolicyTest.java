@@ -0,0 +1,57 @@
+package it.spot.android.animatorchain;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the degradations decided by an {@link AnimatorChainQualityPolicy} for a
+ * timeline driven manually through {@link AnimatorChainTimeline#advance(long)}.
+ *
+ * @author a.rinaldi
+ */
+public class AnimatorChainQualityPolicyTest extends TestCase {
+
+    private static final long NANOS_PER_MILLI = 1000000L;
+    private static final long SLOW_FRAME_NANOS = 50 * NANOS_PER_MILLI;
+    private static final int TARGET_COUNT = 4;
+
+    /**
+     * The targets of a timeline share the decision taken for every item, so
+     * every item is counted once, whatever the number of targets.
+     */
+    public void testItemsAreDegradedOnceForAllTargets() {
+        AnimatorChainQualityPolicy qualityPolicy = new AnimatorChainQualityPolicy()
+                .setTriggers(AnimatorChainQualityPolicy.TRIGGER_FRAME_PRESSURE)
+                .setDegradations(AnimatorChainQualityPolicy.DEGRADATION_SHORTEN_DURATIONS);
+
+        AnimatorChain chain = new AnimatorChain()
+                .chain(AnimatorChainItem.create().setDuration(200).setX(100f))
+                .chain(AnimatorChainItem.create().setDuration(200).setX(200f))
+                .chain(AnimatorChainItem.create().setDuration(200).setX(300f))
+                .setQualityPolicy(qualityPolicy);
+
+        IAnimatorChainTarget[] targets = new IAnimatorChainTarget[TARGET_COUNT];
+        for (int i = 0; i < TARGET_COUNT; i++) {
+            targets[i] = new RecordingAnimatorChainTarget();
+        }
+
+        // some slow frames lower the quality before the timeline starts
+        long time = 0;
+        for (int i = 0; i < 3; i++) {
+            qualityPolicy.onFrame(time);
+            time += SLOW_FRAME_NANOS;
+        }
+        assertEquals(AnimatorChainQualityPolicy.TRIGGER_FRAME_PRESSURE, qualityPolicy.getActiveTriggers());
+
+        AnimatorChainTimeline timeline = new AnimatorChainTimeline(chain, targets, 30);
+        timeline.reset();
+        while (timeline.advance(time)) {
+            time += SLOW_FRAME_NANOS;
+        }
+
+        // the last item of the iteration keeps its timing
+        assertEquals(2, qualityPolicy.getShortenedSteps());
+        for (IAnimatorChainTarget target : targets) {
+            assertEquals(300f, target.getProperty(AnimatorChainProperty.X));
+        }
+    }
+}
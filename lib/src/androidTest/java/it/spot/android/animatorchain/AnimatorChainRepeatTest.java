@@ -0,0 +1,65 @@
+package it.spot.android.animatorchain;
+
+import android.view.View;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Tests the repeat modes of {@link AnimatorChain} on a real view.
+ *
+ * @author a.rinaldi
+ */
+public class AnimatorChainRepeatTest extends AnimatorChainTestCase {
+
+    private static final float DELTA = 0.01f;
+
+    /**
+     * The backward iteration of an optimized chain must undo every item, including the
+     * snaps and the items merged into a single animator by the forward plan.
+     */
+    public void testReverseWithOptimization() throws Exception {
+        final View view = this.createView();
+        view.setX(-30f);
+
+        AnimatorChain chain = new AnimatorChain()
+                .chain(AnimatorChainItem.create().setDuration(0).setX(0f))
+                // the next two items keep the same speed, so they're merged by the plan
+                .chain(AnimatorChainItem.create().setDuration(100).setX(100f))
+                .chain(AnimatorChainItem.create().setDuration(100).setX(200f))
+                .chain(AnimatorChainItem.create().setDuration(0).setX(50f))
+                .enableRepeat(true)
+                .setRepeatCount(1)
+                .setRepeatMode(AnimatorChain.REPEAT_MODE_REVERSE)
+                .enableOptimization(true);
+
+        final ArrayList<Integer> positions = new ArrayList<Integer>();
+        final ArrayList<Float> values = new ArrayList<Float>();
+        chain.registerListener(new ChainListenerAdapter() {
+
+            private int mRepeatCount;
+
+            @Override
+            public void onChainedItemEnd(int position) {
+                if (this.mRepeatCount == 1) {
+                    positions.add(position);
+                    values.add(view.getX());
+                }
+            }
+
+            @Override
+            public void onChainRepeat(int repeatCount) {
+                this.mRepeatCount = repeatCount;
+            }
+        });
+
+        this.executeAndWait(chain, view);
+
+        assertEquals(Arrays.asList(3, 2, 1, 0), positions);
+        assertEquals(200f, values.get(0), DELTA);
+        assertEquals(100f, values.get(1), DELTA);
+        assertEquals(0f, values.get(2), DELTA);
+        assertEquals(-30f, values.get(3), DELTA);
+        assertEquals(-30f, view.getX(), DELTA);
+    }
+}
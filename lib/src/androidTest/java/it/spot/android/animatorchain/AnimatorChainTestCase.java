@@ -0,0 +1,104 @@
+package it.spot.android.animatorchain;
+
+import android.test.InstrumentationTestCase;
+import android.view.View;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A base test case running chains on real views, on the main thread of the device.
+ *
+ * @author a.rinaldi
+ */
+public abstract class AnimatorChainTestCase extends InstrumentationTestCase {
+
+    protected static final long TIMEOUT_MS = 10000;
+
+    // region Protected methods
+
+    protected View createView() {
+        return new View(this.getInstrumentation().getTargetContext());
+    }
+
+    protected void runOnMainSync(Runnable runnable) {
+        this.getInstrumentation().runOnMainSync(runnable);
+    }
+
+    /**
+     * Executes a chain on a view from the main thread, and waits for it to complete.
+     *
+     * @param chain the chain to execute
+     * @param view  the view to animate
+     */
+    protected void executeAndWait(final AnimatorChain chain, final View view) throws InterruptedException {
+        final CountDownLatch completion = new CountDownLatch(1);
+        final IAnimatorChainEventListener listener = new CompletionListener(completion);
+
+        this.runOnMainSync(new Runnable() {
+
+            @Override
+            public void run() {
+                chain.registerListener(listener, AnimatorChain.EVENT_COMPLETE);
+                chain.execute(view);
+            }
+        });
+
+        assertTrue("The chain didn't complete", completion.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+
+        this.runOnMainSync(new Runnable() {
+
+            @Override
+            public void run() {
+                chain.unregisterListener(listener);
+            }
+        });
+    }
+
+    // endregion
+
+    // region Inner classes
+
+    /**
+     * A listener doing nothing, to be extended by the tests.
+     */
+    protected static class ChainListenerAdapter implements IAnimatorChainEventListener {
+
+        @Override
+        public void onChainedItemStart(int position) {
+        }
+
+        @Override
+        public void onChainedItemEnd(int position) {
+        }
+
+        @Override
+        public void onChainRepeat(int repeatCount) {
+        }
+
+        @Override
+        public void onChainComplete() {
+        }
+    }
+
+    /**
+     * A listener counting down a latch when the chain completes.
+     */
+    protected static class CompletionListener extends ChainListenerAdapter {
+
+        private final CountDownLatch mCompletion;
+
+        public CompletionListener(CountDownLatch completion) {
+            super();
+
+            this.mCompletion = completion;
+        }
+
+        @Override
+        public void onChainComplete() {
+            this.mCompletion.countDown();
+        }
+    }
+
+    // endregion
+}
@@ -0,0 +1,131 @@
+package it.spot.android.animatorchain;
+
+import android.animation.TimeInterpolator;
+import android.view.animation.LinearInterpolator;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the timeline execution of a chain, on one or many targets, driven manually
+ * through {@link AnimatorChainTimeline#advance(long)}.
+ *
+ * @author a.rinaldi
+ */
+public class AnimatorChainTimelineTest extends TestCase {
+
+    private static final long NANOS_PER_MILLI = 1000000L;
+    private static final long FRAME_NANOS = 16 * NANOS_PER_MILLI;
+    private static final int TARGET_COUNT = 3;
+    private static final float DELTA = 0.01f;
+
+    /**
+     * Unchaining an item while the staggered targets run mustn't move any of them past the
+     * end of the items: the running snapshot is kept, so every target plays the whole chain.
+     */
+    public void testUnchainWhileRunningKeepsTheRunningItems() {
+        AnimatorChainItem last = AnimatorChainItem.create().setDuration(100).setX(300f);
+        AnimatorChain chain = new AnimatorChain()
+                .chain(AnimatorChainItem.create().setDuration(100).setX(100f))
+                .chain(AnimatorChainItem.create().setDuration(100).setX(200f))
+                .chain(last);
+
+        IAnimatorChainTarget[] targets = new IAnimatorChainTarget[TARGET_COUNT];
+        for (int i = 0; i < TARGET_COUNT; i++) {
+            targets[i] = new RecordingAnimatorChainTarget();
+        }
+
+        AnimatorChainTimeline timeline = new AnimatorChainTimeline(chain, targets, 30);
+        timeline.reset();
+
+        long time = 0;
+        while (time < 150 * NANOS_PER_MILLI) {
+            assertTrue(timeline.advance(time));
+            time += FRAME_NANOS;
+        }
+
+        chain.unchain(last);
+        while (timeline.advance(time)) {
+            time += FRAME_NANOS;
+        }
+
+        for (IAnimatorChainTarget target : targets) {
+            assertEquals(300f, target.getProperty(AnimatorChainProperty.X));
+        }
+    }
+
+    /**
+     * A single target picks up the items removed while it runs when its iteration wraps.
+     */
+    public void testUnchainWhileRunningAppliesToTheNextIteration() {
+        AnimatorChainItem last = AnimatorChainItem.create().setDuration(100).setX(300f);
+        AnimatorChain chain = new AnimatorChain()
+                .chain(AnimatorChainItem.create().setDuration(100).setX(100f))
+                .chain(AnimatorChainItem.create().setDuration(100).setX(200f))
+                .chain(last)
+                .enableRepeat(true)
+                .setRepeatCount(1);
+
+        RecordingAnimatorChainTarget target = new RecordingAnimatorChainTarget();
+        AnimatorChainTimeline timeline = new AnimatorChainTimeline(chain, new IAnimatorChainTarget[]{target}, 0);
+        timeline.reset();
+
+        long time = 0;
+        while (time < 150 * NANOS_PER_MILLI) {
+            assertTrue(timeline.advance(time));
+            time += FRAME_NANOS;
+        }
+
+        chain.unchain(last);
+
+        // the running iteration still plays the removed item
+        while (time < 290 * NANOS_PER_MILLI) {
+            assertTrue(timeline.advance(time));
+            time += FRAME_NANOS;
+        }
+        assertTrue(target.getProperty(AnimatorChainProperty.X) > 200f);
+
+        while (timeline.advance(time)) {
+            time += FRAME_NANOS;
+        }
+
+        // the second iteration is 100 ms shorter, and ends where the second item does
+        assertEquals(200f, target.getProperty(AnimatorChainProperty.X));
+        assertTrue(time < 520 * NANOS_PER_MILLI);
+    }
+
+    /**
+     * The interpolator of a stage warps the time seen by its children, which
+     * still end together with the stage.
+     */
+    public void testStageInterpolatorWarpsTheChildren() {
+        AnimatorChainStage stage = AnimatorChainStage.create();
+        stage.add(AnimatorChainItem.create().setDuration(100).setInterpolator(new LinearInterpolator()).setX(100f))
+                .add(AnimatorChainItem.create().setDuration(50).setInterpolator(new LinearInterpolator()).setY(50f));
+        stage.setInterpolator(new TimeInterpolator() {
+
+            @Override
+            public float getInterpolation(float input) {
+                return input * input;
+            }
+        });
+
+        AnimatorChain chain = new AnimatorChain().chain(stage);
+        RecordingAnimatorChainTarget target = new RecordingAnimatorChainTarget();
+        AnimatorChainTimeline timeline = new AnimatorChainTimeline(chain, new IAnimatorChainTarget[]{target}, 0);
+        timeline.reset();
+
+        // half of the stage is a quarter of its time
+        assertTrue(timeline.advance(0));
+        assertTrue(timeline.advance(50 * NANOS_PER_MILLI));
+        assertEquals(25f, target.getProperty(AnimatorChainProperty.X), DELTA);
+        assertEquals(25f, target.getProperty(AnimatorChainProperty.Y), DELTA);
+
+        assertTrue(timeline.advance(90 * NANOS_PER_MILLI));
+        assertEquals(81f, target.getProperty(AnimatorChainProperty.X), DELTA);
+        assertEquals(50f, target.getProperty(AnimatorChainProperty.Y), DELTA);
+
+        assertFalse(timeline.advance(100 * NANOS_PER_MILLI));
+        assertEquals(100f, target.getProperty(AnimatorChainProperty.X), DELTA);
+        assertEquals(50f, target.getProperty(AnimatorChainProperty.Y), DELTA);
+    }
+}
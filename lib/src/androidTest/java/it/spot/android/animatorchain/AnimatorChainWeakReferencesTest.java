@@ -0,0 +1,145 @@
+package it.spot.android.animatorchain;
+
+import android.view.View;
+import android.widget.FrameLayout;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tests that a chain holding its views and listeners weakly doesn't keep an
+ * {@link android.app.Activity}-sized graph of views alive while it's still running.
+ *
+ * @author a.rinaldi
+ */
+public class AnimatorChainWeakReferencesTest extends AnimatorChainTestCase {
+
+    private static final int VIEW_COUNT = 200;
+    private static final int PAYLOAD_SIZE = 1024 * 1024;
+    private static final int GC_ATTEMPTS = 20;
+    private static final long RUNNING_TIME_MS = 300;
+
+    // the chain is kept by the test, like a leaked field would do, for the whole test
+    private AnimatorChain mChain;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        this.mChain = new AnimatorChain()
+                .chain(AnimatorChainItem.create().setDuration(100).setX(100f))
+                .chain(AnimatorChainItem.create().setDuration(100).setX(0f))
+                .enableRepeat(true)
+                .setRepeatCount(AnimatorChain.REPEAT_INFINITE)
+                .enableWeakReferences(true);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        final AnimatorChain chain = this.mChain;
+        this.runOnMainSync(new Runnable() {
+
+            @Override
+            public void run() {
+                chain.cancel();
+            }
+        });
+        this.mChain = null;
+
+        super.tearDown();
+    }
+
+    public void testRunningTimelineDoesNotKeepViews() throws Exception {
+        this.mChain.setExecutionMode(AnimatorChain.EXECUTION_MODE_TIMELINE);
+
+        WeakReference<View> root = this.executeOnGraph();
+        Thread.sleep(RUNNING_TIME_MS);
+
+        this.assertCollected(root);
+    }
+
+    public void testSuspendedTimelineDoesNotKeepViews() throws Exception {
+        // the views are never attached, so the timeline is suspended on its first frame
+        this.mChain.enableAutoSuspend(true);
+
+        WeakReference<View> root = this.executeOnGraph();
+        Thread.sleep(RUNNING_TIME_MS);
+
+        this.assertCollected(root);
+    }
+
+    public void testPausedChainDoesNotKeepViews() throws Exception {
+        final AnimatorChain chain = this.mChain;
+
+        WeakReference<View> root = this.executeOnGraph();
+        Thread.sleep(RUNNING_TIME_MS);
+        this.runOnMainSync(new Runnable() {
+
+            @Override
+            public void run() {
+                chain.pause();
+            }
+        });
+
+        this.assertCollected(root);
+
+        // the chain finds its view gone, and cancels itself
+        this.runOnMainSync(new Runnable() {
+
+            @Override
+            public void run() {
+                chain.resume();
+            }
+        });
+        assertFalse(chain.isPaused());
+    }
+
+    // region Private methods
+
+    /**
+     * Builds a graph of views on the main thread, along with a listener referring
+     * to it like an {@link android.app.Activity} would, and executes the chain on
+     * one of the views, keeping no strong reference to any of them.
+     *
+     * @return a reference to the root of the graph
+     */
+    private WeakReference<View> executeOnGraph() {
+        final AnimatorChain chain = this.mChain;
+        final AtomicReference<WeakReference<View>> root = new AtomicReference<WeakReference<View>>();
+
+        this.runOnMainSync(new Runnable() {
+
+            @Override
+            public void run() {
+                final FrameLayout layout = new FrameLayout(getInstrumentation().getTargetContext());
+                for (int i = 0; i < VIEW_COUNT; i++) {
+                    layout.addView(createView());
+                }
+                layout.setTag(new byte[PAYLOAD_SIZE]);
+
+                chain.registerListener(new ChainListenerAdapter() {
+
+                    @Override
+                    public void onChainedItemEnd(int position) {
+                        layout.invalidate();
+                    }
+                });
+                chain.execute(layout.getChildAt(0));
+
+                root.set(new WeakReference<View>(layout));
+            }
+        });
+        return root.get();
+    }
+
+    private void assertCollected(WeakReference<View> reference) throws InterruptedException {
+        for (int i = 0; i < GC_ATTEMPTS && reference.get() != null; i++) {
+            Runtime.getRuntime().gc();
+            System.runFinalization();
+            Thread.sleep(100);
+        }
+        assertNull("The views have not been collected", reference.get());
+    }
+
+    // endregion
+}
@@ -4,6 +4,9 @@ import android.view.View;
 import android.view.ViewPropertyAnimator;
 
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 
 /**
  * This class allows to chain more view property animations, avoiding the developer
@@ -19,26 +22,145 @@ import java.util.ArrayList;
  */
 public class AnimatorChain {
 
-    private ArrayList<IAnimatorChainListener> mListeners;
+    /**
+     * Every chained item is executed by its own {@link ViewPropertyAnimator},
+     * started when the previous one ends. This is the default mode.
+     */
+    public static final int EXECUTION_MODE_ANIMATOR = 0;
+
+    /**
+     * The whole chain is executed as one continuous timeline, driven by a single
+     * frame callback, so that no frame is lost between two chained items.
+     */
+    public static final int EXECUTION_MODE_TIMELINE = 1;
+
+    /**
+     * The repeat count of a chain repeated forever, until cancelled.
+     */
+    public static final int REPEAT_INFINITE = -1;
+
+    /**
+     * Every repetition plays the chain from its first item. This is the default repeat mode.
+     */
+    public static final int REPEAT_MODE_RESTART = 1;
+
+    /**
+     * The repetitions alternate direction: every other one plays the chain backward,
+     * from its last item to the first one, bringing the properties back to the values
+     * they had before every item.
+     */
+    public static final int REPEAT_MODE_REVERSE = 2;
+
+    /**
+     * The event notified by {@link IAnimatorChainListener#onChainedItemStart(int)}.
+     */
+    public static final int EVENT_ITEM_START = 1;
+
+    /**
+     * The event notified by {@link IAnimatorChainListener#onChainedItemEnd(int)}.
+     */
+    public static final int EVENT_ITEM_END = 1 << 1;
+
+    /**
+     * The event notified by {@link IAnimatorChainEventListener#onChainRepeat(int)}.
+     */
+    public static final int EVENT_REPEAT = 1 << 2;
+
+    /**
+     * The event notified by {@link IAnimatorChainEventListener#onChainComplete()}.
+     */
+    public static final int EVENT_COMPLETE = 1 << 3;
+
+    /**
+     * All the events.
+     */
+    public static final int EVENT_ALL = EVENT_ITEM_START | EVENT_ITEM_END | EVENT_REPEAT | EVENT_COMPLETE;
+
+    /**
+     * The item follows the layer policy of the chain. This is the default policy of the items.
+     */
+    public static final int LAYER_POLICY_INHERIT = -1;
+
+    /**
+     * The view is never rendered into a hardware layer. This is the default policy of the chain.
+     */
+    public static final int LAYER_POLICY_NEVER = 0;
+
+    /**
+     * The view is rendered into a hardware layer while the items run.
+     */
+    public static final int LAYER_POLICY_ALWAYS = 1;
+
+    /**
+     * The view is rendered into a hardware layer while the items animating its alpha,
+     * rotationX or rotationY run, since they would redraw the whole view at every frame.
+     */
+    public static final int LAYER_POLICY_AUTO = 2;
+
+    private static AnimatorChainScheduler sDefaultScheduler;
+
+    private static final int LAYER_AUTO_MASK = 1 << AnimatorChainProperty.ALPHA
+            | 1 << AnimatorChainProperty.ROTATION_X
+            | 1 << AnimatorChainProperty.ROTATION_Y;
+
+    private AnimatorChainListenerRegistry mListeners;
     private ArrayList<AnimatorChainItem> mChainItems;
+    private HashSet<AnimatorChainItem> mChainItemsSet;
+    private CompiledAnimatorChain mCompiledChain;
+    // bumped whenever items are added or removed, and the value the snapshot has been compiled at
+    private int mStructure;
+    private int mCompiledStructure;
+    // set by the items, from any thread, when they change after the snapshot has been compiled
+    private volatile boolean mItemsChanged;
+    private boolean mOptimize;
+    private OptimizedAnimatorChain mOptimizedChain;
+
+    private Iterator<AnimatorChainItem> mItemSource;
+    private int mLookahead;
+    private int mConsumedItems;
 
     private boolean mRepeat;
-    private int mRepeatCount;
     private int mMaxRepeatCount;
-    private int mCurrentChainItem;
-    private ViewPropertyAnimator mCurrentViewPropertyAnimator;
+    private int mRepeatMode;
 
-    private View mTargetView;
+    private boolean mPaused;
+
+    private int mExecutionMode;
+    private AnimatorChainAnimatorRunner mRunner;
+    private AnimatorChainTimeline mTimeline;
+    private boolean mAutoSuspend;
+
+    private AnimatorChainMetrics mMetrics;
+
+    private AnimatorChainQualityPolicy mQualityPolicy;
+    private int mAppliedDegradations;
+
+    private int mLayerPolicy;
+
+    private AnimatorChainScheduler mScheduler;
+    private int mPriority;
+    private Runnable mScheduledStart;
+    private ViewAnimatorChainTarget[] mScheduledTargets;
+    private boolean mStartingScheduled;
+
+    private boolean mWeakReferences;
+
+    private IAnimatorChainTarget mSeekTarget;
+    private float[] mSeekInitialValues;
+    private AnimatorChainEvaluator mSeekEvaluator;
 
     // region Construction
 
     public AnimatorChain() {
         super();
 
-        this.mCurrentChainItem = -1;
+        this.mScheduler = sDefaultScheduler;
+        this.mPriority = AnimatorChainScheduler.PRIORITY_NORMAL;
 
         this.mChainItems = new ArrayList<AnimatorChainItem>();
-        this.mListeners = new ArrayList<IAnimatorChainListener>();
+        this.mChainItemsSet = new HashSet<AnimatorChainItem>();
+        this.mListeners = new AnimatorChainListenerRegistry();
+        this.mRepeatMode = REPEAT_MODE_RESTART;
     }
 
     // endregion
@@ -52,33 +174,195 @@ public class AnimatorChain {
      * @param targetView the view the animations will be applied to
      */
     public void execute(View targetView) {
-        if (this.mTargetView != null) {
-            this.cancel();
+        this.executeView(new ViewAnimatorChainTarget(targetView, this.mWeakReferences));
+    }
+
+    /**
+     * Starts the execution of all the chained animations on more views at once,
+     * stopping a previous execution if needed.<br/>
+     * All the views share the same chain definition and a single frame callback,
+     * regardless of the execution mode, and each view starts {@code staggerMs}
+     * milliseconds after the previous one. The registered listeners are notified
+     * about the first view only.<br/>
+     * The children of an {@link AnimatorChainStage} are bound to the views by their
+     * index in this array.
+     *
+     * @param targetViews the views the animations will be applied to
+     * @param staggerMs   the delay, in milliseconds, between the start of a view and the following one
+     */
+    public void execute(View[] targetViews, long staggerMs) {
+        ViewAnimatorChainTarget[] targets = new ViewAnimatorChainTarget[targetViews.length];
+        for (int i = 0; i < targetViews.length; i++) {
+            targets[i] = new ViewAnimatorChainTarget(targetViews[i], this.mWeakReferences);
         }
 
-        this.mTargetView = targetView;
+        this.executeViews(targets, staggerMs);
+    }
 
-        this.mRepeatCount = 0;
-        this.mCurrentChainItem = 0;
+    /**
+     * Starts the execution of all the chained animations on a custom target,
+     * stopping a previous execution if needed.<br/>
+     * The chain is executed as a timeline, regardless of the execution mode.
+     *
+     * @param target the target the animations will be applied to
+     */
+    public void execute(IAnimatorChainTarget target) {
+        this.execute(new IAnimatorChainTarget[]{target}, 0);
+    }
+
+    /**
+     * Starts the execution of all the chained animations on more custom targets
+     * at once, stopping a previous execution if needed.<br/>
+     * It works like {@link #execute(View[], long)}.
+     *
+     * @param targets   the targets the animations will be applied to
+     * @param staggerMs the delay, in milliseconds, between the start of a target and the following one
+     */
+    public void execute(final IAnimatorChainTarget[] targets, final long staggerMs) {
+        if (this.deferToScheduler(new Runnable() {
 
-        this.executeChainItem();
+            @Override
+            public void run() {
+                execute(targets, staggerMs);
+            }
+        }, null)) {
+            return;
+        }
+
+        this.createTimeline(targets, staggerMs).start();
     }
 
     /**
      * Cancels the execution of the chain.
      */
     public void cancel() {
-        if (this.mCurrentViewPropertyAnimator != null) {
-            this.mCurrentViewPropertyAnimator.cancel();
-            this.mCurrentViewPropertyAnimator = null;
+        if (this.mScheduler != null && !this.mStartingScheduled) {
+            this.mScheduledStart = null;
+            this.mScheduledTargets = null;
+            this.mScheduler.remove(this);
+        }
+
+        if (this.mTimeline != null) {
+            this.mTimeline.cancel();
+            this.mTimeline = null;
+        }
+
+        if (this.mRunner != null) {
+            this.mRunner.cancel();
+            this.mRunner = null;
+        }
+
+        this.mPaused = false;
+    }
+
+    /**
+     * Pauses the execution of the chain, keeping the current item, the time
+     * elapsed inside it and the repeat count, so that {@link #resume()} can
+     * continue from the same point.<br/>
+     * When the chain is executed by {@link ViewPropertyAnimator}s the remaining
+     * part of the current item is restarted from the current state of the view,
+     * which matches the original timing exactly only for linear interpolators;
+     * the {@link #EXECUTION_MODE_TIMELINE} mode always resumes at the exact fraction.
+     */
+    public void pause() {
+        if (this.mPaused) {
+            return;
+        }
+
+        if (this.mTimeline != null) {
+            this.mTimeline.pause();
+            this.mPaused = true;
+        } else if (this.mRunner != null) {
+            this.mPaused = this.mRunner.pause();
+        }
+    }
+
+    /**
+     * Resumes the execution of the chain from the point it has been paused at.
+     */
+    public void resume() {
+        if (!this.mPaused) {
+            return;
+        }
+
+        this.mPaused = false;
+
+        if (this.mMetrics != null) {
+            this.mMetrics.onDiscontinuity();
         }
 
-        if (this.mTargetView != null) {
-            this.mTargetView.clearAnimation();
-            this.mTargetView = null;
+        if (this.mTimeline != null) {
+            this.mTimeline.resume();
+        } else if (this.mRunner != null) {
+            this.mRunner.resume();
         }
+    }
 
-        this.mCurrentChainItem = -1;
+    /**
+     * Tells whether the execution of the chain is paused.
+     *
+     * @return {@code true} if {@link #pause()} has been called and the chain hasn't been resumed yet
+     */
+    public boolean isPaused() {
+        return this.mPaused;
+    }
+
+    /**
+     * Jumps a view to its exact state at a given time of the chain, including
+     * its repetitions, without starting any animator.<br/>
+     * The state of the view at the first seek is taken as the starting state
+     * of the chain, and the following calls to {@link #seekTo(long)} and
+     * {@link #seekToFraction(float)} will move the same view. A running
+     * execution of the chain is cancelled.
+     *
+     * @param targetView the view to move
+     * @param playTimeMs the time, in milliseconds, from the start of the chain
+     */
+    public void seekTo(View targetView, long playTimeMs) {
+        if (!(this.mSeekTarget instanceof ViewAnimatorChainTarget)
+                || ((ViewAnimatorChainTarget) this.mSeekTarget).getView() != targetView) {
+            this.setSeekTarget(new ViewAnimatorChainTarget(targetView));
+        }
+
+        this.seekTo(playTimeMs);
+    }
+
+    /**
+     * Jumps the view of the previous {@link #seekTo(View, long)} call to its exact
+     * state at a given time of the chain.<br/>
+     * It's a cheap lookup, logarithmic in the number of items, that doesn't allocate
+     * anything unless the chain has changed, so it can be called at every scroll event.
+     *
+     * @param playTimeMs the time, in milliseconds, from the start of the chain
+     */
+    public void seekTo(long playTimeMs) {
+        if (this.mSeekTarget == null) {
+            throw new IllegalStateException("No target to seek: call seekTo(View, long) first");
+        }
+
+        if (this.mRunner != null || this.mTimeline != null) {
+            this.cancel();
+        }
+
+        this.getSeekEvaluator().apply(playTimeMs, this.mSeekTarget);
+    }
+
+    /**
+     * Jumps the view of the previous {@link #seekTo(View, long)} call to its exact
+     * state at a given fraction of the whole chain, including its repetitions.
+     *
+     * @param fraction the fraction, between {@code 0} and {@code 1}
+     */
+    public void seekToFraction(float fraction) {
+        if (this.mSeekTarget == null) {
+            throw new IllegalStateException("No target to seek: call seekTo(View, long) first");
+        }
+
+        if (this.getIterationCount() == Integer.MAX_VALUE) {
+            throw new IllegalStateException("A chain repeated forever has no fraction to seek to");
+        }
+
+        this.seekTo((long) (this.getSeekEvaluator().getTotalDuration() * fraction));
     }
 
     /**
@@ -88,8 +372,12 @@ public class AnimatorChain {
      * @return the {@link AnimatorChain} itself, allowing chained method calls
      */
     public AnimatorChain chain(AnimatorChainItem item) {
-        if (!this.mChainItems.contains(item)) {
+        this.checkNotLazy();
+        this.syncChainItemsSet();
+
+        if (this.mChainItemsSet.add(item)) {
             this.mChainItems.add(item);
+            this.mStructure++;
         }
         return this;
     }
@@ -101,14 +389,62 @@ public class AnimatorChain {
      * @return the {@link AnimatorChain} itself, allowing chained method calls
      */
     public AnimatorChain unchain(AnimatorChainItem item) {
-        if (this.mChainItems.contains(item)) {
+        this.checkNotLazy();
+        this.syncChainItemsSet();
+
+        if (this.mChainItemsSet.remove(item)) {
             this.mChainItems.remove(item);
+            this.mStructure++;
+            item.removeOwner(this.mItemOwner);
         }
         return this;
     }
 
     /**
-     * Allows to get the list of all the chained animation items.
+     * Makes the chain lazy: instead of being chained up front, the items are pulled
+     * from the given source only when needed, so that very long or endless sequences
+     * can be executed in constant memory.<br/>
+     * The chain keeps only a window of {@code lookahead} items, the first of which
+     * is the one being executed: when it ends, it's dropped and the window is filled
+     * again from the source, so that the following item is always ready. The
+     * execution is over when the source has no more items.<br/>
+     * A lazy chain can be executed on a single target only, and it's never repeated;
+     * the listeners are notified with the index of every item in the source, while
+     * {@link #getChainedItems()}, {@link #compile()} and the seek methods only see
+     * the current window, and the metrics are recorded by position in the window.
+     * A cancelled execution restarts from the current item.
+     *
+     * @param source    the source of the items, or {@code null} to go back to an empty eager chain
+     * @param lookahead the number of items kept in the window, at least {@code 1}
+     * @return the {@link AnimatorChain} itself, allowing chained method calls
+     */
+    public AnimatorChain setItemSource(Iterator<AnimatorChainItem> source, int lookahead) {
+        if (lookahead < 1) {
+            throw new IllegalArgumentException("The lookahead must be at least 1: " + lookahead);
+        }
+
+        if (this.mRunner != null || this.mTimeline != null) {
+            this.cancel();
+        }
+
+        this.mItemSource = source;
+        this.mLookahead = lookahead;
+        this.mConsumedItems = 0;
+
+        for (AnimatorChainItem item : this.mChainItems) {
+            item.removeOwner(this.mItemOwner);
+        }
+        this.mChainItems.clear();
+        this.mChainItemsSet.clear();
+        this.mStructure++;
+        return this;
+    }
+
+    /**
+     * Allows to get the list of all the chained animation items.<br/>
+     * Items should be added and removed through {@link #chain(AnimatorChainItem)} and
+     * {@link #unchain(AnimatorChainItem)}: a change made to the list directly is only
+     * detected if it changes its size.
      *
      * @return the list
      */
@@ -116,6 +452,26 @@ public class AnimatorChain {
         return this.mChainItems;
     }
 
+    /**
+     * Gets an immutable snapshot of all the chained items, packed into flat arrays.<br/>
+     * The snapshot is cached and compiled again only when some item has changed: the
+     * items tell the chain when they change, so the items are only looked at after a change.
+     *
+     * @return the up to date {@link CompiledAnimatorChain}
+     */
+    public CompiledAnimatorChain compile() {
+        if (!this.isCompiledStructure()) {
+            this.compileChainItems();
+        } else if (this.mItemsChanged) {
+            // cleared before reading the versions, so that a change made meanwhile sets it again
+            this.mItemsChanged = false;
+            if (!this.mCompiledChain.isCurrent()) {
+                this.compileChainItems();
+            }
+        }
+        return this.mCompiledChain;
+    }
+
     /**
      * Enables, or disables, the repetition of the entire chain
      * when it comes to its end.
@@ -133,14 +489,233 @@ public class AnimatorChain {
      * Calling this method without enabling the repetition of the chain
      * through the {@link #enableRepeat(boolean)} will sort no effect.
      *
-     * @param repeatCount the maximum times value
+     * @param repeatCount the maximum times value, or {@link #REPEAT_INFINITE}
      * @return the {@link AnimatorChain} itself, allowing chained method calls
      */
     public AnimatorChain setRepeatCount(int repeatCount) {
+        if (repeatCount < REPEAT_INFINITE) {
+            throw new IllegalArgumentException("Invalid repeat count: " + repeatCount);
+        }
+
         this.mMaxRepeatCount = repeatCount;
         return this;
     }
 
+    /**
+     * Sets how the chain is played when repeated.<br/>
+     * In the {@link #REPEAT_MODE_REVERSE} mode the backward repetitions walk the same
+     * items from the last to the first one, each one playing the mirror of its forward
+     * motion: first the motion, with the interpolator reversed in time, then the delay.
+     * No item is copied or added. Stages are played as waits when going backward, and
+     * {@link AnimatorChainBatch} and {@link AnimatorChainTemplate} only support the
+     * {@link #REPEAT_MODE_RESTART} mode.
+     *
+     * @param repeatMode either {@link #REPEAT_MODE_RESTART} or {@link #REPEAT_MODE_REVERSE}
+     * @return the {@link AnimatorChain} itself, allowing chained method calls
+     */
+    public AnimatorChain setRepeatMode(int repeatMode) {
+        if (repeatMode != REPEAT_MODE_RESTART && repeatMode != REPEAT_MODE_REVERSE) {
+            throw new IllegalArgumentException("Unknown repeat mode: " + repeatMode);
+        }
+
+        this.mRepeatMode = repeatMode;
+        return this;
+    }
+
+    public int getRepeatMode() {
+        return this.mRepeatMode;
+    }
+
+    /**
+     * Sets the way the chain is executed, which will be used
+     * starting from the next call to {@link #execute(View)}.
+     *
+     * @param executionMode either {@link #EXECUTION_MODE_ANIMATOR} or {@link #EXECUTION_MODE_TIMELINE}
+     * @return the {@link AnimatorChain} itself, allowing chained method calls
+     */
+    public AnimatorChain setExecutionMode(int executionMode) {
+        if (executionMode != EXECUTION_MODE_ANIMATOR && executionMode != EXECUTION_MODE_TIMELINE) {
+            throw new IllegalArgumentException("Unknown execution mode: " + executionMode);
+        }
+
+        this.mExecutionMode = executionMode;
+        return this;
+    }
+
+    /**
+     * Enables, or disables, the optimization of the chain when it's executed
+     * by {@link ViewPropertyAnimator}s.<br/>
+     * When enabled, items are no longer animated to the values they already have,
+     * items without delay and duration are set directly to the view, and the
+     * following items that only wait, or that keep moving the same properties
+     * linearly at the same speed, are executed by a single animator. The listeners
+     * are still notified about every item, by its index in the chain, but the
+     * events of the items merged into a previous one are notified together, when
+     * the merged animation ends.<br/>
+     * It assumes that nothing else changes the animated properties of the view
+     * while the chain runs; it will be used starting from the next chained item.
+     *
+     * @param optimize the {@code boolean} to enable/disable the optimization
+     * @return the {@link AnimatorChain} itself, allowing chained method calls
+     */
+    public AnimatorChain enableOptimization(boolean optimize) {
+        this.mOptimize = optimize;
+        return this;
+    }
+
+    /**
+     * Enables, or disables, the automatic suspension of the chain while its
+     * target views are detached from the window or not visible.<br/>
+     * While suspended no frame work is done, and when a view is shown again the
+     * chain catches up with the position it would have reached in the meantime.
+     * When enabled, chains executed on views always run as a timeline; it will be
+     * used starting from the next call to {@link #execute(View)}.
+     *
+     * @param autoSuspend the {@code boolean} to enable/disable the suspension
+     * @return the {@link AnimatorChain} itself, allowing chained method calls
+     */
+    public AnimatorChain enableAutoSuspend(boolean autoSuspend) {
+        this.mAutoSuspend = autoSuspend;
+        return this;
+    }
+
+    /**
+     * Enables, or disables, holding the target views and the listeners through
+     * {@link java.lang.ref.WeakReference}s, so that a chain nobody cancels doesn't
+     * keep the views, and the {@link android.app.Activity} they belong to, alive.<br/>
+     * When enabled, the chain cancels itself as soon as one of its views is detached
+     * from the window or collected. The listeners must then be kept alive by someone
+     * else, e.g. by being the {@link android.app.Activity} itself, since a listener
+     * nobody else refers to is collected and stops being notified. The views are held
+     * weakly starting from the next call to {@link #execute(View)}, including while the
+     * execution waits in the queue of an {@link AnimatorChainScheduler}, which drops it
+     * if one of its views is collected.<br/>
+     * In the {@link #EXECUTION_MODE_ANIMATOR} mode the running {@link ViewPropertyAnimator}
+     * holds the view itself, through the animation framework, until the current item ends:
+     * a running chain is then stopped by the detachment of its view, and the view can be
+     * collected only while the chain is paused or once it's over. The timelines hold their
+     * views weakly at any time, even while suspended by {@link #enableAutoSuspend(boolean)}.
+     *
+     * @param weakReferences the {@code boolean} to enable/disable the weak references
+     * @return the {@link AnimatorChain} itself, allowing chained method calls
+     */
+    public AnimatorChain enableWeakReferences(boolean weakReferences) {
+        this.mWeakReferences = weakReferences;
+        this.mListeners.setWeak(weakReferences);
+        return this;
+    }
+
+    /**
+     * Sets whether the views are rendered into a hardware layer while the chain runs,
+     * for the items that don't set their own policy.<br/>
+     * The layer is created when the first item needing it starts, and kept until an
+     * item that doesn't need it starts or the chain ends, so that following items
+     * share the same layer instead of creating and destroying one at every step.
+     * The layer type the view had before is restored afterwards.
+     *
+     * @param layerPolicy one of {@link #LAYER_POLICY_NEVER}, {@link #LAYER_POLICY_ALWAYS}
+     *                    and {@link #LAYER_POLICY_AUTO}
+     * @return the {@link AnimatorChain} itself, allowing chained method calls
+     */
+    public AnimatorChain setLayerPolicy(int layerPolicy) {
+        if (layerPolicy == LAYER_POLICY_INHERIT) {
+            throw new IllegalArgumentException("A chain has no policy to inherit");
+        }
+        checkLayerPolicy(layerPolicy);
+
+        this.mLayerPolicy = layerPolicy;
+        return this;
+    }
+
+    /**
+     * Sets the scheduler the following executions of the chain are started by,
+     * instead of being started right away. A queued execution is dropped, while
+     * a running one keeps running outside of any scheduler.
+     *
+     * @param scheduler the scheduler, or {@code null} to start the executions right away
+     * @return the {@link AnimatorChain} itself, allowing chained method calls
+     */
+    public AnimatorChain setScheduler(AnimatorChainScheduler scheduler) {
+        if (this.mScheduler != null) {
+            this.mScheduledStart = null;
+            this.mScheduledTargets = null;
+            this.mScheduler.remove(this);
+        }
+
+        this.mScheduler = scheduler;
+        return this;
+    }
+
+    public AnimatorChainScheduler getScheduler() {
+        return this.mScheduler;
+    }
+
+    /**
+     * Sets the priority the chain has in its scheduler.
+     *
+     * @param priority one of the {@code AnimatorChainScheduler.PRIORITY_*} constants, or any
+     *                 other value: higher values are started first
+     * @return the {@link AnimatorChain} itself, allowing chained method calls
+     */
+    public AnimatorChain setPriority(int priority) {
+        this.mPriority = priority;
+        return this;
+    }
+
+    public int getPriority() {
+        return this.mPriority;
+    }
+
+    /**
+     * Sets the scheduler of all the chains created from now on, e.g. the app-wide
+     * {@link AnimatorChainScheduler#getInstance()}. It must be called on the main thread.
+     *
+     * @param scheduler the scheduler, or {@code null} to start the executions right away
+     */
+    public static void setDefaultScheduler(AnimatorChainScheduler scheduler) {
+        sDefaultScheduler = scheduler;
+    }
+
+    /**
+     * Sets the metrics the following executions of the chain will be recorded into.
+     *
+     * @param metrics the metrics, or {@code null} to disable the recording
+     * @return the {@link AnimatorChain} itself, allowing chained method calls
+     */
+    public AnimatorChain setMetrics(AnimatorChainMetrics metrics) {
+        this.mMetrics = metrics;
+        return this;
+    }
+
+    public AnimatorChainMetrics getMetrics() {
+        return this.mMetrics;
+    }
+
+    /**
+     * Sets the policy lowering the cost of the chain while the device is struggling.<br/>
+     * A policy can be shared by many chains, which then measure the frames together.
+     *
+     * @param qualityPolicy the policy, or {@code null} to always run at full quality
+     * @return the {@link AnimatorChain} itself, allowing chained method calls
+     */
+    public AnimatorChain setQualityPolicy(AnimatorChainQualityPolicy qualityPolicy) {
+        this.mQualityPolicy = qualityPolicy;
+        return this;
+    }
+
+    public AnimatorChainQualityPolicy getQualityPolicy() {
+        return this.mQualityPolicy;
+    }
+
+    /**
+     * Gets the degradations applied to the items of the current, or last, execution.
+     *
+     * @return a combination of the {@code AnimatorChainQualityPolicy.DEGRADATION_*} constants
+     */
+    public int getAppliedDegradations() {
+        return this.mAppliedDegradations;
+    }
+
     /**
      * Registers a listener to the events triggered by the
      * execution of the chain, if not already present.
@@ -149,9 +724,26 @@ public class AnimatorChain {
      * @return the {@link AnimatorChain} itself, allowing chained method calls
      */
     public AnimatorChain registerListener(IAnimatorChainListener listener) {
-        if (!this.mListeners.contains(listener)) {
-            this.mListeners.add(listener);
+        return this.registerListener(listener, EVENT_ALL);
+    }
+
+    /**
+     * Registers a listener to some of the events triggered by the execution
+     * of the chain, or changes the events of an already registered listener.<br/>
+     * The repeat and complete events are notified only to instances of
+     * {@link IAnimatorChainEventListener}.
+     *
+     * @param listener  the listener to add
+     * @param eventMask a combination of the {@code EVENT_*} constants
+     * @return the {@link AnimatorChain} itself, allowing chained method calls
+     */
+    public AnimatorChain registerListener(IAnimatorChainListener listener, int eventMask) {
+        int mask = eventMask;
+        if (!(listener instanceof IAnimatorChainEventListener)) {
+            mask &= EVENT_ITEM_START | EVENT_ITEM_END;
         }
+
+        this.mListeners.add(listener, mask);
         return this;
     }
 
@@ -162,9 +754,299 @@ public class AnimatorChain {
      * @return the {@link AnimatorChain} itself, allowing chained method calls
      */
     public void unregisterListener(IAnimatorChainListener listener) {
-        if (this.mListeners.contains(listener)) {
-            this.mListeners.remove(listener);
+        this.mListeners.remove(listener);
+    }
+
+    // endregion
+
+    // region Package methods
+
+    /**
+     * Gets the compiled snapshot of the chain, making sure that the row of the
+     * given item reflects its latest changes.<br/>
+     * It's meant to be called at every step boundary, so that the changes made
+     * to an item are picked up when the chain reaches it.
+     *
+     * @param position the index of the item that is about to be executed
+     * @return the snapshot to read the item from
+     */
+    CompiledAnimatorChain prepareChainItem(int position) {
+        if (!this.isCompiledStructure()) {
+            this.compileChainItems();
+        } else {
+            this.mCompiledChain = this.mCompiledChain.patch(position);
         }
+        return this.mCompiledChain;
+    }
+
+    /**
+     * Notifies the registered listeners that an item is about to start.
+     *
+     * @param position  the index of the item
+     * @param timeNanos the time of the start, in nanoseconds
+     */
+    void dispatchItemStart(int position, long timeNanos) {
+        AnimatorChainMetrics metrics = this.mMetrics;
+        if (metrics != null) {
+            metrics.onItemStart(position, timeNanos);
+        }
+
+        long dispatchStart = metrics != null ? System.nanoTime() : 0;
+        this.mListeners.dispatchItemStart(this.mConsumedItems + position);
+
+        if (metrics != null) {
+            metrics.onDispatch(System.nanoTime() - dispatchStart);
+        }
+    }
+
+    /**
+     * Notifies the registered listeners that an item is finished.
+     *
+     * @param position  the index of the item
+     * @param timeNanos the time of the end, in nanoseconds
+     */
+    void dispatchItemEnd(int position, long timeNanos) {
+        AnimatorChainMetrics metrics = this.mMetrics;
+        if (metrics != null && this.mCompiledChain != null && position < this.mCompiledChain.size()) {
+            metrics.onItemEnd(position, this.mCompiledChain.getDuration(position), timeNanos);
+        }
+
+        long dispatchStart = metrics != null ? System.nanoTime() : 0;
+        this.mListeners.dispatchItemEnd(this.mConsumedItems + position);
+
+        if (metrics != null) {
+            metrics.onDispatch(System.nanoTime() - dispatchStart);
+        }
+    }
+
+    /**
+     * Notifies the registered listeners that the chain is about to be restarted.
+     *
+     * @param repeatCount the times the chain has been restarted, including this one
+     */
+    void dispatchRepeat(int repeatCount) {
+        if (this.mMetrics != null) {
+            this.mMetrics.onRepeat();
+        }
+
+        this.mListeners.dispatchRepeat(repeatCount);
+    }
+
+    /**
+     * Notifies the registered listeners that the execution of the chain is over.
+     */
+    void dispatchComplete() {
+        if (this.mScheduler != null) {
+            this.mScheduler.remove(this);
+        }
+
+        this.mListeners.dispatchComplete();
+    }
+
+    /**
+     * Starts the execution queued in the scheduler.
+     */
+    void startScheduled() {
+        Runnable start = this.mScheduledStart;
+        this.mScheduledStart = null;
+        this.mScheduledTargets = null;
+        if (start == null) {
+            return;
+        }
+
+        this.mStartingScheduled = true;
+        try {
+            start.run();
+        } finally {
+            this.mStartingScheduled = false;
+        }
+    }
+
+    /**
+     * Tells whether one of the views the queued execution will animate, held weakly,
+     * has been collected, so that the execution can be dropped from the scheduler.
+     *
+     * @return {@code true} if a view of the queued execution is gone
+     */
+    boolean isScheduledTargetCollected() {
+        ViewAnimatorChainTarget[] targets = this.mScheduledTargets;
+        if (targets == null) {
+            return false;
+        }
+
+        for (ViewAnimatorChainTarget target : targets) {
+            if (target.isCollected()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Forgets the queued execution, once the scheduler has dropped it.
+     */
+    void dropScheduled() {
+        this.mScheduledStart = null;
+        this.mScheduledTargets = null;
+    }
+
+    /**
+     * Gets the times the chain is played, including the first one.
+     *
+     * @return the number of iterations, or {@link Integer#MAX_VALUE} if repeated forever
+     */
+    int getIterationCount() {
+        if (!this.mRepeat || this.mItemSource != null) {
+            return 1;
+        }
+        return this.mMaxRepeatCount == REPEAT_INFINITE ? Integer.MAX_VALUE : this.mMaxRepeatCount + 1;
+    }
+
+    /**
+     * Tells whether the chain can be restarted once more.
+     *
+     * @param repeatCount the times the chain has already been repeated
+     * @return {@code true} if the repetition is enabled and the maximum hasn't been reached
+     */
+    boolean canRepeat(int repeatCount) {
+        return this.mRepeat && this.mItemSource == null
+                && (this.mMaxRepeatCount == REPEAT_INFINITE || repeatCount < this.mMaxRepeatCount);
+    }
+
+    /**
+     * Decides the degradations of an item that is starting, through the quality policy.
+     *
+     * @param compiledChain the snapshot of the chain
+     * @param position      the index of the last row the item is made of
+     * @param repeatCount   the times the chain has already been repeated
+     * @param delay         the delay of the item, in milliseconds
+     * @param duration      the duration of the item, in milliseconds
+     * @param layer         {@code true} if the item needs a hardware layer
+     * @return a combination of the {@code AnimatorChainQualityPolicy.DEGRADATION_*} constants
+     */
+    int degrade(CompiledAnimatorChain compiledChain, int position, int repeatCount, long delay, long duration,
+                boolean layer) {
+        if (this.mQualityPolicy == null) {
+            return 0;
+        }
+
+        // the last item of an iteration keeps its timing, so that the iteration still ends on time
+        int last = this.isReversed(repeatCount) ? 0 : compiledChain.size() - 1;
+        boolean timed = position != last && !compiledChain.isStage(position);
+        boolean overBudget = this.mScheduler != null && this.mScheduler.isOverBudget();
+
+        int degradations = this.mQualityPolicy.degrade(delay, duration, timed, layer, overBudget);
+        this.mAppliedDegradations |= degradations;
+        return degradations;
+    }
+
+    /**
+     * Tells whether an iteration plays the chain backward.
+     *
+     * @param repeatCount the times the chain has already been repeated
+     * @return {@code true} if the items are walked from the last to the first one
+     */
+    boolean isReversed(int repeatCount) {
+        return this.mRepeatMode == REPEAT_MODE_REVERSE && (repeatCount & 1) != 0;
+    }
+
+    /**
+     * Tells whether the view must be rendered into a hardware layer while a row runs,
+     * resolving the policy of the row against the one of the chain.
+     *
+     * @param compiledChain the snapshot of the chain
+     * @param position      the index of the row
+     * @return {@code true} if a hardware layer is needed
+     */
+    boolean needsLayer(CompiledAnimatorChain compiledChain, int position) {
+        return this.needsLayer(compiledChain, position, 0);
+    }
+
+    /**
+     * Tells whether a target should be rendered into a hardware layer while an
+     * item runs, taking into account the children of a stage applied to it.
+     */
+    boolean needsLayer(CompiledAnimatorChain compiledChain, int position, int targetIndex) {
+        int layerPolicy = compiledChain.getLayerPolicy(position);
+        if (layerPolicy == LAYER_POLICY_INHERIT) {
+            layerPolicy = this.mLayerPolicy;
+        }
+
+        switch (layerPolicy) {
+            case LAYER_POLICY_ALWAYS:
+                return true;
+            case LAYER_POLICY_AUTO:
+                return (compiledChain.getPropertyMask(position, targetIndex) & LAYER_AUTO_MASK) != 0;
+            default:
+                return false;
+        }
+    }
+
+    static void checkLayerPolicy(int layerPolicy) {
+        if (layerPolicy < LAYER_POLICY_INHERIT || layerPolicy > LAYER_POLICY_AUTO) {
+            throw new IllegalArgumentException("Unknown layer policy: " + layerPolicy);
+        }
+    }
+
+    boolean isLazy() {
+        return this.mItemSource != null;
+    }
+
+    boolean isRepeatEnabled() {
+        return this.mRepeat;
+    }
+
+    /**
+     * Gets the maximum times the chain can be repeated, as set by {@link #setRepeatCount(int)}.
+     *
+     * @return the maximum times value, or {@link #REPEAT_INFINITE}
+     */
+    int getRepeatCount() {
+        return this.mMaxRepeatCount;
+    }
+
+    int getExecutionMode() {
+        return this.mExecutionMode;
+    }
+
+    boolean isOptimizationEnabled() {
+        return this.mOptimize;
+    }
+
+    int getLayerPolicy() {
+        return this.mLayerPolicy;
+    }
+
+    /**
+     * Gets the execution plan of the chain, building it again only if the chain has changed.
+     */
+    OptimizedAnimatorChain optimize() {
+        CompiledAnimatorChain compiledChain = this.compile();
+
+        if (this.mOptimizedChain == null || !this.mOptimizedChain.isBuiltOn(compiledChain)) {
+            this.mOptimizedChain = OptimizedAnimatorChain.optimize(compiledChain);
+        }
+        return this.mOptimizedChain;
+    }
+
+    /**
+     * Drops the first items of the window of a lazy chain, filling it again from the source.
+     *
+     * @param count the number of items to drop
+     * @return {@code true} if the window isn't empty, {@code false} if the source is over
+     */
+    boolean consumeChainItems(int count) {
+        int consumed = Math.min(count, this.mChainItems.size());
+        List<AnimatorChainItem> consumedItems = this.mChainItems.subList(0, consumed);
+        for (AnimatorChainItem item : consumedItems) {
+            item.removeOwner(this.mItemOwner);
+        }
+        consumedItems.clear();
+        this.mConsumedItems += consumed;
+        this.mStructure++;
+
+        this.fillLookahead();
+        return !this.mChainItems.isEmpty();
     }
 
     // endregion
@@ -172,63 +1054,230 @@ public class AnimatorChain {
     // region Private methods
 
     /**
-     * This method starts the execution of the current item of the chain.
+     * Stops a previous execution and creates the timeline for a new one, without starting it.
      */
-    private void executeChainItem() {
-        AnimatorChainItem item = this.mChainItems.get(this.mCurrentChainItem);
-        this.mCurrentViewPropertyAnimator = item.apply(this.mTargetView.animate())
-                .withStartAction(this.mStartAction)
-                .withEndAction(this.mEndAction);
-        this.mCurrentViewPropertyAnimator.start();
+    private AnimatorChainTimeline createTimeline(IAnimatorChainTarget[] targets, long staggerMs) {
+        if (this.mItemSource != null && targets.length > 1) {
+            throw new IllegalStateException("A lazy chain can be executed on a single target only");
+        }
+
+        if (this.mRunner != null || this.mTimeline != null) {
+            this.cancel();
+        }
+
+        this.fillLookahead();
+
+        this.mAppliedDegradations = 0;
+        if (this.mMetrics != null) {
+            this.mMetrics.onDiscontinuity();
+        }
+
+        this.mTimeline = new AnimatorChainTimeline(this, targets, staggerMs);
+        return this.mTimeline;
     }
 
-    // }
+    /**
+     * Queues an execution in the scheduler of the chain, if any, unless the
+     * scheduler itself is starting it.
+     *
+     * @param start   the execution to queue
+     * @param targets the views the execution will animate, held by the execution through them, or
+     *                {@code null} for custom targets; the execution is dropped if one of them is collected
+     * @return {@code true} if the execution has been queued
+     */
+    private boolean deferToScheduler(Runnable start, ViewAnimatorChainTarget[] targets) {
+        if (this.mScheduler == null || this.mStartingScheduled) {
+            return false;
+        }
 
-    // region Inner Runnables' implementations
+        this.cancel();
+        this.mScheduledStart = start;
+        this.mScheduledTargets = targets;
+        this.mScheduler.enqueue(this, this.mPriority);
+        return true;
+    }
 
     /**
-     * A private runnable that centralizes the handling of the start of every
-     * chained animation.<br/>
-     * In the specific, it notifies the registered listeners so that they can
-     * execute some synchronous code.
+     * Starts the execution on a single view, through the scheduler if any.
+     *
+     * @param target the view the animations will be applied to
      */
-    private Runnable mStartAction = new Runnable() {
+    private void executeView(final ViewAnimatorChainTarget target) {
+        if (this.deferToScheduler(new Runnable() {
 
-        @Override
-        public void run() {
-            for (IAnimatorChainListener listener : mListeners) {
-                listener.onChainedItemStart(mCurrentChainItem);
+            @Override
+            public void run() {
+                executeView(target);
             }
+        }, new ViewAnimatorChainTarget[]{target})) {
+            return;
         }
-    };
+
+        if (this.mExecutionMode == EXECUTION_MODE_TIMELINE || this.mAutoSuspend || this.compile().hasStages()) {
+            this.executeViews(new ViewAnimatorChainTarget[]{target}, 0);
+            return;
+        }
+
+        if (this.mRunner != null || this.mTimeline != null) {
+            this.cancel();
+        }
+
+        this.fillLookahead();
+        if (this.mChainItems.isEmpty()) {
+            this.dispatchComplete();
+            return;
+        }
+
+        this.mRunner = new AnimatorChainAnimatorRunner(this, target);
+        if (this.mWeakReferences) {
+            target.setDetachListener(this.mDetachListener);
+        }
+
+        this.mAppliedDegradations = 0;
+        if (this.mMetrics != null) {
+            this.mMetrics.onDiscontinuity();
+        }
+
+        this.mRunner.start();
+    }
 
     /**
-     * A private runnable that centralizes the handling of the end of every
-     * chained animation.<br/>
-     * In the specific, it notifies the registered listeners so that they can
-     * execute some synchronous code and setup the execution of the next chained item,
-     * restarting the chain if needed and allowed.
+     * Starts the execution on more views at once as a timeline, through the scheduler if any.
+     *
+     * @param targets   the views the animations will be applied to
+     * @param staggerMs the delay, in milliseconds, between the start of a view and the following one
      */
-    private Runnable mEndAction = new Runnable() {
+    private void executeViews(final ViewAnimatorChainTarget[] targets, final long staggerMs) {
+        if (this.deferToScheduler(new Runnable() {
 
-        @Override
-        public void run() {
-            for (IAnimatorChainListener listener : mListeners) {
-                listener.onChainedItemEnd(mCurrentChainItem);
+            @Override
+            public void run() {
+                executeViews(targets, staggerMs);
             }
+        }, targets)) {
+            return;
+        }
 
-            mCurrentChainItem++;
+        AnimatorChainTimeline timeline = this.createTimeline(targets, staggerMs);
+        if (this.mWeakReferences) {
+            for (ViewAnimatorChainTarget target : targets) {
+                target.setDetachListener(this.mDetachListener);
+            }
+        }
+        if (this.mAutoSuspend) {
+            timeline.watchVisibility(targets);
+        }
+        timeline.start();
+    }
 
-            if (mCurrentChainItem == mChainItems.size()) {
-                mCurrentChainItem = 0;
+    /**
+     * Pulls items from the source of a lazy chain until its window is full.
+     */
+    private void fillLookahead() {
+        Iterator<AnimatorChainItem> source = this.mItemSource;
+        if (source == null) {
+            return;
+        }
 
-                if (mRepeat && mRepeatCount < mMaxRepeatCount) {
-                    mRepeatCount++;
-                    executeChainItem();
-                }
-            } else {
-                executeChainItem();
-            }
+        while (this.mChainItems.size() < this.mLookahead && source.hasNext()) {
+            this.mChainItems.add(source.next());
+            this.mStructure++;
+        }
+    }
+
+    /**
+     * Tells whether the snapshot has been compiled from the items currently chained,
+     * without looking at them one by one.
+     */
+    private boolean isCompiledStructure() {
+        return this.mCompiledChain != null && this.mCompiledStructure == this.mStructure
+                && this.mCompiledChain.size() == this.mChainItems.size();
+    }
+
+    /**
+     * Compiles all the chained items, registering the chain to be notified about their changes.
+     */
+    private void compileChainItems() {
+        this.mItemsChanged = false;
+        for (AnimatorChainItem item : this.mChainItems) {
+            item.addOwner(this.mItemOwner);
+        }
+
+        this.mCompiledChain = CompiledAnimatorChain.compile(this.mChainItems);
+        this.mCompiledStructure = this.mStructure;
+    }
+
+    private void checkNotLazy() {
+        if (this.mItemSource != null) {
+            throw new IllegalStateException("The items of a lazy chain come from its source");
+        }
+    }
+
+    /**
+     * Rebuilds the set of the chained items if the list has been changed
+     * through {@link #getChainedItems()}.
+     */
+    private void syncChainItemsSet() {
+        if (this.mChainItemsSet.size() != this.mChainItems.size()) {
+            this.mChainItemsSet.clear();
+            this.mChainItemsSet.addAll(this.mChainItems);
+        }
+    }
+
+    private void setSeekTarget(IAnimatorChainTarget target) {
+        this.mSeekTarget = target;
+        this.mSeekInitialValues = new float[AnimatorChainProperty.COUNT];
+        this.mSeekEvaluator = null;
+
+        for (int property = 0; property < AnimatorChainProperty.COUNT; property++) {
+            this.mSeekInitialValues[property] = target.getProperty(property);
+        }
+    }
+
+    /**
+     * Gets the evaluator used for seeking, building it again only if the chain has changed.
+     */
+    private AnimatorChainEvaluator getSeekEvaluator() {
+        CompiledAnimatorChain compiledChain = this.compile();
+        int iterations = this.getIterationCount();
+
+        if (this.mSeekEvaluator == null
+                || !this.mSeekEvaluator.isBuiltOn(compiledChain, iterations, this.mRepeatMode)) {
+            this.mSeekEvaluator = new AnimatorChainEvaluator(compiledChain, iterations, this.mRepeatMode,
+                    this.mSeekInitialValues);
+        }
+        return this.mSeekEvaluator;
+    }
+
+    // endregion
+
+    // region Inner Runnables' implementations
+
+    /**
+     * A private owner of the chained items, marking the snapshot as possibly
+     * stale when any of them changes.
+     */
+    private final IAnimatorChainItemOwner mItemOwner = new IAnimatorChainItemOwner() {
+
+        @Override
+        public void onItemChanged(AnimatorChainItem item) {
+            mItemsChanged = true;
+        }
+    };
+
+    /**
+     * A private listener that cancels the chain when one of its views, held
+     * weakly, is detached from the window.
+     */
+    private final View.OnAttachStateChangeListener mDetachListener = new View.OnAttachStateChangeListener() {
+
+        @Override
+        public void onViewAttachedToWindow(View v) {
+        }
+
+        @Override
+        public void onViewDetachedFromWindow(View v) {
+            cancel();
         }
     };
 
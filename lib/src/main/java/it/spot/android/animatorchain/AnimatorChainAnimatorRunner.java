@@ -0,0 +1,417 @@
+package it.spot.android.animatorchain;
+
+import android.view.Choreographer;
+import android.view.View;
+import android.view.ViewPropertyAnimator;
+import android.view.animation.AnimationUtils;
+
+/**
+ * This class drives the execution of an {@link AnimatorChain} on a single view in the
+ * {@link AnimatorChain#EXECUTION_MODE_ANIMATOR} mode, starting a {@link ViewPropertyAnimator}
+ * for every chained item when the previous one ends.<br/>
+ * When the optimization of the chain is enabled, the snaps are set directly to the view
+ * and the rows merged into a segment are executed by a single animator. A paused execution
+ * restarts the remaining part of the current item from the current state of the view.<br/>
+ * Nothing else measures the frames of a chain executed by animators, so while an animator
+ * runs a {@link Choreographer} callback reports them to the quality policy of the chain, if any.<br/>
+ * The chain itself keeps the definition, the listeners and the policies, while this class
+ * only keeps the state of one execution: it's created when the execution starts and
+ * dropped when it's cancelled.
+ *
+ * @author a.rinaldi
+ */
+class AnimatorChainAnimatorRunner {
+
+    private final AnimatorChain mChain;
+    private final ViewAnimatorChainTarget mTarget;
+
+    private int mRepeatCount;
+    private float[] mInitialValues;
+    private int mCurrentChainItem;
+    private int mCurrentChainItemSpan;
+    private ViewPropertyAnimator mCurrentViewPropertyAnimator;
+    private long mCurrentChainItemStartTime;
+    private boolean mCurrentChainItemStarted;
+    private int mCurrentChainItemDegradations;
+
+    private boolean mPaused;
+    private long mPausedPlayTime;
+    private boolean mCancelled;
+    private boolean mFrameMonitorPosted;
+
+    // region Construction
+
+    /**
+     * @param chain  the chain to execute
+     * @param target the target of the view the chain will be applied to
+     */
+    AnimatorChainAnimatorRunner(AnimatorChain chain, ViewAnimatorChainTarget target) {
+        super();
+
+        this.mChain = chain;
+        this.mTarget = target;
+    }
+
+    // endregion
+
+    // region Package methods
+
+    /**
+     * Starts the execution from the first item of the chain.
+     */
+    void start() {
+        this.mRepeatCount = 0;
+        this.mCurrentChainItem = 0;
+        this.mCurrentChainItemStarted = false;
+
+        if (this.mChain.getRepeatMode() == AnimatorChain.REPEAT_MODE_REVERSE) {
+            this.captureInitialValues();
+        }
+
+        this.executeChainItem(0);
+    }
+
+    /**
+     * Stops the execution, leaving the view as it is.
+     */
+    void cancel() {
+        this.mCancelled = true;
+
+        if (this.mCurrentViewPropertyAnimator != null) {
+            this.mCurrentViewPropertyAnimator.cancel();
+            this.mCurrentViewPropertyAnimator = null;
+        }
+
+        if (this.mFrameMonitorPosted) {
+            this.mFrameMonitorPosted = false;
+            Choreographer.getInstance().removeFrameCallback(this.mFrameMonitor);
+        }
+
+        View targetView = this.mTarget.getView();
+        if (targetView != null) {
+            targetView.clearAnimation();
+        }
+        this.mTarget.release();
+    }
+
+    /**
+     * Pauses the execution, keeping the time elapsed inside the current item.
+     *
+     * @return {@code true} if an item was running and has been paused
+     */
+    boolean pause() {
+        if (this.mPaused || this.mCurrentViewPropertyAnimator == null) {
+            return false;
+        }
+
+        this.mPausedPlayTime = AnimationUtils.currentAnimationTimeMillis() - this.mCurrentChainItemStartTime;
+        this.mCurrentViewPropertyAnimator.cancel();
+        this.mCurrentViewPropertyAnimator = null;
+        this.mPaused = true;
+        return true;
+    }
+
+    /**
+     * Resumes the execution from the point it has been paused at.
+     */
+    void resume() {
+        if (!this.mPaused) {
+            return;
+        }
+
+        this.mPaused = false;
+        this.executeChainItem(this.mPausedPlayTime);
+    }
+
+    // endregion
+
+    // region Private methods
+
+    /**
+     * Moves the chain to its next item, restarting the chain if needed and allowed.
+     *
+     * @return {@code true} if there is an item to execute, {@code false} if the chain is over
+     */
+    private boolean advance() {
+        if (this.mChain.isLazy()) {
+            int consumed = this.mCurrentChainItem + 1;
+            this.mCurrentChainItem = 0;
+            return this.mChain.consumeChainItems(consumed);
+        }
+
+        int size = this.mChain.getChainedItems().size();
+        boolean reversed = this.mChain.isReversed(this.mRepeatCount);
+        this.mCurrentChainItem += reversed ? -1 : 1;
+
+        if (this.mCurrentChainItem == (reversed ? -1 : size)) {
+            this.mCurrentChainItem = 0;
+
+            if (this.mChain.canRepeat(this.mRepeatCount)) {
+                this.mRepeatCount++;
+                if (this.mChain.isReversed(this.mRepeatCount)) {
+                    this.mCurrentChainItem = size - 1;
+                }
+                this.mChain.dispatchRepeat(this.mRepeatCount);
+                return true;
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Reads the values of the properties before the first item, which the backward
+     * iterations bring the view back to.
+     */
+    private void captureInitialValues() {
+        if (this.mInitialValues == null) {
+            this.mInitialValues = new float[AnimatorChainProperty.COUNT];
+        }
+
+        for (int property = 0; property < AnimatorChainProperty.COUNT; property++) {
+            this.mInitialValues[property] = this.mTarget.getProperty(property);
+        }
+    }
+
+    /**
+     * This method starts the execution of the current item of the chain.
+     *
+     * @param playTime the time, in milliseconds, already elapsed inside the item
+     */
+    private void executeChainItem(long playTime) {
+        View targetView = this.mTarget.getView();
+        if (targetView == null) {
+            // the view, held weakly, has been collected while the chain was paused: a running
+            // animator holds its view, so it can't be collected between two items
+            this.mChain.cancel();
+            return;
+        }
+
+        boolean reversed = this.mChain.isReversed(this.mRepeatCount);
+
+        // the execution plan only holds for the forward direction, and a row in the middle of a
+        // segment, reached when the plan has been built again while the chain ran, has no plan
+        if (this.mChain.isOptimizationEnabled() && !reversed
+                && this.mChain.optimize().getSpan(this.mCurrentChainItem) != 0) {
+            this.executeOptimizedChainItem(targetView, playTime);
+            return;
+        }
+
+        int position = this.mCurrentChainItem;
+        CompiledAnimatorChain compiledChain = this.mChain.prepareChainItem(position);
+
+        ViewPropertyAnimator animator;
+        long delay;
+        if (reversed) {
+            // the delay of an item follows its reversed motion, i.e. precedes the previous item
+            delay = position + 1 < compiledChain.size() ? compiledChain.getStartDelay(position + 1) : 0;
+            animator = compiledChain.applyReversed(position, targetView.animate(), this.mInitialValues, delay);
+        } else {
+            delay = compiledChain.getStartDelay(position);
+            animator = compiledChain.apply(position, targetView.animate());
+        }
+        this.mCurrentChainItemSpan = 1;
+
+        long duration = compiledChain.getDuration(position);
+        boolean needsLayer = this.mChain.needsLayer(compiledChain, position);
+        if (playTime == 0) {
+            this.mCurrentChainItemDegradations = this.mChain.degrade(compiledChain, position, this.mRepeatCount,
+                    delay, duration, needsLayer);
+        }
+        this.mTarget.setHardwareLayer(needsLayer && !this.isLayerDropped());
+
+        this.startChainItem(animator, delay, duration, playTime);
+    }
+
+    /**
+     * This method starts the execution of the current segment of the optimized chain,
+     * after setting directly all the snaps found on the way.<br/>
+     * The whole chain is checked for changes, since the plan of an item depends on
+     * the previous ones too.
+     *
+     * @param targetView the view to animate
+     * @param playTime   the time, in milliseconds, already elapsed inside the segment
+     */
+    private void executeOptimizedChainItem(View targetView, long playTime) {
+        OptimizedAnimatorChain optimizedChain = this.mChain.optimize();
+
+        // a chain made of snaps only and repeated forever yields to the next frame after a whole iteration;
+        // the plan only holds for the forward direction, so the snaps stop where a backward iteration starts
+        int snaps = 0;
+        while (playTime == 0 && !this.mChain.isReversed(this.mRepeatCount)
+                && optimizedChain.isSnap(this.mCurrentChainItem)
+                && snaps++ < this.mChain.getChainedItems().size()) {
+            int position = this.mCurrentChainItem;
+            optimizedChain.set(position, this.mTarget);
+
+            long time = System.nanoTime();
+            this.mChain.dispatchItemStart(position, time);
+            this.mChain.dispatchItemEnd(position, time);
+
+            if (this.mCancelled || this.mPaused) {
+                // a listener cancelled or paused the chain
+                return;
+            }
+
+            if (!this.advance()) {
+                this.complete();
+                return;
+            }
+            optimizedChain = this.mChain.optimize();
+        }
+
+        if (this.mChain.isReversed(this.mRepeatCount) || optimizedChain.getSpan(this.mCurrentChainItem) == 0) {
+            // the snaps have completed a forward iteration, or have reached the middle of a segment
+            this.executeChainItem(0);
+            return;
+        }
+
+        int position = this.mCurrentChainItem;
+        this.mCurrentChainItemSpan = optimizedChain.getSpan(position);
+
+        CompiledAnimatorChain compiledChain = this.mChain.compile();
+        boolean needsLayer = false;
+        for (int i = position; i < position + this.mCurrentChainItemSpan; i++) {
+            needsLayer |= this.mChain.needsLayer(compiledChain, i);
+        }
+
+        ViewPropertyAnimator animator = optimizedChain.apply(position, targetView.animate());
+
+        long delay = optimizedChain.getStartDelay(position);
+        long duration = optimizedChain.getDuration(position);
+        if (playTime == 0) {
+            this.mCurrentChainItemDegradations = this.mChain.degrade(compiledChain,
+                    position + this.mCurrentChainItemSpan - 1, this.mRepeatCount, delay, duration, needsLayer);
+        }
+        this.mTarget.setHardwareLayer(needsLayer && !this.isLayerDropped());
+
+        this.startChainItem(animator, delay, duration, playTime);
+    }
+
+    private boolean isLayerDropped() {
+        return (this.mCurrentChainItemDegradations & AnimatorChainQualityPolicy.DEGRADATION_DROP_LAYERS) != 0;
+    }
+
+    /**
+     * Starts the animator of the current item, after applying its degradations and
+     * skipping the time already elapsed inside it.
+     *
+     * @param animator the animator of the item
+     * @param delay    the delay of the item, in milliseconds
+     * @param duration the duration of the item, in milliseconds
+     * @param playTime the time, in milliseconds, already elapsed inside the item
+     */
+    private void startChainItem(ViewPropertyAnimator animator, long delay, long duration, long playTime) {
+        AnimatorChainQualityPolicy qualityPolicy = this.mChain.getQualityPolicy();
+
+        if (this.mCurrentChainItemDegradations != 0 && qualityPolicy != null) {
+            delay = qualityPolicy.getDelay(delay, this.mCurrentChainItemDegradations);
+            duration = qualityPolicy.getDuration(duration, this.mCurrentChainItemDegradations);
+            animator.setStartDelay(delay).setDuration(duration);
+        }
+
+        if (playTime > 0) {
+            animator.setStartDelay(Math.max(delay - playTime, 0))
+                    .setDuration(Math.max(duration - Math.max(playTime - delay, 0), 0));
+        }
+
+        if (!this.mCurrentChainItemStarted) {
+            animator.withStartAction(this.mStartAction);
+        }
+
+        this.mCurrentChainItemStartTime = AnimationUtils.currentAnimationTimeMillis() - playTime;
+        this.mCurrentViewPropertyAnimator = animator.withEndAction(this.mEndAction);
+        this.mCurrentViewPropertyAnimator.start();
+
+        // nothing else measures the frames of a chain executed by animators
+        if (qualityPolicy != null && !this.mFrameMonitorPosted) {
+            this.mFrameMonitorPosted = true;
+            Choreographer.getInstance().postFrameCallback(this.mFrameMonitor);
+        }
+    }
+
+    /**
+     * Ends the execution once the chain is over.
+     */
+    private void complete() {
+        // the animator of a view holds the view itself
+        this.mCurrentViewPropertyAnimator = null;
+        this.mTarget.release();
+        this.mChain.dispatchComplete();
+    }
+
+    // endregion
+
+    // region Inner Runnables' implementations
+
+    /**
+     * A private runnable that centralizes the handling of the start of every
+     * chained animation.<br/>
+     * In the specific, it notifies the registered listeners so that they can
+     * execute some synchronous code.
+     */
+    private final Runnable mStartAction = new Runnable() {
+
+        @Override
+        public void run() {
+            mCurrentChainItemStarted = true;
+            mChain.dispatchItemStart(mCurrentChainItem, System.nanoTime());
+        }
+    };
+
+    /**
+     * A private runnable that centralizes the handling of the end of every
+     * chained animation.<br/>
+     * In the specific, it notifies the registered listeners so that they can
+     * execute some synchronous code and setup the execution of the next chained item,
+     * restarting the chain if needed and allowed.
+     */
+    private final Runnable mEndAction = new Runnable() {
+
+        @Override
+        public void run() {
+            long time = System.nanoTime();
+            mChain.dispatchItemEnd(mCurrentChainItem, time);
+
+            // the items merged by the optimization end together with the first one
+            for (int i = 1; i < mCurrentChainItemSpan; i++) {
+                mCurrentChainItem++;
+                mChain.dispatchItemStart(mCurrentChainItem, time);
+                mChain.dispatchItemEnd(mCurrentChainItem, time);
+            }
+
+            if (mCancelled) {
+                // a listener cancelled or restarted the chain
+                return;
+            }
+
+            if (advance()) {
+                mCurrentChainItemStarted = false;
+                executeChainItem(0);
+            } else {
+                complete();
+            }
+        }
+    };
+
+    /**
+     * A private callback that reports the frames to the quality policy while an
+     * animator of the chain runs, stopping once the chain is paused or over.
+     */
+    private final Choreographer.FrameCallback mFrameMonitor = new Choreographer.FrameCallback() {
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            AnimatorChainQualityPolicy qualityPolicy = mChain.getQualityPolicy();
+            if (mCurrentViewPropertyAnimator == null || qualityPolicy == null) {
+                mFrameMonitorPosted = false;
+                return;
+            }
+
+            qualityPolicy.onFrame(frameTimeNanos);
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    };
+
+    // endregion
+}
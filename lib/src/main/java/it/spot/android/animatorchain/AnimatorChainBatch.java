@@ -0,0 +1,378 @@
+package it.spot.android.animatorchain;
+
+import android.view.Choreographer;
+import android.view.View;
+
+/**
+ * This class executes the items of an {@link AnimatorChain} on a large number of
+ * lightweight targets, such as particles, that are not backed by any {@link View}.<br/>
+ * The targets are stored as parallel arrays of primitives (x, y, alpha, scale and
+ * rotation) and are all advanced by a single allocation-free loop per frame, after
+ * which the host view is invalidated once. The host view is expected to draw the
+ * targets reading the arrays exposed by the getters.<br/>
+ * The chained items are mapped to the targets as follows:
+ * <ul>
+ * <li>{@link AnimatorChainItem#setX(float)} and {@link AnimatorChainItem#setY(float)}
+ * animate the position to an absolute point, the same for every target;</li>
+ * <li>{@link AnimatorChainItem#setTranslationX(float)} and {@link AnimatorChainItem#setTranslationY(float)}
+ * animate the position to an offset from the point every target has been added at, taking
+ * precedence over the absolute point in the same item;</li>
+ * <li>{@link AnimatorChainItem#setAlpha(float)} animates the alpha;</li>
+ * <li>{@link AnimatorChainItem#setScaleX(float)} animates the scale;</li>
+ * <li>{@link AnimatorChainItem#setRotation(float)} animates the rotation.</li>
+ * </ul>
+ * The other properties are ignored, and every repetition plays the items from the first one,
+ * so the {@link AnimatorChain#REPEAT_MODE_REVERSE} mode is rejected, as well as lazy chains and
+ * chains containing stages.<br/>
+ * The changes made to the items while the batch runs are picked up at every frame, while
+ * the items added or removed are only picked up by the next {@link #start(View)} or
+ * {@link #reset()}, as the positions of the targets refer to the items of the running chain.
+ *
+ * @author a.rinaldi
+ */
+public class AnimatorChainBatch implements Choreographer.FrameCallback {
+
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    private static final int MASK_X = 1 << AnimatorChainProperty.X;
+    private static final int MASK_Y = 1 << AnimatorChainProperty.Y;
+    private static final int MASK_TRANSLATION_X = 1 << AnimatorChainProperty.TRANSLATION_X;
+    private static final int MASK_TRANSLATION_Y = 1 << AnimatorChainProperty.TRANSLATION_Y;
+    private static final int MASK_ALPHA = 1 << AnimatorChainProperty.ALPHA;
+    private static final int MASK_SCALE = 1 << AnimatorChainProperty.SCALE_X;
+    private static final int MASK_ROTATION = 1 << AnimatorChainProperty.ROTATION;
+
+    private final AnimatorChain mChain;
+    private final int mCapacity;
+    private int mSize;
+
+    private final float[] mX;
+    private final float[] mY;
+    private final float[] mAlpha;
+    private final float[] mScale;
+    private final float[] mRotation;
+
+    private final float[] mFromX;
+    private final float[] mFromY;
+    private final float[] mFromAlpha;
+    private final float[] mFromScale;
+    private final float[] mFromRotation;
+
+    private final float[] mOriginX;
+    private final float[] mOriginY;
+    private final long[] mOffsets;
+    private final AnimatorChainStepper mStepper;
+
+    private CompiledAnimatorChain mCompiledChain;
+    private int mActiveTargets;
+    private boolean mFirstFrame;
+
+    private View mHostView;
+    private boolean mRunning;
+
+    // region Construction
+
+    /**
+     * @param chain    the chain whose items will be executed on every target
+     * @param capacity the maximum number of targets
+     */
+    public AnimatorChainBatch(AnimatorChain chain, int capacity) {
+        super();
+
+        this.mChain = chain;
+        this.mCapacity = capacity;
+
+        this.mX = new float[capacity];
+        this.mY = new float[capacity];
+        this.mAlpha = new float[capacity];
+        this.mScale = new float[capacity];
+        this.mRotation = new float[capacity];
+
+        this.mFromX = new float[capacity];
+        this.mFromY = new float[capacity];
+        this.mFromAlpha = new float[capacity];
+        this.mFromScale = new float[capacity];
+        this.mFromRotation = new float[capacity];
+
+        this.mOriginX = new float[capacity];
+        this.mOriginY = new float[capacity];
+        this.mOffsets = new long[capacity];
+        this.mStepper = new AnimatorChainStepper(capacity, this.mStepperCallback);
+    }
+
+    // endregion
+
+    // region Public methods
+
+    /**
+     * Adds a target, fully opaque, not scaled nor rotated.
+     *
+     * @param x             the initial horizontal position, the origin of the horizontal translations
+     * @param y             the initial vertical position, the origin of the vertical translations
+     * @param startOffsetMs the delay, in milliseconds, of the start of this target
+     * @return the index of the target in the arrays
+     */
+    public int add(float x, float y, long startOffsetMs) {
+        if (this.mSize == this.mCapacity) {
+            throw new IllegalStateException("The batch is full: " + this.mCapacity + " targets");
+        }
+
+        int index = this.mSize++;
+        this.mX[index] = x;
+        this.mY[index] = y;
+        this.mAlpha[index] = 1f;
+        this.mScale[index] = 1f;
+        this.mRotation[index] = 0f;
+        this.mOriginX[index] = x;
+        this.mOriginY[index] = y;
+        this.mOffsets[index] = startOffsetMs * NANOS_PER_MILLI;
+        return index;
+    }
+
+    /**
+     * Removes all the targets, stopping the execution if needed.
+     */
+    public void clear() {
+        this.cancel();
+        this.mSize = 0;
+    }
+
+    /**
+     * Starts the execution of the chain on all the targets.
+     *
+     * @param hostView the view that draws the targets, invalidated once per frame
+     * @throws IllegalStateException if the chain repeats in the {@link AnimatorChain#REPEAT_MODE_REVERSE} mode,
+     *                               is lazy or contains stages
+     */
+    public void start(View hostView) {
+        this.cancel();
+
+        this.reset();
+        this.mHostView = hostView;
+        this.mRunning = true;
+
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    /**
+     * Cancels the execution of the chain, leaving the targets as they are.
+     */
+    public void cancel() {
+        if (this.mRunning) {
+            this.mRunning = false;
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+        this.mHostView = null;
+    }
+
+    /**
+     * Prepares all the targets to be advanced from the first item of the chain.<br/>
+     * It's called by {@link #start(View)}, and allows to drive the batch manually
+     * through {@link #advance(long)}.
+     *
+     * @throws IllegalStateException if the chain repeats in the {@link AnimatorChain#REPEAT_MODE_REVERSE} mode,
+     *                               is lazy or contains stages
+     */
+    public void reset() {
+        if (this.mChain.isRepeatEnabled() && this.mChain.getRepeatMode() == AnimatorChain.REPEAT_MODE_REVERSE) {
+            throw new IllegalStateException("A batch can't play a chain backward: use REPEAT_MODE_RESTART");
+        }
+        if (this.mChain.isLazy()) {
+            throw new IllegalStateException("A batch can't play a lazy chain: chain the items up front");
+        }
+
+        CompiledAnimatorChain compiledChain = this.mChain.compile();
+        if (compiledChain.hasStages()) {
+            throw new IllegalStateException("A batch can't play stages: use an AnimatorChain");
+        }
+
+        this.mCompiledChain = compiledChain;
+        this.mActiveTargets = this.mCompiledChain.size() > 0 ? this.mSize : 0;
+        this.mFirstFrame = true;
+
+        for (int i = 0; i < this.mSize; i++) {
+            this.mStepper.reset(i, 0);
+        }
+    }
+
+    /**
+     * Moves all the targets to the given frame time.<br/>
+     * The first call sets the starting time of the batch.
+     *
+     * @param frameTimeNanos the frame time, in nanoseconds
+     * @return {@code true} if some target is still running
+     */
+    public boolean advance(long frameTimeNanos) {
+        if (this.mActiveTargets == 0) {
+            return false;
+        }
+
+        // publishes the changes made to the items, once per frame, unless items have been added or removed;
+        // the items tell the chain when they change, so an unchanged chain is not looked at again
+        CompiledAnimatorChain latest = this.mChain.compile();
+        if (latest.size() == this.mCompiledChain.size() && !latest.hasStages()) {
+            this.mCompiledChain = latest;
+        }
+
+        if (this.mFirstFrame) {
+            this.mFirstFrame = false;
+
+            for (int i = 0; i < this.mSize; i++) {
+                this.mStepper.reset(i, frameTimeNanos + this.mOffsets[i]);
+                this.captureFrom(i);
+            }
+        }
+
+        for (int i = 0; i < this.mSize; i++) {
+            if (!this.mStepper.isOver(i) && !this.mStepper.advance(i, this.mCompiledChain, frameTimeNanos)) {
+                this.mActiveTargets--;
+            }
+        }
+
+        return this.mActiveTargets > 0;
+    }
+
+    public int size() {
+        return this.mSize;
+    }
+
+    public float[] getX() {
+        return this.mX;
+    }
+
+    public float[] getY() {
+        return this.mY;
+    }
+
+    public float[] getAlpha() {
+        return this.mAlpha;
+    }
+
+    public float[] getScale() {
+        return this.mScale;
+    }
+
+    public float[] getRotation() {
+        return this.mRotation;
+    }
+
+    // endregion
+
+    // region Choreographer.FrameCallback implementation
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!this.mRunning) {
+            return;
+        }
+
+        boolean running = this.advance(frameTimeNanos);
+        this.mHostView.invalidate();
+
+        if (running) {
+            Choreographer.getInstance().postFrameCallback(this);
+        } else {
+            this.mRunning = false;
+        }
+    }
+
+    // endregion
+
+    // region Private methods
+
+    /**
+     * Stores the current values of a target as the starting values of its current item.
+     */
+    private void captureFrom(int i) {
+        this.mFromX[i] = this.mX[i];
+        this.mFromY[i] = this.mY[i];
+        this.mFromAlpha[i] = this.mAlpha[i];
+        this.mFromScale[i] = this.mScale[i];
+        this.mFromRotation[i] = this.mRotation[i];
+    }
+
+    /**
+     * Writes the values of a target at the given interpolated fraction of an item.
+     */
+    private void write(int i, int position, float interpolated) {
+        CompiledAnimatorChain compiledChain = this.mCompiledChain;
+        int mask = compiledChain.getPropertyMask(position);
+
+        if ((mask & (MASK_X | MASK_TRANSLATION_X)) != 0) {
+            float from = this.mFromX[i];
+            float to = (mask & MASK_TRANSLATION_X) != 0
+                    ? this.mOriginX[i] + compiledChain.getTarget(position, AnimatorChainProperty.TRANSLATION_X)
+                    : compiledChain.getTarget(position, AnimatorChainProperty.X);
+            this.mX[i] = from + (to - from) * interpolated;
+        }
+
+        if ((mask & (MASK_Y | MASK_TRANSLATION_Y)) != 0) {
+            float from = this.mFromY[i];
+            float to = (mask & MASK_TRANSLATION_Y) != 0
+                    ? this.mOriginY[i] + compiledChain.getTarget(position, AnimatorChainProperty.TRANSLATION_Y)
+                    : compiledChain.getTarget(position, AnimatorChainProperty.Y);
+            this.mY[i] = from + (to - from) * interpolated;
+        }
+
+        if ((mask & MASK_ALPHA) != 0) {
+            float from = this.mFromAlpha[i];
+            this.mAlpha[i] = from
+                    + (compiledChain.getTarget(position, AnimatorChainProperty.ALPHA) - from) * interpolated;
+        }
+
+        if ((mask & MASK_SCALE) != 0) {
+            float from = this.mFromScale[i];
+            this.mScale[i] = from
+                    + (compiledChain.getTarget(position, AnimatorChainProperty.SCALE_X) - from) * interpolated;
+        }
+
+        if ((mask & MASK_ROTATION) != 0) {
+            float from = this.mFromRotation[i];
+            this.mRotation[i] = from
+                    + (compiledChain.getTarget(position, AnimatorChainProperty.ROTATION) - from) * interpolated;
+        }
+    }
+
+    // endregion
+
+    // region Inner callbacks' implementations
+
+    /**
+     * The execution stepped by the stepper, writing the values of the targets
+     * into the arrays.
+     */
+    private final IAnimatorChainStepperCallback mStepperCallback = new IAnimatorChainStepperCallback() {
+
+        @Override
+        public boolean onItemStart(int slot, int position) {
+            return true;
+        }
+
+        @Override
+        public boolean onItemEnd(int slot, int position) {
+            return true;
+        }
+
+        @Override
+        public boolean canRepeat(int slot, int repeatCount) {
+            return mChain.canRepeat(repeatCount);
+        }
+
+        @Override
+        public boolean onRepeat(int slot, int repeatCount) {
+            return true;
+        }
+
+        @Override
+        public void captureFrom(int slot, int position) {
+            AnimatorChainBatch.this.captureFrom(slot);
+        }
+
+        @Override
+        public void write(int slot, int position, float interpolated) {
+            AnimatorChainBatch.this.write(slot, position, interpolated);
+        }
+    };
+
+    // endregion
+}
@@ -0,0 +1,254 @@
+package it.spot.android.animatorchain;
+
+import android.view.Choreographer;
+import android.view.View;
+
+/**
+ * This class keeps the state of a single execution of an {@link AnimatorChainTemplate}
+ * on a view: the current item, the repeat count and the starting values of the item.<br/>
+ * It's created by {@link AnimatorChainTemplate#execute(View, IAnimatorChainListener)},
+ * and must be used on the main thread.<br/>
+ * The items are played by a {@link Choreographer} callback owned by the cursor, like
+ * the {@link AnimatorChain#EXECUTION_MODE_TIMELINE} mode does, so that starting and
+ * cancelling an execution allocates nothing, and cancelling it leaves alone any other
+ * animation running on the same view.<br/>
+ * Cursors taken from an {@link AnimatorChainCursorPool} are reused by later executions
+ * once {@link #release()} is called, e.g. when the view is recycled.
+ *
+ * @author a.rinaldi
+ */
+public final class AnimatorChainCursor {
+
+    private final AnimatorChainCursorPool mPool;
+    private final float[] mFrom;
+    private final AnimatorChainStepper mStepper;
+
+    private AnimatorChainTemplate mTemplate;
+    private View mTargetView;
+    private IAnimatorChainListener mListener;
+
+    private boolean mRunning;
+    private int mExecution;
+    private boolean mFirstFrame;
+    private int mStepperExecution;
+
+    // region Construction
+
+    /**
+     * @param pool the pool the cursor is returned to when released, or {@code null}
+     */
+    AnimatorChainCursor(AnimatorChainCursorPool pool) {
+        super();
+
+        this.mPool = pool;
+        this.mFrom = new float[AnimatorChainProperty.COUNT];
+        this.mStepper = new AnimatorChainStepper(1, this.mStepperCallback);
+    }
+
+    // endregion
+
+    // region Public methods
+
+    /**
+     * Cancels the execution, leaving the view as it is.
+     */
+    public void cancel() {
+        if (this.mRunning) {
+            this.mRunning = false;
+            Choreographer.getInstance().removeFrameCallback(this.mFrameCallback);
+        }
+    }
+
+    /**
+     * Cancels the execution and gives the cursor back to its pool, if any.<br/>
+     * The cursor must not be used anymore after this call.
+     */
+    public void release() {
+        this.cancel();
+
+        this.mTemplate = null;
+        this.mTargetView = null;
+        this.mListener = null;
+
+        if (this.mPool != null) {
+            this.mPool.release(this);
+        }
+    }
+
+    public boolean isRunning() {
+        return this.mRunning;
+    }
+
+    /**
+     * Gets the index of the item being executed.
+     *
+     * @return the index of the item, or {@code -1} once the execution is over
+     */
+    public int getPosition() {
+        return this.mStepper.getPosition(0);
+    }
+
+    public View getTargetView() {
+        return this.mTargetView;
+    }
+
+    public AnimatorChainTemplate getTemplate() {
+        return this.mTemplate;
+    }
+
+    // endregion
+
+    // region Package methods
+
+    /**
+     * Binds the cursor to a new execution, without starting it.
+     */
+    void init(AnimatorChainTemplate template, View targetView, IAnimatorChainListener listener) {
+        this.mTemplate = template;
+        this.mTargetView = targetView;
+        this.mListener = listener;
+    }
+
+    /**
+     * Starts the execution from the first item, on the next frame.
+     */
+    void start() {
+        this.mStepper.reset(0, 0);
+        this.mRunning = true;
+        this.mExecution++;
+        this.mFirstFrame = true;
+
+        if (this.mTemplate.getCompiledChain().size() == 0) {
+            this.complete();
+            return;
+        }
+
+        Choreographer.getInstance().postFrameCallback(this.mFrameCallback);
+    }
+
+    // endregion
+
+    // region Private methods
+
+    /**
+     * Moves the execution to the given frame time, crossing as many item boundaries as needed.
+     *
+     * @return {@code true} if the execution needs another frame
+     */
+    private boolean advance(long frameTimeNanos) {
+        CompiledAnimatorChain compiledChain = this.mTemplate.getCompiledChain();
+
+        if (this.mFirstFrame) {
+            this.mFirstFrame = false;
+            this.mStepper.reset(0, frameTimeNanos);
+            compiledChain.readFrom(0, this.mViewTarget, this.mFrom, 0);
+        }
+
+        this.mStepperExecution = this.mExecution;
+        if (this.mStepper.advance(0, compiledChain, frameTimeNanos)) {
+            return true;
+        }
+
+        if (this.mStepper.isOver(0) && this.isCurrent(this.mStepperExecution)) {
+            this.complete();
+        }
+        return false;
+    }
+
+    /**
+     * Tells whether the given execution is still running, i.e. a listener has
+     * neither cancelled it nor restarted the cursor.
+     */
+    private boolean isCurrent(int execution) {
+        return this.mRunning && this.mExecution == execution;
+    }
+
+    private void complete() {
+        this.mRunning = false;
+
+        if (this.mListener instanceof IAnimatorChainEventListener) {
+            ((IAnimatorChainEventListener) this.mListener).onChainComplete();
+        }
+    }
+
+    // endregion
+
+    // region Inner callbacks' implementations
+
+    /**
+     * The callback driving the execution, created once and reused by all the executions of the cursor.
+     */
+    private final Choreographer.FrameCallback mFrameCallback = new Choreographer.FrameCallback() {
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            if (mRunning && advance(frameTimeNanos)) {
+                Choreographer.getInstance().postFrameCallback(this);
+            }
+        }
+    };
+
+    /**
+     * The execution stepped by the stepper, notifying the listener of the cursor and
+     * stopping as soon as the listener cancels or restarts the cursor.
+     */
+    private final IAnimatorChainStepperCallback mStepperCallback = new IAnimatorChainStepperCallback() {
+
+        @Override
+        public boolean onItemStart(int slot, int position) {
+            if (mListener != null) {
+                mListener.onChainedItemStart(position);
+            }
+            return isCurrent(mStepperExecution);
+        }
+
+        @Override
+        public boolean onItemEnd(int slot, int position) {
+            if (mListener != null) {
+                mListener.onChainedItemEnd(position);
+            }
+            return isCurrent(mStepperExecution);
+        }
+
+        @Override
+        public boolean canRepeat(int slot, int repeatCount) {
+            return repeatCount + 1 < mTemplate.getIterations();
+        }
+
+        @Override
+        public boolean onRepeat(int slot, int repeatCount) {
+            if (mListener instanceof IAnimatorChainEventListener) {
+                ((IAnimatorChainEventListener) mListener).onChainRepeat(repeatCount);
+            }
+            return isCurrent(mStepperExecution);
+        }
+
+        @Override
+        public void captureFrom(int slot, int position) {
+            mTemplate.getCompiledChain().readFrom(position, mViewTarget, mFrom, 0);
+        }
+
+        @Override
+        public void write(int slot, int position, float interpolated) {
+            mTemplate.getCompiledChain().writeTo(position, mFrom, 0, interpolated, mViewTarget);
+        }
+    };
+
+    /**
+     * The target reading and writing the properties of the view the cursor is bound to.
+     */
+    private final IAnimatorChainTarget mViewTarget = new IAnimatorChainTarget() {
+
+        @Override
+        public float getProperty(int property) {
+            return AnimatorChainProperty.get(mTargetView, property);
+        }
+
+        @Override
+        public void setProperty(int property, float value) {
+            AnimatorChainProperty.set(mTargetView, property, value);
+        }
+    };
+
+    // endregion
+}
@@ -0,0 +1,91 @@
+package it.spot.android.animatorchain;
+
+/**
+ * This class keeps the released {@link AnimatorChainCursor}s, so that they can be
+ * reused by the following executions of any {@link AnimatorChainTemplate}.<br/>
+ * It's meant to follow the recycling of the views, e.g. of a list: a cursor is
+ * acquired when an item is bound and released when it's recycled, so that once
+ * the pool holds as many cursors as the visible items no new cursor is created.
+ * The number of created cursors can be read to check that a steady state has been
+ * reached. All the methods are thread safe.
+ *
+ * @author a.rinaldi
+ */
+public final class AnimatorChainCursorPool {
+
+    private final AnimatorChainCursor[] mCursors;
+    private int mSize;
+    private int mCreatedCount;
+
+    // region Construction
+
+    /**
+     * @param maxSize the maximum number of released cursors kept
+     */
+    public AnimatorChainCursorPool(int maxSize) {
+        super();
+
+        this.mCursors = new AnimatorChainCursor[maxSize];
+    }
+
+    // endregion
+
+    // region Public methods
+
+    /**
+     * Takes a released cursor, or creates a new one if none is available.
+     *
+     * @return the cursor
+     */
+    public synchronized AnimatorChainCursor acquire() {
+        if (this.mSize > 0) {
+            AnimatorChainCursor cursor = this.mCursors[--this.mSize];
+            this.mCursors[this.mSize] = null;
+            return cursor;
+        }
+
+        this.mCreatedCount++;
+        return new AnimatorChainCursor(this);
+    }
+
+    /**
+     * Gets the number of released cursors ready to be reused.
+     *
+     * @return the number of cursors
+     */
+    public synchronized int size() {
+        return this.mSize;
+    }
+
+    /**
+     * Gets the number of cursors created by this pool so far.
+     *
+     * @return the number of cursors
+     */
+    public synchronized int getCreatedCount() {
+        return this.mCreatedCount;
+    }
+
+    // endregion
+
+    // region Package methods
+
+    /**
+     * Puts a cursor back into the pool, unless it's full or the cursor is already there.
+     *
+     * @param cursor the cursor to release
+     */
+    synchronized void release(AnimatorChainCursor cursor) {
+        for (int i = 0; i < this.mSize; i++) {
+            if (this.mCursors[i] == cursor) {
+                return;
+            }
+        }
+
+        if (this.mSize < this.mCursors.length) {
+            this.mCursors[this.mSize++] = cursor;
+        }
+    }
+
+    // endregion
+}
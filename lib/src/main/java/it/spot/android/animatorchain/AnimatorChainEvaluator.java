@@ -0,0 +1,383 @@
+package it.spot.android.animatorchain;
+
+/**
+ * This class computes the values of the animated properties at any point in time of
+ * an {@link AnimatorChain}, without running any animator.<br/>
+ * It's built on a snapshot of the chain, including its repetitions, and answers every
+ * query with a binary search over the cumulative durations of the items, so it can be
+ * used to precompute frames, to test chains without waiting for their real duration,
+ * or to drive benchmarks. A virtual clock is provided for step by step evaluations.<br/>
+ * In the {@link AnimatorChain#REPEAT_MODE_REVERSE} mode the backward iterations are the
+ * exact mirror in time of the forward ones. A chain repeated forever is evaluated with
+ * {@link Integer#MAX_VALUE} iterations, and has no end.<br/>
+ * The properties are evaluated independently, so the interactions between properties
+ * that a view derives from each other (e.g. {@code x} and {@code translationX}) are
+ * not taken into account.
+ *
+ * @author a.rinaldi
+ */
+public class AnimatorChainEvaluator {
+
+    private final CompiledAnimatorChain mCompiledChain;
+    private final int mIterations;
+    private final boolean mReversing;
+
+    private final long[] mStarts;
+    private final float[] mFirstStartValues;
+    private final float[] mRepeatStartValues;
+    private final int mAnimatedMask;
+    private final float[] mValues;
+
+    private long mPlayTime;
+
+    // region Construction
+
+    /**
+     * Creates an evaluator on the current state of a chain.
+     *
+     * @param chain        the chain to evaluate
+     * @param initialState the target the initial values of the properties are read from
+     */
+    public AnimatorChainEvaluator(AnimatorChain chain, IAnimatorChainTarget initialState) {
+        this(chain.compile(), chain.getIterationCount(), chain.getRepeatMode(), readValues(initialState));
+    }
+
+    /**
+     * Creates an evaluator on a compiled chain.
+     *
+     * @param compiledChain the chain to evaluate
+     * @param iterations    the times the chain is played, including the first one
+     * @param initialValues the initial values of the properties, one slot per {@link AnimatorChainProperty}
+     */
+    public AnimatorChainEvaluator(CompiledAnimatorChain compiledChain, int iterations, float[] initialValues) {
+        this(compiledChain, iterations, AnimatorChain.REPEAT_MODE_RESTART, initialValues);
+    }
+
+    /**
+     * Creates an evaluator on a compiled chain.
+     *
+     * @param compiledChain the chain to evaluate
+     * @param iterations    the times the chain is played, including the first one,
+     *                      or {@link Integer#MAX_VALUE} if repeated forever
+     * @param repeatMode    one of the {@code AnimatorChain.REPEAT_MODE_*} constants
+     * @param initialValues the initial values of the properties, one slot per {@link AnimatorChainProperty}
+     */
+    public AnimatorChainEvaluator(CompiledAnimatorChain compiledChain, int iterations, int repeatMode,
+                                  float[] initialValues) {
+        super();
+
+        int size = compiledChain.size();
+
+        this.mCompiledChain = compiledChain;
+        this.mIterations = iterations;
+        this.mReversing = repeatMode == AnimatorChain.REPEAT_MODE_REVERSE;
+
+        this.mStarts = new long[size + 1];
+        int animatedMask = 0;
+        for (int i = 0; i < size; i++) {
+            this.mStarts[i + 1] = this.mStarts[i] + compiledChain.getStartDelay(i) + compiledChain.getDuration(i);
+            animatedMask |= compiledChain.getPropertyMask(i);
+        }
+
+        this.mAnimatedMask = animatedMask;
+        this.mValues = new float[AnimatorChainProperty.COUNT];
+
+        this.mFirstStartValues = this.computeStartValues(initialValues);
+        this.mRepeatStartValues = this.computeStartValues(this.getEndValues(this.mFirstStartValues));
+    }
+
+    // endregion
+
+    // region Public methods
+
+    /**
+     * Gets the duration of a single iteration of the chain.
+     *
+     * @return the duration, in milliseconds
+     */
+    public long getIterationDuration() {
+        return this.mStarts[this.mCompiledChain.size()];
+    }
+
+    /**
+     * Gets the duration of the whole chain, including its repetitions.
+     *
+     * @return the duration, in milliseconds
+     */
+    public long getTotalDuration() {
+        if (this.mIterations == Integer.MAX_VALUE) {
+            return Long.MAX_VALUE;
+        }
+        return this.getIterationDuration() * this.mIterations;
+    }
+
+    /**
+     * Gets the index of the item being played at a given time.
+     *
+     * @param playTimeMs the time, in milliseconds, from the start of the chain
+     * @return the index of the item, or {@code -1} if the chain is over
+     */
+    public int getPositionAt(long playTimeMs) {
+        long time = Math.max(playTimeMs, 0);
+        if (this.mCompiledChain.size() == 0 || time >= this.getTotalDuration()) {
+            return -1;
+        }
+
+        return this.findPosition(Math.min(this.getLocalTime(time), this.getIterationDuration() - 1));
+    }
+
+    /**
+     * Computes the values of all the properties at a given time.
+     *
+     * @param playTimeMs the time, in milliseconds, from the start of the chain
+     * @param out        the array to store the values into, one slot per {@link AnimatorChainProperty}
+     */
+    public void evaluate(long playTimeMs, float[] out) {
+        int size = this.mCompiledChain.size();
+        long iterationDuration = this.getIterationDuration();
+
+        long time = Math.max(playTimeMs, 0);
+        if (size == 0 || time >= this.getTotalDuration()) {
+            float[] startValues = this.mIterations > 1 && !this.mReversing
+                    ? this.mRepeatStartValues : this.mFirstStartValues;
+            // a last backward iteration ends where the chain has started
+            int row = this.mReversing && (this.mIterations & 1) == 0 ? 0 : size;
+            System.arraycopy(startValues, row * AnimatorChainProperty.COUNT, out, 0, AnimatorChainProperty.COUNT);
+            return;
+        }
+
+        // the backward iterations come back to the values of the first one
+        float[] startValues = time < iterationDuration || this.mReversing
+                ? this.mFirstStartValues : this.mRepeatStartValues;
+        long local = this.getLocalTime(time);
+
+        if (local >= iterationDuration) {
+            // the very start of a backward iteration
+            System.arraycopy(startValues, size * AnimatorChainProperty.COUNT, out, 0, AnimatorChainProperty.COUNT);
+            return;
+        }
+
+        int position = this.findPosition(local);
+        int offset = position * AnimatorChainProperty.COUNT;
+        System.arraycopy(startValues, offset, out, 0, AnimatorChainProperty.COUNT);
+
+        long elapsed = local - this.mStarts[position];
+        long delay = this.mCompiledChain.getStartDelay(position);
+        float fraction = elapsed <= delay ? 0f : (float) (elapsed - delay) / this.mCompiledChain.getDuration(position);
+        float interpolated = this.mCompiledChain.getInterpolator(position).getInterpolation(fraction);
+
+        int mask = this.mCompiledChain.getPropertyMask(position);
+        for (int property = 0; property < AnimatorChainProperty.COUNT; property++) {
+            if ((mask & (1 << property)) != 0) {
+                float from = out[property];
+                out[property] = from + (this.mCompiledChain.getTarget(position, property) - from) * interpolated;
+            }
+        }
+    }
+
+    /**
+     * Writes to a target the values, at a given time, of all the properties
+     * animated by at least one item of the chain.<br/>
+     * It doesn't allocate anything, so it can be called at every frame or
+     * scroll event; for the same reason it's not thread safe.
+     *
+     * @param playTimeMs the time, in milliseconds, from the start of the chain
+     * @param target     the target to write to
+     */
+    public void apply(long playTimeMs, IAnimatorChainTarget target) {
+        this.evaluate(playTimeMs, this.mValues);
+
+        for (int property = 0; property < AnimatorChainProperty.COUNT; property++) {
+            if ((this.mAnimatedMask & (1 << property)) != 0) {
+                target.setProperty(property, this.mValues[property]);
+            }
+        }
+    }
+
+    /**
+     * Gets the bitmask of the properties animated by at least one item,
+     * where the bit {@code 1 << property} is set for every animated property.
+     *
+     * @return the bitmask
+     */
+    public int getAnimatedMask() {
+        return this.mAnimatedMask;
+    }
+
+    /**
+     * Tells whether the evaluator has been built on the given snapshot.
+     *
+     * @param compiledChain the snapshot to compare
+     * @param iterations    the times the chain is played, including the first one
+     * @return {@code true} if the evaluator matches the snapshot
+     */
+    public boolean isBuiltOn(CompiledAnimatorChain compiledChain, int iterations) {
+        return this.isBuiltOn(compiledChain, iterations, AnimatorChain.REPEAT_MODE_RESTART);
+    }
+
+    /**
+     * Tells whether the evaluator has been built on the given snapshot.
+     *
+     * @param compiledChain the snapshot to compare
+     * @param iterations    the times the chain is played, including the first one
+     * @param repeatMode    one of the {@code AnimatorChain.REPEAT_MODE_*} constants
+     * @return {@code true} if the evaluator matches the snapshot
+     */
+    public boolean isBuiltOn(CompiledAnimatorChain compiledChain, int iterations, int repeatMode) {
+        return this.mCompiledChain == compiledChain && this.mIterations == iterations
+                && this.mReversing == (repeatMode == AnimatorChain.REPEAT_MODE_REVERSE);
+    }
+
+    /**
+     * Computes the values of all the properties at a regular interval, from
+     * the start to the end of the chain.
+     *
+     * @param frameIntervalMs the interval, in milliseconds, between two frames
+     * @return the values, one row of {@link AnimatorChainProperty#COUNT} slots per frame
+     */
+    public float[] precompute(long frameIntervalMs) {
+        if (this.mIterations == Integer.MAX_VALUE) {
+            throw new IllegalStateException("A chain repeated forever can't be precomputed");
+        }
+
+        int frames = (int) (this.getTotalDuration() / frameIntervalMs) + 1;
+        float[] values = new float[frames * AnimatorChainProperty.COUNT];
+        float[] frame = new float[AnimatorChainProperty.COUNT];
+
+        for (int i = 0; i < frames; i++) {
+            this.evaluate(i * frameIntervalMs, frame);
+            System.arraycopy(frame, 0, values, i * AnimatorChainProperty.COUNT, AnimatorChainProperty.COUNT);
+        }
+        return values;
+    }
+
+    /**
+     * Gets the time of the virtual clock.
+     *
+     * @return the time, in milliseconds, from the start of the chain
+     */
+    public long getPlayTime() {
+        return this.mPlayTime;
+    }
+
+    /**
+     * Sets the time of the virtual clock.
+     *
+     * @param playTimeMs the time, in milliseconds, from the start of the chain
+     * @return the {@link AnimatorChainEvaluator} itself, allowing chained method calls
+     */
+    public AnimatorChainEvaluator setPlayTime(long playTimeMs) {
+        this.mPlayTime = playTimeMs;
+        return this;
+    }
+
+    /**
+     * Moves the virtual clock forward.
+     *
+     * @param deltaMs the time, in milliseconds, to add to the clock
+     * @return the {@link AnimatorChainEvaluator} itself, allowing chained method calls
+     */
+    public AnimatorChainEvaluator advance(long deltaMs) {
+        this.mPlayTime += deltaMs;
+        return this;
+    }
+
+    /**
+     * Tells whether the virtual clock has reached the end of the chain.
+     *
+     * @return {@code true} if the chain is over
+     */
+    public boolean isFinished() {
+        return this.mPlayTime >= this.getTotalDuration();
+    }
+
+    /**
+     * Computes the values of all the properties at the time of the virtual clock.
+     *
+     * @param out the array to store the values into, one slot per {@link AnimatorChainProperty}
+     */
+    public void evaluate(float[] out) {
+        this.evaluate(this.mPlayTime, out);
+    }
+
+    // endregion
+
+    // region Private methods
+
+    /**
+     * Gets the time within the forward iteration matching the given time of the chain,
+     * mirroring the backward iterations.
+     */
+    private long getLocalTime(long time) {
+        long iterationDuration = this.getIterationDuration();
+        if (iterationDuration == 0) {
+            // a chain taking no time, repeated forever
+            return 0;
+        }
+
+        long local = time % iterationDuration;
+
+        if (this.mReversing && (time / iterationDuration & 1) != 0) {
+            return iterationDuration - local;
+        }
+        return local;
+    }
+
+    /**
+     * Finds the item playing at the given time of an iteration,
+     * i.e. the last item starting before or at that time.
+     */
+    private int findPosition(long local) {
+        int low = 0;
+        int high = this.mCompiledChain.size() - 1;
+
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (this.mStarts[middle] <= local) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Computes the values of all the properties at the start of every item, plus
+     * the values at the end of the iteration in the last row.
+     */
+    private float[] computeStartValues(float[] initialValues) {
+        int size = this.mCompiledChain.size();
+        float[] values = new float[(size + 1) * AnimatorChainProperty.COUNT];
+        System.arraycopy(initialValues, 0, values, 0, AnimatorChainProperty.COUNT);
+
+        for (int i = 0; i < size; i++) {
+            int offset = i * AnimatorChainProperty.COUNT;
+            int mask = this.mCompiledChain.getPropertyMask(i);
+
+            for (int property = 0; property < AnimatorChainProperty.COUNT; property++) {
+                values[offset + AnimatorChainProperty.COUNT + property] = (mask & (1 << property)) != 0
+                        ? this.mCompiledChain.getTarget(i, property)
+                        : values[offset + property];
+            }
+        }
+        return values;
+    }
+
+    private float[] getEndValues(float[] startValues) {
+        float[] values = new float[AnimatorChainProperty.COUNT];
+        System.arraycopy(startValues, this.mCompiledChain.size() * AnimatorChainProperty.COUNT, values, 0,
+                AnimatorChainProperty.COUNT);
+        return values;
+    }
+
+    private static float[] readValues(IAnimatorChainTarget target) {
+        float[] values = new float[AnimatorChainProperty.COUNT];
+        for (int property = 0; property < AnimatorChainProperty.COUNT; property++) {
+            values[property] = target.getProperty(property);
+        }
+        return values;
+    }
+
+    // endregion
+}
@@ -0,0 +1,670 @@
+package it.spot.android.animatorchain;
+
+import android.animation.TimeInterpolator;
+import android.content.res.AssetFileDescriptor;
+import android.content.res.AssetManager;
+import android.content.res.Resources;
+import android.view.animation.AccelerateDecelerateInterpolator;
+import android.view.animation.AccelerateInterpolator;
+import android.view.animation.AnticipateInterpolator;
+import android.view.animation.AnticipateOvershootInterpolator;
+import android.view.animation.BounceInterpolator;
+import android.view.animation.DecelerateInterpolator;
+import android.view.animation.LinearInterpolator;
+import android.view.animation.OvershootInterpolator;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+/**
+ * This class writes an {@link AnimatorChain} into a compact binary format, and reads it back,
+ * so that the chains can be shipped and tuned as raw resources or assets instead of code.<br/>
+ * The format keeps the repeat settings, the execution mode, the optimization flag and the layer
+ * policy of the chain, and the properties, the timing, the layer policy and the interpolator of
+ * every item, stages included. Listeners, schedulers and the other runtime settings are not kept.
+ * <br/>
+ * Interpolators are stored by id: the {@code INTERPOLATOR_*} ids map to the framework
+ * interpolators with their default parameters, and any other interpolator must be registered
+ * through {@link #registerInterpolator(int, TimeInterpolator)}, with the same id, both before
+ * writing and before reading. A {@link BakedInterpolator} is stored as the id of the curve it
+ * has been baked from, along with its number of samples, and is baked again when read.<br/>
+ * Every chain read gets its own items. Corrupt or truncated data is reported through an
+ * {@link IOException}, and never allocates more than the data it's made of.<br/>
+ * Resources and assets stored uncompressed and big enough are memory-mapped, the others are
+ * streamed; {@link AnimatorChainLoader} keeps the parsed chains, so that they're read once.
+ * All the methods are thread safe.
+ * <p>
+ * The layout is, with every {@code varint} being an unsigned LEB128 value:
+ * <pre>
+ * int    magic ('ACHN')
+ * byte   version
+ * byte   flags (1: repeat, 2: optimize)
+ * varint repeat count + 1 (0 repeating forever)
+ * byte   repeat mode
+ * byte   execution mode
+ * byte   layer policy
+ * varint item count
+ * item*  kind (byte: 0 item, 1 stage), property mask (varint), a float per property in the mask,
+ *        delay (varint), duration (varint), interpolator id (varint, followed for a baked one
+ *        by the id of its source and its samples, both varints), layer policy + 1 (byte),
+ *        and for the stages the child count (varint) followed by target index + 1 (varint)
+ *        and item of every child
+ * </pre>
+ *
+ * @author a.rinaldi
+ */
+public final class AnimatorChainFormat {
+
+    public static final int INTERPOLATOR_LINEAR = 0;
+    public static final int INTERPOLATOR_ACCELERATE = 1;
+    public static final int INTERPOLATOR_DECELERATE = 2;
+    public static final int INTERPOLATOR_ACCELERATE_DECELERATE = 3;
+    public static final int INTERPOLATOR_ANTICIPATE = 4;
+    public static final int INTERPOLATOR_OVERSHOOT = 5;
+    public static final int INTERPOLATOR_ANTICIPATE_OVERSHOOT = 6;
+    public static final int INTERPOLATOR_BOUNCE = 7;
+
+    /**
+     * The lowest id available to the registered interpolators.
+     */
+    public static final int INTERPOLATOR_FIRST_CUSTOM = 64;
+
+    private static final int MAGIC = 0x4143484E;
+    private static final int VERSION = 1;
+
+    private static final int FLAG_REPEAT = 1;
+    private static final int FLAG_OPTIMIZE = 1 << 1;
+
+    private static final int KIND_ITEM = 0;
+    private static final int KIND_STAGE = 1;
+
+    /**
+     * The id marking a {@link BakedInterpolator}, followed by the id of its source and its samples.
+     */
+    private static final int INTERPOLATOR_BAKED = INTERPOLATOR_FIRST_CUSTOM - 1;
+
+    /**
+     * More samples than any curve needs, so that a corrupt count can't allocate a huge table.
+     */
+    private static final int MAX_BAKED_SAMPLES = 1 << 16;
+
+    /**
+     * The smallest size of an item: kind, property mask, delay, duration, interpolator and layer policy.
+     */
+    private static final int MIN_ITEM_SIZE = 6;
+
+    /**
+     * The size under which a file is read rather than mapped, since mapping it would cost more.
+     */
+    private static final long MAP_THRESHOLD = 16 * 1024;
+
+    private static final int BUFFER_SIZE = 1024;
+
+    private static final Object sInterpolatorsLock = new Object();
+    private static final TimeInterpolator[] sBuiltInInterpolators = new TimeInterpolator[]{
+            new LinearInterpolator(),
+            new AccelerateInterpolator(),
+            new DecelerateInterpolator(),
+            new AccelerateDecelerateInterpolator(),
+            new AnticipateInterpolator(),
+            new OvershootInterpolator(),
+            new AnticipateOvershootInterpolator(),
+            new BounceInterpolator()
+    };
+    private static TimeInterpolator[] sInterpolators = new TimeInterpolator[0];
+    private static final IdentityHashMap<TimeInterpolator, Integer> sInterpolatorIds =
+            new IdentityHashMap<TimeInterpolator, Integer>();
+
+    static {
+        for (int id = 0; id < sBuiltInInterpolators.length; id++) {
+            sInterpolatorIds.put(sBuiltInInterpolators[id], id);
+        }
+    }
+
+    // region Construction
+
+    private AnimatorChainFormat() {
+        super();
+    }
+
+    // endregion
+
+    // region Public methods
+
+    /**
+     * Registers an interpolator under an id, replacing the one with the same id.<br/>
+     * The same instance is given to all the items read with that id, so it must be stateless.
+     *
+     * @param id           the id, not lower than {@link #INTERPOLATOR_FIRST_CUSTOM}
+     * @param interpolator the interpolator
+     */
+    public static void registerInterpolator(int id, TimeInterpolator interpolator) {
+        if (id < INTERPOLATOR_FIRST_CUSTOM) {
+            throw new IllegalArgumentException("The ids under " + INTERPOLATOR_FIRST_CUSTOM + " are reserved: " + id);
+        }
+        if (interpolator == null) {
+            throw new IllegalArgumentException("The interpolator can't be null");
+        }
+
+        synchronized (sInterpolatorsLock) {
+            int index = id - INTERPOLATOR_FIRST_CUSTOM;
+            if (index >= sInterpolators.length) {
+                TimeInterpolator[] interpolators = new TimeInterpolator[index + 1];
+                System.arraycopy(sInterpolators, 0, interpolators, 0, sInterpolators.length);
+                sInterpolators = interpolators;
+            }
+
+            if (sInterpolators[index] != null) {
+                sInterpolatorIds.remove(sInterpolators[index]);
+            }
+            sInterpolators[index] = interpolator;
+            sInterpolatorIds.put(interpolator, id);
+        }
+    }
+
+    /**
+     * Writes a chain.
+     *
+     * @param chain the chain to write, which can't be lazy
+     * @param out   the stream to write to, left open
+     * @throws IOException if the stream can't be written
+     */
+    public static void write(AnimatorChain chain, OutputStream out) throws IOException {
+        if (chain.isLazy()) {
+            throw new IllegalArgumentException("A lazy chain can't be written");
+        }
+
+        CompiledAnimatorChain compiled = chain.compile();
+        DataOutputStream data = new DataOutputStream(out);
+
+        data.writeInt(MAGIC);
+        data.writeByte(VERSION);
+        data.writeByte((chain.isRepeatEnabled() ? FLAG_REPEAT : 0) | (chain.isOptimizationEnabled() ? FLAG_OPTIMIZE : 0));
+        writeVarint(data, chain.getRepeatCount() + 1);
+        data.writeByte(chain.getRepeatMode());
+        data.writeByte(chain.getExecutionMode());
+        data.writeByte(chain.getLayerPolicy());
+
+        writeVarint(data, compiled.size());
+        for (int position = 0; position < compiled.size(); position++) {
+            CompiledAnimatorChain stage = compiled.getStage(position);
+
+            data.writeByte(stage != null ? KIND_STAGE : KIND_ITEM);
+            writeItem(data, compiled, position);
+
+            if (stage != null) {
+                writeVarint(data, stage.size());
+                for (int child = 0; child < stage.size(); child++) {
+                    writeVarint(data, compiled.getStageTarget(position, child) + 1);
+                    data.writeByte(KIND_ITEM);
+                    writeItem(data, stage, child);
+                }
+            }
+        }
+        data.flush();
+    }
+
+    /**
+     * Reads a chain, streaming it.
+     *
+     * @param in the stream to read from, left open
+     * @return a new chain
+     * @throws IOException if the stream can't be read or doesn't contain a chain
+     */
+    public static AnimatorChain read(InputStream in) throws IOException {
+        return readDefinition(in).newChain();
+    }
+
+    /**
+     * Reads a chain from a buffer, e.g. a memory-mapped file, starting at its position.
+     *
+     * @param buffer the buffer to read from
+     * @return a new chain
+     * @throws IOException if the buffer doesn't contain a chain
+     */
+    public static AnimatorChain read(ByteBuffer buffer) throws IOException {
+        return readDefinition(new ByteBufferInputStream(buffer)).newChain();
+    }
+
+    /**
+     * Reads a chain from a raw resource.
+     *
+     * @param resources the resources of the application
+     * @param rawResId  the id of the raw resource
+     * @return a new chain
+     * @throws IOException if the resource can't be read or doesn't contain a chain
+     */
+    public static AnimatorChain readRawResource(Resources resources, int rawResId) throws IOException {
+        return readDefinition(resources, rawResId).newChain();
+    }
+
+    /**
+     * Reads a chain from an asset.
+     *
+     * @param assets the assets of the application
+     * @param path   the path of the asset
+     * @return a new chain
+     * @throws IOException if the asset can't be read or doesn't contain a chain
+     */
+    public static AnimatorChain readAsset(AssetManager assets, String path) throws IOException {
+        return readDefinition(assets, path).newChain();
+    }
+
+    // endregion
+
+    // region Package methods
+
+    static Definition readDefinition(Resources resources, int rawResId) throws IOException {
+        AssetFileDescriptor descriptor;
+        try {
+            descriptor = resources.openRawResourceFd(rawResId);
+        } catch (Resources.NotFoundException e) {
+            // stored compressed, so it can only be streamed
+            descriptor = null;
+        }
+
+        if (descriptor != null) {
+            return readDefinition(descriptor);
+        }
+
+        InputStream in = resources.openRawResource(rawResId);
+        try {
+            return readDefinition(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    static Definition readDefinition(AssetManager assets, String path) throws IOException {
+        AssetFileDescriptor descriptor;
+        try {
+            descriptor = assets.openFd(path);
+        } catch (FileNotFoundException e) {
+            // stored compressed, so it can only be streamed
+            descriptor = null;
+        }
+
+        if (descriptor != null) {
+            return readDefinition(descriptor);
+        }
+
+        InputStream in = assets.open(path, AssetManager.ACCESS_STREAMING);
+        try {
+            return readDefinition(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    static Definition readDefinition(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in instanceof ByteBufferInputStream
+                ? in : new BufferedInputStream(in, BUFFER_SIZE));
+
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not an animator chain");
+        }
+        int version = data.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported version: " + version);
+        }
+
+        int flags = data.readUnsignedByte();
+        int repeatCount = readVarint(data) - 1;
+        int repeatMode = data.readByte();
+        int executionMode = data.readByte();
+        int layerPolicy = data.readByte();
+
+        int count = readCount(data, in, MIN_ITEM_SIZE);
+        ArrayList<ItemDefinition> items = new ArrayList<ItemDefinition>();
+        for (int position = 0; position < count; position++) {
+            items.add(readItem(data, in, true));
+        }
+
+        try {
+            return new Definition(items.toArray(new ItemDefinition[items.size()]), (flags & FLAG_REPEAT) != 0,
+                    repeatCount, repeatMode, executionMode, (flags & FLAG_OPTIMIZE) != 0, layerPolicy);
+        } catch (RuntimeException e) {
+            throw new IOException("Invalid chain settings", e);
+        }
+    }
+
+    // endregion
+
+    // region Private methods
+
+    /**
+     * Reads the file behind a descriptor, mapping it if big enough, and closes the descriptor.
+     */
+    private static Definition readDefinition(AssetFileDescriptor descriptor) throws IOException {
+        try {
+            long length = descriptor.getLength();
+            if (length < MAP_THRESHOLD) {
+                return readDefinition(descriptor.createInputStream());
+            }
+
+            FileInputStream in = new FileInputStream(descriptor.getFileDescriptor());
+            FileChannel channel = in.getChannel();
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, descriptor.getStartOffset(), length);
+            return readDefinition(new ByteBufferInputStream(buffer));
+        } finally {
+            descriptor.close();
+        }
+    }
+
+    private static void writeItem(DataOutputStream data, CompiledAnimatorChain compiled, int position)
+            throws IOException {
+        int mask = compiled.getPropertyMask(position);
+
+        writeVarint(data, mask);
+        for (int property = 0; property < AnimatorChainProperty.COUNT; property++) {
+            if ((mask & (1 << property)) != 0) {
+                data.writeFloat(compiled.getTarget(position, property));
+            }
+        }
+        writeVarint(data, compiled.getStartDelay(position));
+        writeVarint(data, compiled.getDuration(position));
+        writeInterpolator(data, compiled.getInterpolator(position));
+        data.writeByte(compiled.getLayerPolicy(position) + 1);
+    }
+
+    private static ItemDefinition readItem(DataInputStream data, InputStream in, boolean allowStage)
+            throws IOException {
+        int kind = data.readUnsignedByte();
+        if (kind != KIND_ITEM && (kind != KIND_STAGE || !allowStage)) {
+            throw new IOException("Unexpected item kind: " + kind);
+        }
+
+        ItemDefinition item = new ItemDefinition();
+
+        item.mask = readVarint(data);
+        if (item.mask >>> AnimatorChainProperty.COUNT != 0) {
+            throw new IOException("Unknown properties: " + item.mask);
+        }
+        for (int property = 0; property < AnimatorChainProperty.COUNT; property++) {
+            if ((item.mask & (1 << property)) != 0) {
+                float value = data.readFloat();
+                if (Float.isNaN(value) || Float.isInfinite(value)) {
+                    throw new IOException("Invalid value of property " + property + ": " + value);
+                }
+                item.values[property] = value;
+            }
+        }
+
+        // the varints are never negative, so neither are the timings
+        item.delay = readVarint(data);
+        item.duration = readVarint(data);
+        item.interpolator = readInterpolator(data);
+        item.layerPolicy = data.readUnsignedByte() - 1;
+        try {
+            AnimatorChain.checkLayerPolicy(item.layerPolicy);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid item settings", e);
+        }
+
+        if (kind == KIND_STAGE) {
+            // every child is made of its target index and an item
+            int childCount = readCount(data, in, MIN_ITEM_SIZE + 1);
+            ArrayList<ItemDefinition> children = new ArrayList<ItemDefinition>();
+            for (int child = 0; child < childCount; child++) {
+                int targetIndex = readVarint(data) - 1;
+                ItemDefinition childItem = readItem(data, in, false);
+                childItem.targetIndex = targetIndex;
+                children.add(childItem);
+            }
+            item.children = children.toArray(new ItemDefinition[children.size()]);
+        }
+        return item;
+    }
+
+    private static void writeInterpolator(DataOutputStream data, TimeInterpolator interpolator) throws IOException {
+        if (interpolator instanceof BakedInterpolator && getRegisteredId(interpolator) == null) {
+            BakedInterpolator baked = (BakedInterpolator) interpolator;
+            TimeInterpolator source = baked.getSource();
+            if (source == null || source instanceof BakedInterpolator) {
+                throw new IllegalArgumentException("Unregistered interpolator: the source of " + interpolator);
+            }
+
+            int sourceId = getInterpolatorId(source);
+            writeVarint(data, INTERPOLATOR_BAKED);
+            writeVarint(data, sourceId);
+            writeVarint(data, baked.getSamples());
+            return;
+        }
+
+        writeVarint(data, getInterpolatorId(interpolator));
+    }
+
+    private static TimeInterpolator readInterpolator(DataInputStream data) throws IOException {
+        int id = readVarint(data);
+        if (id != INTERPOLATOR_BAKED) {
+            return getInterpolator(id);
+        }
+
+        // the source can't be baked in turn, as its id would be unregistered
+        TimeInterpolator source = getInterpolator(readVarint(data));
+        int samples = readVarint(data);
+        if (samples > MAX_BAKED_SAMPLES) {
+            throw new IOException("Too many samples: " + samples);
+        }
+
+        try {
+            return BakedInterpolator.bake(source, samples);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid baked interpolator", e);
+        }
+    }
+
+    private static Integer getRegisteredId(TimeInterpolator interpolator) {
+        synchronized (sInterpolatorsLock) {
+            return sInterpolatorIds.get(interpolator);
+        }
+    }
+
+    private static int getInterpolatorId(TimeInterpolator interpolator) {
+        Integer id = getRegisteredId(interpolator);
+        if (id != null) {
+            return id;
+        }
+
+        // the framework interpolators without parameters are all the same
+        if (interpolator instanceof LinearInterpolator) {
+            return INTERPOLATOR_LINEAR;
+        }
+        if (interpolator instanceof AccelerateDecelerateInterpolator) {
+            return INTERPOLATOR_ACCELERATE_DECELERATE;
+        }
+        if (interpolator instanceof BounceInterpolator) {
+            return INTERPOLATOR_BOUNCE;
+        }
+        throw new IllegalArgumentException("Unregistered interpolator: " + interpolator);
+    }
+
+    private static TimeInterpolator getInterpolator(int id) throws IOException {
+        if (id >= 0 && id < sBuiltInInterpolators.length) {
+            return sBuiltInInterpolators[id];
+        }
+
+        synchronized (sInterpolatorsLock) {
+            int index = id - INTERPOLATOR_FIRST_CUSTOM;
+            if (index >= 0 && index < sInterpolators.length && sInterpolators[index] != null) {
+                return sInterpolators[index];
+            }
+        }
+        throw new IOException("Unregistered interpolator id: " + id);
+    }
+
+    private static void writeVarint(DataOutputStream data, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            data.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data.writeByte(value);
+    }
+
+    /**
+     * Reads the number of elements that follow, each at least {@code minSize} bytes long.<br/>
+     * A mapped file tells exactly how much data is left, so a corrupt count is rejected at once;
+     * a stream just runs out of data, as nothing is allocated upfront for the elements.
+     */
+    private static int readCount(DataInputStream data, InputStream in, int minSize) throws IOException {
+        int count = readVarint(data);
+        if (in instanceof ByteBufferInputStream && count > in.available() / minSize) {
+            throw new IOException("Truncated chain: " + count + " elements expected");
+        }
+        return count;
+    }
+
+    /**
+     * Reads a value written by {@link #writeVarint(DataOutputStream, int)}, rejecting
+     * the ones not fitting a non-negative {@code int}.
+     */
+    private static int readVarint(DataInputStream data) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = data.readUnsignedByte();
+            if (shift == 28 && (b & 0xF8) != 0) {
+                break;
+            }
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    // endregion
+
+    // region Inner classes
+
+    /**
+     * The parsed content of a chain, creating any number of chains without parsing it again.<br/>
+     * Every chain gets its own items, so they can be changed without affecting the others.
+     */
+    static final class Definition {
+
+        private final ItemDefinition[] mItems;
+        private final boolean mRepeat;
+        private final int mRepeatCount;
+        private final int mRepeatMode;
+        private final int mExecutionMode;
+        private final boolean mOptimize;
+        private final int mLayerPolicy;
+
+        Definition(ItemDefinition[] items, boolean repeat, int repeatCount, int repeatMode, int executionMode,
+                   boolean optimize, int layerPolicy) {
+            this.mItems = items;
+            this.mRepeat = repeat;
+            this.mRepeatCount = repeatCount;
+            this.mRepeatMode = repeatMode;
+            this.mExecutionMode = executionMode;
+            this.mOptimize = optimize;
+            this.mLayerPolicy = layerPolicy;
+
+            // fail here, rather than in every chain created later
+            this.newChain();
+        }
+
+        AnimatorChain newChain() {
+            AnimatorChain chain = new AnimatorChain();
+            for (ItemDefinition item : this.mItems) {
+                chain.chain(item.newItem());
+            }
+
+            return chain.enableRepeat(this.mRepeat)
+                    .setRepeatCount(this.mRepeatCount)
+                    .setRepeatMode(this.mRepeatMode)
+                    .setExecutionMode(this.mExecutionMode)
+                    .enableOptimization(this.mOptimize)
+                    .setLayerPolicy(this.mLayerPolicy);
+        }
+    }
+
+    /**
+     * The parsed content of an item, or of a stage along with its children.
+     */
+    static final class ItemDefinition {
+
+        int mask;
+        final float[] values = new float[AnimatorChainProperty.COUNT];
+        int delay;
+        int duration;
+        TimeInterpolator interpolator;
+        int layerPolicy;
+        int targetIndex;
+        ItemDefinition[] children;
+
+        AnimatorChainItem newItem() {
+            AnimatorChainItem item;
+            if (this.children != null) {
+                AnimatorChainStage stage = AnimatorChainStage.create();
+                for (ItemDefinition child : this.children) {
+                    stage.add(child.targetIndex, child.newItem());
+                }
+                item = stage;
+            } else {
+                item = AnimatorChainItem.create();
+            }
+
+            for (int property = 0; property < AnimatorChainProperty.COUNT; property++) {
+                if ((this.mask & (1 << property)) != 0) {
+                    item.setProperty(property, this.values[property]);
+                }
+            }
+            return item.setStartDelay(this.delay)
+                    .setDuration(this.duration)
+                    .setInterpolator(this.interpolator)
+                    .setLayerPolicy(this.layerPolicy);
+        }
+    }
+
+    /**
+     * Reads a {@link ByteBuffer} from its position, without copying it.
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer mBuffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            super();
+
+            this.mBuffer = buffer;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return this.mBuffer.hasRemaining() ? this.mBuffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (!this.mBuffer.hasRemaining()) {
+                return -1;
+            }
+
+            int count = Math.min(length, this.mBuffer.remaining());
+            this.mBuffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return this.mBuffer.remaining();
+        }
+    }
+
+    // endregion
+}
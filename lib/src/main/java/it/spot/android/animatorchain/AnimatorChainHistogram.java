@@ -0,0 +1,120 @@
+package it.spot.android.animatorchain;
+
+/**
+ * This class is a compact histogram of non negative {@code long} values, with
+ * one bucket per power of two.<br/>
+ * Recording a value costs a few arithmetic operations and never allocates,
+ * while percentiles are approximated by the upper bound of their bucket.
+ * It's not thread safe: values are meant to be recorded and read on the
+ * same thread, usually the main one.
+ *
+ * @author a.rinaldi
+ */
+public class AnimatorChainHistogram {
+
+    private static final int BUCKETS = 64;
+
+    private final long[] mBuckets;
+    private long mCount;
+    private long mSum;
+    private long mMin;
+    private long mMax;
+
+    // region Construction
+
+    public AnimatorChainHistogram() {
+        super();
+
+        this.mBuckets = new long[BUCKETS];
+        this.reset();
+    }
+
+    // endregion
+
+    // region Public methods
+
+    /**
+     * Records a value, negative values being recorded as zero.
+     *
+     * @param value the value to record
+     */
+    public void record(long value) {
+        long sample = Math.max(value, 0);
+
+        this.mBuckets[BUCKETS - Long.numberOfLeadingZeros(sample)]++;
+        this.mCount++;
+        this.mSum += sample;
+        this.mMin = Math.min(this.mMin, sample);
+        this.mMax = Math.max(this.mMax, sample);
+    }
+
+    /**
+     * Removes all the recorded values.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            this.mBuckets[i] = 0;
+        }
+
+        this.mCount = 0;
+        this.mSum = 0;
+        this.mMin = Long.MAX_VALUE;
+        this.mMax = 0;
+    }
+
+    public long getCount() {
+        return this.mCount;
+    }
+
+    public long getSum() {
+        return this.mSum;
+    }
+
+    public long getMin() {
+        return this.mCount == 0 ? 0 : this.mMin;
+    }
+
+    public long getMax() {
+        return this.mMax;
+    }
+
+    public double getMean() {
+        return this.mCount == 0 ? 0 : (double) this.mSum / this.mCount;
+    }
+
+    /**
+     * Gets an approximation of a percentile of the recorded values.
+     *
+     * @param percentile the percentile, between {@code 0} and {@code 100}
+     * @return the upper bound of the bucket the percentile falls in, capped to the maximum value
+     */
+    public long getPercentile(double percentile) {
+        if (this.mCount == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(this.mCount * percentile / 100d);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += this.mBuckets[i];
+            if (seen >= rank && seen > 0) {
+                long upperBound = i == 0 ? 0 : (1L << i) - 1;
+                return Math.min(upperBound, this.mMax);
+            }
+        }
+        return this.mMax;
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + this.mCount
+                + " min=" + this.getMin()
+                + " mean=" + Math.round(this.getMean())
+                + " p50=" + this.getPercentile(50)
+                + " p90=" + this.getPercentile(90)
+                + " p99=" + this.getPercentile(99)
+                + " max=" + this.mMax;
+    }
+
+    // endregion
+}
@@ -4,6 +4,9 @@ import android.animation.TimeInterpolator;
 import android.view.ViewPropertyAnimator;
 import android.view.animation.LinearInterpolator;
 
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
 /**
  * This class represents an animation item that can be chained
  * to others in a very simple way.<br/>
@@ -18,31 +21,15 @@ public class AnimatorChainItem {
     private static final int DEFAULT_DELAY = 0;
     private static final int DEFAULT_DURATION = 500;
 
-    private boolean mHasTranslationX;
-    private float mTranslationX;
-    private boolean mHasTranslationY;
-    private float mTranslationY;
-    private boolean mHasRotation;
-    private float mRotation;
-    private boolean mHasRotationX;
-    private float mRotationX;
-    private boolean mHasRotationY;
-    private float mRotationY;
-    private boolean mHasScaleX;
-    private float mScaleX;
-    private boolean mHasScaleY;
-    private float mScaleY;
-    private boolean mHasX;
-    private float mX;
-    private boolean mHasY;
-    private float mY;
-    private boolean mHasAlpha;
-    private float mAlpha;
-
-    private int mDelay;
-    private int mDuration;
-
-    private TimeInterpolator mInterpolator;
+    /**
+     * {@link LinearInterpolator} has no state, so a single instance is shared by all the items.
+     */
+    private static final TimeInterpolator DEFAULT_INTERPOLATOR = new LinearInterpolator();
+
+    private static final IAnimatorChainItemOwner[] NO_OWNERS = new IAnimatorChainItemOwner[0];
+
+    private final AtomicReference<State> mState;
+    private final AtomicReference<IAnimatorChainItemOwner[]> mOwners;
 
     // region Construction
 
@@ -54,9 +41,10 @@ public class AnimatorChainItem {
     protected AnimatorChainItem() {
         super();
 
-        this.mDelay = DEFAULT_DELAY;
-        this.mDuration = DEFAULT_DURATION;
-        this.mInterpolator = new LinearInterpolator();
+        this.mState = new AtomicReference<State>(
+                new State(0, 0, new float[AnimatorChainProperty.COUNT], DEFAULT_DELAY, DEFAULT_DURATION,
+                        DEFAULT_INTERPOLATOR, AnimatorChain.LAYER_POLICY_INHERIT));
+        this.mOwners = new AtomicReference<IAnimatorChainItemOwner[]>(NO_OWNERS);
     }
 
     /**
@@ -82,153 +70,277 @@ public class AnimatorChainItem {
      * @return the animator itself, allowing chaining.
      */
     public ViewPropertyAnimator apply(ViewPropertyAnimator animator) {
-        synchronized (this) {
-            animator.setDuration(this.mDuration)
-                    .setStartDelay(this.mDelay)
-                    .setInterpolator(this.mInterpolator);
+        State state = this.mState.get();
 
-            if (this.mHasAlpha) {
-                animator.alpha(this.mAlpha);
-            }
+        animator.setDuration(state.duration)
+                .setStartDelay(state.delay)
+                .setInterpolator(state.interpolator);
 
-            if (this.mHasY) {
-                animator.y(this.mY);
+        for (int property = 0; property < AnimatorChainProperty.COUNT; property++) {
+            if ((state.mask & (1 << property)) != 0) {
+                AnimatorChainProperty.animate(animator, property, state.values[property]);
             }
-
-            if (this.mHasX) {
-                animator.x(this.mX);
-            }
-
-            if (this.mHasRotation) {
-                animator.rotation(this.mRotation);
-            }
-
-            if (this.mHasRotationX) {
-                animator.rotationX(this.mRotationX);
-            }
-
-            if (this.mHasRotationY) {
-                animator.rotationY(this.mRotationY);
-            }
-
-            if (this.mHasScaleX) {
-                animator.scaleX(this.mScaleX);
-            }
-
-            if (this.mHasScaleY) {
-                animator.scaleY(this.mScaleY);
-            }
-
-            if (this.mHasTranslationX) {
-                animator.translationX(this.mTranslationX);
-            }
-
-            if (this.mHasTranslationY) {
-                animator.translationY(this.mTranslationY);
-            }
-
-            return animator;
         }
+
+        return animator;
     }
 
     public AnimatorChainItem setY(float y) {
-        synchronized (this) {
-            this.mHasY = true;
-            this.mY = y;
-            return this;
-        }
+        return this.setProperty(AnimatorChainProperty.Y, y);
     }
 
     public AnimatorChainItem setX(float x) {
-        synchronized (this) {
-            this.mHasX = true;
-            this.mX = x;
-            return this;
-        }
+        return this.setProperty(AnimatorChainProperty.X, x);
     }
 
     public AnimatorChainItem setRotation(float rotation) {
-        synchronized (this) {
-            this.mHasRotation = true;
-            this.mRotation = rotation;
-            return this;
-        }
+        return this.setProperty(AnimatorChainProperty.ROTATION, rotation);
     }
 
     public AnimatorChainItem setRotationX(float rotationX) {
-        synchronized (this) {
-            this.mHasRotationX = true;
-            this.mX = rotationX;
-            return this;
-        }
+        return this.setProperty(AnimatorChainProperty.ROTATION_X, rotationX);
     }
 
     public AnimatorChainItem setRotationY(float rotationY) {
-        synchronized (this) {
-            this.mHasRotationY = true;
-            this.mX = rotationY;
-            return this;
-        }
+        return this.setProperty(AnimatorChainProperty.ROTATION_Y, rotationY);
     }
 
     public AnimatorChainItem setTranslationX(float translationX) {
-        synchronized (this) {
-            this.mHasTranslationX = true;
-            this.mTranslationX = translationX;
-            return this;
-        }
+        return this.setProperty(AnimatorChainProperty.TRANSLATION_X, translationX);
     }
 
     public AnimatorChainItem setTranslationY(float translationY) {
-        synchronized (this) {
-            this.mHasTranslationY = true;
-            this.mTranslationY = translationY;
-            return this;
-        }
+        return this.setProperty(AnimatorChainProperty.TRANSLATION_Y, translationY);
     }
 
     public AnimatorChainItem setScaleX(float scaleX) {
-        synchronized (this) {
-            this.mHasScaleX = true;
-            this.mScaleX = scaleX;
-            return this;
-        }
+        return this.setProperty(AnimatorChainProperty.SCALE_X, scaleX);
     }
 
     public AnimatorChainItem setScaleY(float scaleY) {
-        synchronized (this) {
-            this.mHasScaleY = true;
-            this.mScaleY = scaleY;
-            return this;
-        }
+        return this.setProperty(AnimatorChainProperty.SCALE_Y, scaleY);
     }
 
     public AnimatorChainItem setStartDelay(int delay) {
-        synchronized (this) {
-            this.mDelay = delay;
-            return this;
-        }
+        State current;
+        do {
+            current = this.mState.get();
+        } while (!this.mState.compareAndSet(current, new State(current.version + 1, current.mask,
+                current.values, delay, current.duration, current.interpolator, current.layerPolicy)));
+        this.notifyOwners();
+        return this;
     }
 
     public AnimatorChainItem setDuration(int duration) {
-        synchronized (this) {
-            this.mDuration = duration;
-            return this;
-        }
+        State current;
+        do {
+            current = this.mState.get();
+        } while (!this.mState.compareAndSet(current, new State(current.version + 1, current.mask,
+                current.values, current.delay, duration, current.interpolator, current.layerPolicy)));
+        this.notifyOwners();
+        return this;
     }
 
     public AnimatorChainItem setAlpha(float alpha) {
-        synchronized (this) {
-            this.mHasAlpha = true;
-            this.mAlpha = alpha;
-            return this;
-        }
+        return this.setProperty(AnimatorChainProperty.ALPHA, alpha);
     }
 
     public AnimatorChainItem setInterpolator(TimeInterpolator interpolator) {
-        synchronized (this) {
-            this.mInterpolator = interpolator;
-            return this;
+        State current;
+        do {
+            current = this.mState.get();
+        } while (!this.mState.compareAndSet(current, new State(current.version + 1, current.mask,
+                current.values, current.delay, current.duration, interpolator, current.layerPolicy)));
+        this.notifyOwners();
+        return this;
+    }
+
+    /**
+     * Sets whether the view is rendered into a hardware layer while this item runs,
+     * overriding the policy of the chain.
+     *
+     * @param layerPolicy one of the {@code AnimatorChain.LAYER_POLICY_*} constants
+     * @return the {@link AnimatorChainItem} itself, allowing chained method calls
+     * @see AnimatorChain#setLayerPolicy(int)
+     */
+    public AnimatorChainItem setLayerPolicy(int layerPolicy) {
+        AnimatorChain.checkLayerPolicy(layerPolicy);
+
+        State current;
+        do {
+            current = this.mState.get();
+        } while (!this.mState.compareAndSet(current, new State(current.version + 1, current.mask,
+                current.values, current.delay, current.duration, current.interpolator, layerPolicy)));
+        this.notifyOwners();
+        return this;
+    }
+
+    /**
+     * Sets a curve that is expensive to evaluate, baked into a table of
+     * samples shared by all the items using the same curve.
+     *
+     * @param interpolator the curve
+     * @param samples      the number of samples: more samples give more precision for more memory
+     * @return the {@link AnimatorChainItem} itself, allowing chained method calls
+     * @see BakedInterpolator
+     */
+    public AnimatorChainItem setBakedInterpolator(TimeInterpolator interpolator, int samples) {
+        return this.setInterpolator(BakedInterpolator.bake(interpolator, samples));
+    }
+
+    // endregion
+
+    // region Package methods
+
+    /**
+     * Gets a counter that changes every time a property of the item is set,
+     * allowing to detect whether a previously read copy is stale.
+     *
+     * @return the current version of the item
+     */
+    int getVersion() {
+        return this.mState.get().version;
+    }
+
+    /**
+     * Registers a chain, or a stage, to be notified about every change of the item,
+     * if not already registered.<br/>
+     * The item holds its owners until they're unregistered.
+     *
+     * @param owner the owner to add
+     */
+    void addOwner(IAnimatorChainItemOwner owner) {
+        IAnimatorChainItemOwner[] current;
+        IAnimatorChainItemOwner[] next;
+        do {
+            current = this.mOwners.get();
+            if (indexOf(current, owner) >= 0) {
+                return;
+            }
+
+            next = Arrays.copyOf(current, current.length + 1);
+            next[current.length] = owner;
+        } while (!this.mOwners.compareAndSet(current, next));
+    }
+
+    /**
+     * Unregisters an owner, if registered.
+     *
+     * @param owner the owner to remove
+     */
+    void removeOwner(IAnimatorChainItemOwner owner) {
+        IAnimatorChainItemOwner[] current;
+        IAnimatorChainItemOwner[] next;
+        do {
+            current = this.mOwners.get();
+            int index = indexOf(current, owner);
+            if (index < 0) {
+                return;
+            }
+
+            next = new IAnimatorChainItemOwner[current.length - 1];
+            System.arraycopy(current, 0, next, 0, index);
+            System.arraycopy(current, index + 1, next, index, next.length - index);
+        } while (!this.mOwners.compareAndSet(current, next));
+    }
+
+    /**
+     * Notifies the owners of the item that a new version has been published.
+     */
+    void notifyOwners() {
+        for (IAnimatorChainItemOwner owner : this.mOwners.get()) {
+            owner.onItemChanged(this);
+        }
+    }
+
+    /**
+     * Copies all the properties of the item into the given row.<br/>
+     * The properties are read from a single published version of the item,
+     * so the row is never made of half-applied changes.
+     *
+     * @param row the row to fill
+     */
+    void readInto(CompiledAnimatorChain.Row row) {
+        State state = this.mState.get();
+
+        row.reset();
+        row.version = state.version;
+        row.duration = state.duration;
+        row.delay = state.delay;
+        row.interpolator = state.interpolator;
+        row.layerPolicy = state.layerPolicy;
+
+        for (int property = 0; property < AnimatorChainProperty.COUNT; property++) {
+            if ((state.mask & (1 << property)) != 0) {
+                row.set(property, state.values[property]);
+            }
+        }
+    }
+
+    /**
+     * Publishes a new version of the item with the given property set.<br/>
+     * Concurrent writers never block each other nor the readers: a writer
+     * losing the race simply retries on top of the newly published version.
+     *
+     * @param property one of the property identifiers
+     * @param value    the final value of the property
+     * @return the {@link AnimatorChainItem} itself, allowing chained method calls
+     */
+    AnimatorChainItem setProperty(int property, float value) {
+        State current;
+        State next;
+        do {
+            current = this.mState.get();
+
+            float[] values = current.values.clone();
+            values[property] = value;
+            next = new State(current.version + 1, current.mask | (1 << property), values, current.delay,
+                    current.duration, current.interpolator, current.layerPolicy);
+        } while (!this.mState.compareAndSet(current, next));
+        this.notifyOwners();
+        return this;
+    }
+
+    // endregion
+
+    // region Private methods
+
+    private static int indexOf(IAnimatorChainItemOwner[] owners, IAnimatorChainItemOwner owner) {
+        for (int i = 0; i < owners.length; i++) {
+            if (owners[i] == owner) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // endregion
+
+    // region Inner classes
+
+    /**
+     * An immutable version of all the properties of the item.<br/>
+     * The values array is never modified once the state has been published.
+     */
+    private static final class State {
+
+        final int version;
+        final int mask;
+        final float[] values;
+        final int delay;
+        final int duration;
+        final TimeInterpolator interpolator;
+        final int layerPolicy;
+
+        State(int version, int mask, float[] values, int delay, int duration, TimeInterpolator interpolator,
+              int layerPolicy) {
+            this.version = version;
+            this.mask = mask;
+            this.values = values;
+            this.delay = delay;
+            this.duration = duration;
+            this.interpolator = interpolator;
+            this.layerPolicy = layerPolicy;
         }
     }
 
@@ -0,0 +1,293 @@
+package it.spot.android.animatorchain;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * This class keeps the listeners registered to an {@link AnimatorChain}, each one
+ * with the mask of the events it's interested in.<br/>
+ * The listeners are stored in an array that is copied on every change, so that
+ * dispatching an event is an indexed loop that never allocates, and listeners can
+ * safely register or unregister themselves while an event is being dispatched.<br/>
+ * The listeners can be held through {@link WeakReference}s: a collected listener
+ * is simply skipped, and dropped at the next change.
+ *
+ * @author a.rinaldi
+ */
+final class AnimatorChainListenerRegistry {
+
+    private static final IAnimatorChainListener[] EMPTY_LISTENERS = new IAnimatorChainListener[0];
+    private static final int[] EMPTY_MASKS = new int[0];
+
+    private volatile Entries mEntries;
+    private boolean mWeak;
+
+    // region Construction
+
+    AnimatorChainListenerRegistry() {
+        super();
+
+        this.mEntries = new Entries(EMPTY_LISTENERS, EMPTY_MASKS);
+    }
+
+    // endregion
+
+    // region Package methods
+
+    /**
+     * Adds a listener, or changes the events mask of an already registered one.
+     *
+     * @param listener  the listener to add
+     * @param eventMask the events the listener is interested in
+     */
+    synchronized void add(IAnimatorChainListener listener, int eventMask) {
+        Entries entries = this.pruneCollected();
+
+        int index = entries.indexOf(listener);
+        if (index >= 0) {
+            int[] masks = entries.masks.clone();
+            masks[index] = eventMask;
+            this.mEntries = new Entries(entries.listeners, masks);
+            return;
+        }
+
+        int size = entries.listeners.length;
+        IAnimatorChainListener[] listeners = new IAnimatorChainListener[size + 1];
+        int[] masks = new int[size + 1];
+        System.arraycopy(entries.listeners, 0, listeners, 0, size);
+        System.arraycopy(entries.masks, 0, masks, 0, size);
+        listeners[size] = this.mWeak ? new WeakListener(listener) : listener;
+        masks[size] = eventMask;
+
+        this.mEntries = new Entries(listeners, masks);
+    }
+
+    /**
+     * Removes a listener, if registered.
+     *
+     * @param listener the listener to remove
+     */
+    synchronized void remove(IAnimatorChainListener listener) {
+        Entries entries = this.pruneCollected();
+
+        int index = entries.indexOf(listener);
+        if (index < 0) {
+            return;
+        }
+
+        int size = entries.listeners.length;
+        IAnimatorChainListener[] listeners = new IAnimatorChainListener[size - 1];
+        int[] masks = new int[size - 1];
+        System.arraycopy(entries.listeners, 0, listeners, 0, index);
+        System.arraycopy(entries.masks, 0, masks, 0, index);
+        System.arraycopy(entries.listeners, index + 1, listeners, index, size - index - 1);
+        System.arraycopy(entries.masks, index + 1, masks, index, size - index - 1);
+
+        this.mEntries = new Entries(listeners, masks);
+    }
+
+    /**
+     * Sets whether the listeners are held through {@link WeakReference}s,
+     * wrapping or unwrapping the ones already registered.
+     *
+     * @param weak {@code true} to hold the listeners weakly
+     */
+    synchronized void setWeak(boolean weak) {
+        if (weak == this.mWeak) {
+            return;
+        }
+
+        this.mWeak = weak;
+
+        Entries entries = this.pruneCollected();
+        IAnimatorChainListener[] listeners = new IAnimatorChainListener[entries.listeners.length];
+        for (int i = 0; i < listeners.length; i++) {
+            IAnimatorChainListener listener = entries.listeners[i];
+            if (weak) {
+                listeners[i] = new WeakListener(listener);
+            } else {
+                // a listener collected after pruning is kept as an empty wrapper
+                IAnimatorChainListener referent = ((WeakListener) listener).mReference.get();
+                listeners[i] = referent != null ? referent : listener;
+            }
+        }
+
+        this.mEntries = new Entries(listeners, entries.masks);
+    }
+
+    boolean isEmpty() {
+        return this.mEntries.listeners.length == 0;
+    }
+
+    void dispatchItemStart(int position) {
+        Entries entries = this.mEntries;
+        for (int i = 0; i < entries.listeners.length; i++) {
+            if ((entries.masks[i] & AnimatorChain.EVENT_ITEM_START) != 0) {
+                entries.listeners[i].onChainedItemStart(position);
+            }
+        }
+    }
+
+    void dispatchItemEnd(int position) {
+        Entries entries = this.mEntries;
+        for (int i = 0; i < entries.listeners.length; i++) {
+            if ((entries.masks[i] & AnimatorChain.EVENT_ITEM_END) != 0) {
+                entries.listeners[i].onChainedItemEnd(position);
+            }
+        }
+    }
+
+    void dispatchRepeat(int repeatCount) {
+        Entries entries = this.mEntries;
+        for (int i = 0; i < entries.listeners.length; i++) {
+            if ((entries.masks[i] & AnimatorChain.EVENT_REPEAT) != 0) {
+                ((IAnimatorChainEventListener) entries.listeners[i]).onChainRepeat(repeatCount);
+            }
+        }
+    }
+
+    void dispatchComplete() {
+        Entries entries = this.mEntries;
+        for (int i = 0; i < entries.listeners.length; i++) {
+            if ((entries.masks[i] & AnimatorChain.EVENT_COMPLETE) != 0) {
+                ((IAnimatorChainEventListener) entries.listeners[i]).onChainComplete();
+            }
+        }
+    }
+
+    // endregion
+
+    // region Private methods
+
+    /**
+     * Drops the listeners already collected, publishing the remaining ones.
+     *
+     * @return the remaining listeners
+     */
+    private Entries pruneCollected() {
+        Entries entries = this.mEntries;
+
+        int size = entries.listeners.length;
+        int alive = 0;
+        for (IAnimatorChainListener listener : entries.listeners) {
+            if (!(listener instanceof WeakListener) || !((WeakListener) listener).isCollected()) {
+                alive++;
+            }
+        }
+
+        if (alive == size) {
+            return entries;
+        }
+
+        IAnimatorChainListener[] listeners = new IAnimatorChainListener[alive];
+        int[] masks = new int[alive];
+        int index = 0;
+        for (int i = 0; i < size; i++) {
+            IAnimatorChainListener listener = entries.listeners[i];
+            if (!(listener instanceof WeakListener) || !((WeakListener) listener).isCollected()) {
+                listeners[index] = listener;
+                masks[index] = entries.masks[i];
+                index++;
+            }
+        }
+
+        this.mEntries = new Entries(listeners, masks);
+        return this.mEntries;
+    }
+
+    // endregion
+
+    // region Inner classes
+
+    /**
+     * A listener forwarding the events to another one, held through a {@link WeakReference}.<br/>
+     * It's equal to the listener it wraps, so that it can be found when unregistering.
+     */
+    private static final class WeakListener implements IAnimatorChainEventListener {
+
+        private final WeakReference<IAnimatorChainListener> mReference;
+
+        WeakListener(IAnimatorChainListener listener) {
+            this.mReference = new WeakReference<IAnimatorChainListener>(listener);
+        }
+
+        boolean isCollected() {
+            return this.mReference.get() == null;
+        }
+
+        @Override
+        public void onChainedItemStart(int position) {
+            IAnimatorChainListener listener = this.mReference.get();
+            if (listener != null) {
+                listener.onChainedItemStart(position);
+            }
+        }
+
+        @Override
+        public void onChainedItemEnd(int position) {
+            IAnimatorChainListener listener = this.mReference.get();
+            if (listener != null) {
+                listener.onChainedItemEnd(position);
+            }
+        }
+
+        @Override
+        public void onChainRepeat(int repeatCount) {
+            IAnimatorChainListener listener = this.mReference.get();
+            if (listener instanceof IAnimatorChainEventListener) {
+                ((IAnimatorChainEventListener) listener).onChainRepeat(repeatCount);
+            }
+        }
+
+        @Override
+        public void onChainComplete() {
+            IAnimatorChainListener listener = this.mReference.get();
+            if (listener instanceof IAnimatorChainEventListener) {
+                ((IAnimatorChainEventListener) listener).onChainComplete();
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            Object listener = this.mReference.get();
+            if (o instanceof WeakListener) {
+                return listener != null && listener == ((WeakListener) o).mReference.get();
+            }
+            return listener != null && listener.equals(o);
+        }
+
+        @Override
+        public int hashCode() {
+            Object listener = this.mReference.get();
+            return listener != null ? listener.hashCode() : 0;
+        }
+    }
+
+    /**
+     * An immutable pair of arrays, published at once.
+     */
+    private static final class Entries {
+
+        final IAnimatorChainListener[] listeners;
+        final int[] masks;
+
+        Entries(IAnimatorChainListener[] listeners, int[] masks) {
+            this.listeners = listeners;
+            this.masks = masks;
+        }
+
+        int indexOf(IAnimatorChainListener listener) {
+            for (int i = 0; i < this.listeners.length; i++) {
+                if (this.listeners[i].equals(listener)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    // endregion
+}
@@ -0,0 +1,135 @@
+package it.spot.android.animatorchain;
+
+import android.content.Context;
+import android.util.LruCache;
+
+import java.io.IOException;
+
+/**
+ * This class loads the chains stored by {@link AnimatorChainFormat} in raw resources or assets,
+ * keeping a bounded number of them parsed, so that a chain is read once and every following
+ * load only creates a new {@link AnimatorChain}.<br/>
+ * A chain is read the first time it's loaded, and the least recently used one is dropped when
+ * the loader is full. Every load creates new items, so a loaded chain can be changed without
+ * affecting the other chains loaded from the same data. All the methods are thread safe, so the
+ * chains can be loaded ahead on a background thread; a process-wide instance is available
+ * through {@link #getDefault()}.
+ *
+ * @author a.rinaldi
+ */
+public final class AnimatorChainLoader {
+
+    private static final int DEFAULT_MAX_SIZE = 32;
+
+    private static AnimatorChainLoader sDefault;
+
+    private final LruCache<String, AnimatorChainFormat.Definition> mDefinitions;
+
+    // region Construction
+
+    /**
+     * @param maxSize the maximum number of parsed chains kept
+     */
+    public AnimatorChainLoader(int maxSize) {
+        super();
+
+        this.mDefinitions = new LruCache<String, AnimatorChainFormat.Definition>(maxSize);
+    }
+
+    /**
+     * Gets the process-wide loader, keeping up to 32 parsed chains.
+     *
+     * @return the loader
+     */
+    public static synchronized AnimatorChainLoader getDefault() {
+        if (sDefault == null) {
+            sDefault = new AnimatorChainLoader(DEFAULT_MAX_SIZE);
+        }
+        return sDefault;
+    }
+
+    // endregion
+
+    // region Public methods
+
+    /**
+     * Loads a chain from a raw resource, reading it only if not already parsed.
+     *
+     * @param context  any context of the application
+     * @param rawResId the id of the raw resource
+     * @return a new chain
+     * @throws IOException if the resource can't be read or doesn't contain a chain
+     */
+    public AnimatorChain loadRawResource(Context context, int rawResId) throws IOException {
+        String key = getRawResourceKey(rawResId);
+
+        AnimatorChainFormat.Definition definition = this.mDefinitions.get(key);
+        if (definition == null) {
+            definition = AnimatorChainFormat.readDefinition(context.getResources(), rawResId);
+            this.mDefinitions.put(key, definition);
+        }
+        return definition.newChain();
+    }
+
+    /**
+     * Loads a chain from an asset, reading it only if not already parsed.
+     *
+     * @param context any context of the application
+     * @param path    the path of the asset
+     * @return a new chain
+     * @throws IOException if the asset can't be read or doesn't contain a chain
+     */
+    public AnimatorChain loadAsset(Context context, String path) throws IOException {
+        String key = getAssetKey(path);
+
+        AnimatorChainFormat.Definition definition = this.mDefinitions.get(key);
+        if (definition == null) {
+            definition = AnimatorChainFormat.readDefinition(context.getAssets(), path);
+            this.mDefinitions.put(key, definition);
+        }
+        return definition.newChain();
+    }
+
+    /**
+     * Drops a parsed raw resource, so that it's read again when next loaded.
+     *
+     * @param rawResId the id of the raw resource
+     */
+    public void removeRawResource(int rawResId) {
+        this.mDefinitions.remove(getRawResourceKey(rawResId));
+    }
+
+    /**
+     * Drops a parsed asset, so that it's read again when next loaded.
+     *
+     * @param path the path of the asset
+     */
+    public void removeAsset(String path) {
+        this.mDefinitions.remove(getAssetKey(path));
+    }
+
+    /**
+     * Drops all the parsed chains.
+     */
+    public void clear() {
+        this.mDefinitions.evictAll();
+    }
+
+    public int size() {
+        return this.mDefinitions.size();
+    }
+
+    // endregion
+
+    // region Private methods
+
+    private static String getRawResourceKey(int rawResId) {
+        return "raw:" + rawResId;
+    }
+
+    private static String getAssetKey(String path) {
+        return "asset:" + path;
+    }
+
+    // endregion
+}
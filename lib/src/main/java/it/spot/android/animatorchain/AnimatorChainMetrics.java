@@ -0,0 +1,263 @@
+package it.spot.android.animatorchain;
+
+/**
+ * This class collects timing metrics about the executions of an {@link AnimatorChain}
+ * it has been set to through {@link AnimatorChain#setMetrics(AnimatorChainMetrics)}.<br/>
+ * For every chained item, and across all the repetitions, it records:
+ * <ul>
+ * <li>the planned duration and the actual one, measured from the start to the end notification;</li>
+ * <li>the gap between the end of the previous item and the start of this one;</li>
+ * <li>the frames rendered and dropped while the item was running (timeline mode only);</li>
+ * </ul>
+ * together with the time spent dispatching the events to the listeners.<br/>
+ * All the times are recorded in microseconds into {@link AnimatorChainHistogram}s, which
+ * can be polled at any time from the main thread. When no metrics are set, the chain
+ * doesn't pay anything more than a {@code null} check.
+ *
+ * @author a.rinaldi
+ */
+public class AnimatorChainMetrics {
+
+    private static final long NANOS_PER_MICRO = 1000L;
+    private static final long DEFAULT_FRAME_INTERVAL = 16666667L;
+
+    private long mFrameInterval;
+
+    private int[] mPlannedDurations;
+    private AnimatorChainHistogram[] mActualDurations;
+    private AnimatorChainHistogram[] mGaps;
+    private long[] mRenderedFrames;
+    private long[] mDroppedFrames;
+
+    private final AnimatorChainHistogram mDispatchTimes;
+    private long mRepeats;
+
+    private long mItemStartTime;
+    private long mLastItemEndTime;
+    private long mLastFrameTime;
+
+    // region Construction
+
+    public AnimatorChainMetrics() {
+        super();
+
+        this.mFrameInterval = DEFAULT_FRAME_INTERVAL;
+
+        this.mPlannedDurations = new int[0];
+        this.mActualDurations = new AnimatorChainHistogram[0];
+        this.mGaps = new AnimatorChainHistogram[0];
+        this.mRenderedFrames = new long[0];
+        this.mDroppedFrames = new long[0];
+        this.mDispatchTimes = new AnimatorChainHistogram();
+        this.mLastItemEndTime = -1;
+        this.mLastFrameTime = -1;
+    }
+
+    // endregion
+
+    // region Public methods
+
+    /**
+     * Sets the expected interval between two frames, used to count the dropped frames.
+     *
+     * @param frameIntervalNanos the interval, in nanoseconds; it defaults to 60 frames per second
+     * @return the {@link AnimatorChainMetrics} itself, allowing chained method calls
+     */
+    public AnimatorChainMetrics setFrameInterval(long frameIntervalNanos) {
+        this.mFrameInterval = frameIntervalNanos;
+        return this;
+    }
+
+    /**
+     * Gets the number of items metrics have been recorded for.
+     *
+     * @return the number of items
+     */
+    public int getItemCount() {
+        return this.mPlannedDurations.length;
+    }
+
+    /**
+     * Gets the last planned duration of an item.
+     *
+     * @param position the index of the item
+     * @return the duration, in milliseconds
+     */
+    public int getPlannedDuration(int position) {
+        return this.mPlannedDurations[position];
+    }
+
+    /**
+     * Gets the actual durations of an item, in microseconds.
+     *
+     * @param position the index of the item
+     * @return the histogram of the durations
+     */
+    public AnimatorChainHistogram getActualDurations(int position) {
+        return this.mActualDurations[position];
+    }
+
+    /**
+     * Gets the gaps between the end of the previous item and the start of
+     * an item, in microseconds.
+     *
+     * @param position the index of the item
+     * @return the histogram of the gaps
+     */
+    public AnimatorChainHistogram getGaps(int position) {
+        return this.mGaps[position];
+    }
+
+    public long getRenderedFrames(int position) {
+        return this.mRenderedFrames[position];
+    }
+
+    public long getDroppedFrames(int position) {
+        return this.mDroppedFrames[position];
+    }
+
+    /**
+     * Gets the time spent notifying every event to all the listeners, in microseconds.
+     *
+     * @return the histogram of the dispatch times
+     */
+    public AnimatorChainHistogram getDispatchTimes() {
+        return this.mDispatchTimes;
+    }
+
+    /**
+     * Gets the times the chain has been restarted.
+     *
+     * @return the number of repetitions
+     */
+    public long getRepeats() {
+        return this.mRepeats;
+    }
+
+    /**
+     * Removes all the recorded metrics.
+     */
+    public void reset() {
+        for (int i = 0; i < this.mPlannedDurations.length; i++) {
+            this.mActualDurations[i].reset();
+            this.mGaps[i].reset();
+            this.mRenderedFrames[i] = 0;
+            this.mDroppedFrames[i] = 0;
+        }
+
+        this.mDispatchTimes.reset();
+        this.mRepeats = 0;
+        this.mLastItemEndTime = -1;
+        this.mLastFrameTime = -1;
+    }
+
+    /**
+     * Writes all the metrics in a human readable form, one line per item.
+     *
+     * @return the metrics
+     */
+    public String export() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("repeats=").append(this.mRepeats)
+                .append(" dispatch[").append(this.mDispatchTimes).append("]\n");
+
+        for (int i = 0; i < this.mPlannedDurations.length; i++) {
+            builder.append("item ").append(i)
+                    .append(" planned=").append(this.mPlannedDurations[i] * 1000L)
+                    .append(" actual[").append(this.mActualDurations[i])
+                    .append("] gap[").append(this.mGaps[i])
+                    .append("] frames=").append(this.mRenderedFrames[i])
+                    .append(" dropped=").append(this.mDroppedFrames[i])
+                    .append('\n');
+        }
+        return builder.toString();
+    }
+
+    // endregion
+
+    // region Package methods
+
+    void onItemStart(int position, long timeNanos) {
+        this.ensureCapacity(position);
+
+        if (this.mLastItemEndTime >= 0) {
+            this.mGaps[position].record((timeNanos - this.mLastItemEndTime) / NANOS_PER_MICRO);
+        }
+        this.mItemStartTime = timeNanos;
+    }
+
+    void onItemEnd(int position, int plannedDuration, long timeNanos) {
+        this.ensureCapacity(position);
+
+        this.mPlannedDurations[position] = plannedDuration;
+        this.mActualDurations[position].record((timeNanos - this.mItemStartTime) / NANOS_PER_MICRO);
+        this.mLastItemEndTime = timeNanos;
+    }
+
+    void onFrame(int position, long frameTimeNanos) {
+        this.ensureCapacity(position);
+
+        this.mRenderedFrames[position]++;
+        if (this.mLastFrameTime >= 0) {
+            long skipped = (frameTimeNanos - this.mLastFrameTime + this.mFrameInterval / 2) / this.mFrameInterval - 1;
+            if (skipped > 0) {
+                this.mDroppedFrames[position] += skipped;
+            }
+        }
+        this.mLastFrameTime = frameTimeNanos;
+    }
+
+    void onDispatch(long durationNanos) {
+        this.mDispatchTimes.record(durationNanos / NANOS_PER_MICRO);
+    }
+
+    void onRepeat() {
+        this.mRepeats++;
+    }
+
+    /**
+     * Forgets the last item end and frame times, so that a pause or a new
+     * execution don't count as gaps or dropped frames.
+     */
+    void onDiscontinuity() {
+        this.mLastItemEndTime = -1;
+        this.mLastFrameTime = -1;
+    }
+
+    // endregion
+
+    // region Private methods
+
+    private void ensureCapacity(int position) {
+        int size = this.mPlannedDurations.length;
+        if (position < size) {
+            return;
+        }
+
+        int newSize = position + 1;
+        int[] plannedDurations = new int[newSize];
+        AnimatorChainHistogram[] actualDurations = new AnimatorChainHistogram[newSize];
+        AnimatorChainHistogram[] gaps = new AnimatorChainHistogram[newSize];
+        long[] renderedFrames = new long[newSize];
+        long[] droppedFrames = new long[newSize];
+
+        System.arraycopy(this.mPlannedDurations, 0, plannedDurations, 0, size);
+        System.arraycopy(this.mActualDurations, 0, actualDurations, 0, size);
+        System.arraycopy(this.mGaps, 0, gaps, 0, size);
+        System.arraycopy(this.mRenderedFrames, 0, renderedFrames, 0, size);
+        System.arraycopy(this.mDroppedFrames, 0, droppedFrames, 0, size);
+
+        for (int i = size; i < newSize; i++) {
+            actualDurations[i] = new AnimatorChainHistogram();
+            gaps[i] = new AnimatorChainHistogram();
+        }
+
+        this.mPlannedDurations = plannedDurations;
+        this.mActualDurations = actualDurations;
+        this.mGaps = gaps;
+        this.mRenderedFrames = renderedFrames;
+        this.mDroppedFrames = droppedFrames;
+    }
+
+    // endregion
+}
@@ -0,0 +1,165 @@
+package it.spot.android.animatorchain;
+
+import android.view.View;
+import android.view.ViewPropertyAnimator;
+
+/**
+ * This class collects the identifiers of all the properties an
+ * {@link AnimatorChainItem} can animate.<br/>
+ * The identifiers are contiguous indexes, so that they can be used
+ * to address plain arrays of values.
+ *
+ * @author a.rinaldi
+ */
+public final class AnimatorChainProperty {
+
+    public static final int TRANSLATION_X = 0;
+    public static final int TRANSLATION_Y = 1;
+    public static final int ROTATION = 2;
+    public static final int ROTATION_X = 3;
+    public static final int ROTATION_Y = 4;
+    public static final int SCALE_X = 5;
+    public static final int SCALE_Y = 6;
+    public static final int X = 7;
+    public static final int Y = 8;
+    public static final int ALPHA = 9;
+
+    /**
+     * The number of the available properties.
+     */
+    public static final int COUNT = 10;
+
+    // region Construction
+
+    private AnimatorChainProperty() {
+        super();
+    }
+
+    // endregion
+
+    // region Package methods
+
+    /**
+     * Sets up the given animator to animate a property to a value.
+     *
+     * @param animator the {@link ViewPropertyAnimator} to set up
+     * @param property one of the property identifiers
+     * @param value    the final value of the property
+     */
+    static void animate(ViewPropertyAnimator animator, int property, float value) {
+        switch (property) {
+            case TRANSLATION_X:
+                animator.translationX(value);
+                break;
+            case TRANSLATION_Y:
+                animator.translationY(value);
+                break;
+            case ROTATION:
+                animator.rotation(value);
+                break;
+            case ROTATION_X:
+                animator.rotationX(value);
+                break;
+            case ROTATION_Y:
+                animator.rotationY(value);
+                break;
+            case SCALE_X:
+                animator.scaleX(value);
+                break;
+            case SCALE_Y:
+                animator.scaleY(value);
+                break;
+            case X:
+                animator.x(value);
+                break;
+            case Y:
+                animator.y(value);
+                break;
+            case ALPHA:
+                animator.alpha(value);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Reads the value of a property of a view.
+     *
+     * @param view     the view to read
+     * @param property one of the property identifiers
+     * @return the current value of the property
+     */
+    static float get(View view, int property) {
+        switch (property) {
+            case TRANSLATION_X:
+                return view.getTranslationX();
+            case TRANSLATION_Y:
+                return view.getTranslationY();
+            case ROTATION:
+                return view.getRotation();
+            case ROTATION_X:
+                return view.getRotationX();
+            case ROTATION_Y:
+                return view.getRotationY();
+            case SCALE_X:
+                return view.getScaleX();
+            case SCALE_Y:
+                return view.getScaleY();
+            case X:
+                return view.getX();
+            case Y:
+                return view.getY();
+            case ALPHA:
+                return view.getAlpha();
+            default:
+                return 0f;
+        }
+    }
+
+    /**
+     * Sets the value of a property of a view.
+     *
+     * @param view     the view to change
+     * @param property one of the property identifiers
+     * @param value    the new value of the property
+     */
+    static void set(View view, int property, float value) {
+        switch (property) {
+            case TRANSLATION_X:
+                view.setTranslationX(value);
+                break;
+            case TRANSLATION_Y:
+                view.setTranslationY(value);
+                break;
+            case ROTATION:
+                view.setRotation(value);
+                break;
+            case ROTATION_X:
+                view.setRotationX(value);
+                break;
+            case ROTATION_Y:
+                view.setRotationY(value);
+                break;
+            case SCALE_X:
+                view.setScaleX(value);
+                break;
+            case SCALE_Y:
+                view.setScaleY(value);
+                break;
+            case X:
+                view.setX(value);
+                break;
+            case Y:
+                view.setY(value);
+                break;
+            case ALPHA:
+                view.setAlpha(value);
+                break;
+            default:
+                break;
+        }
+    }
+
+    // endregion
+}
@@ -0,0 +1,357 @@
+package it.spot.android.animatorchain;
+
+import android.content.Context;
+import android.os.Build;
+import android.os.PowerManager;
+import android.os.SystemClock;
+
+/**
+ * This class lowers the cost of the chains using it while the device is struggling,
+ * i.e. while the recent frames go past the budget or the system is in power save mode.<br/>
+ * It's set through {@link AnimatorChain#setQualityPolicy(AnimatorChainQualityPolicy)}, and
+ * decides the degradations of every item when the item starts, so that an item never changes
+ * its timing halfway. The available degradations are:
+ * <ul>
+ * <li>{@link #DEGRADATION_COLLAPSE_STEPS}: the intermediate items shorter than the minimum step
+ * duration jump to their end state, instead of being animated;</li>
+ * <li>{@link #DEGRADATION_SHORTEN_DURATIONS}: delays and durations are scaled down;</li>
+ * <li>{@link #DEGRADATION_DROP_LAYERS}: the views are not rendered into hardware layers.</li>
+ * </ul>
+ * The last item of every iteration and the stages keep their timing. The frames are measured by
+ * the running chains, in both the execution modes, and by the {@link AnimatorChainScheduler} of
+ * the chains started through one. The degradations applied so far are counted, and reported by the chains
+ * through {@link AnimatorChain#getAppliedDegradations()}. It must be used on the main thread.
+ *
+ * @author a.rinaldi
+ */
+public final class AnimatorChainQualityPolicy {
+
+    /**
+     * The short intermediate items jump to their end state.
+     */
+    public static final int DEGRADATION_COLLAPSE_STEPS = 1;
+
+    /**
+     * The delays and the durations of the items are scaled down.
+     */
+    public static final int DEGRADATION_SHORTEN_DURATIONS = 1 << 1;
+
+    /**
+     * The views are never rendered into hardware layers.
+     */
+    public static final int DEGRADATION_DROP_LAYERS = 1 << 2;
+
+    /**
+     * All the degradations.
+     */
+    public static final int DEGRADATION_ALL = DEGRADATION_COLLAPSE_STEPS | DEGRADATION_SHORTEN_DURATIONS
+            | DEGRADATION_DROP_LAYERS;
+
+    /**
+     * The quality is lowered while the recent frames go past the budget.
+     */
+    public static final int TRIGGER_FRAME_PRESSURE = 1;
+
+    /**
+     * The quality is lowered while the system is in power save mode.
+     */
+    public static final int TRIGGER_POWER_SAVE = 1 << 1;
+
+    private static final int DEFAULT_MIN_STEP_DURATION = 100;
+    private static final float DEFAULT_DURATION_SCALE = 0.5f;
+    private static final long DEFAULT_FRAME_BUDGET = 16666667L;
+
+    /**
+     * The number of recent frames checked against the budget.
+     */
+    private static final int RECENT_FRAMES = 8;
+
+    /**
+     * The number of recent frames past the budget that lower the quality.
+     */
+    private static final int OVER_BUDGET_THRESHOLD = 2;
+
+    /**
+     * The intervals between frames longer than this are pauses, not slow frames.
+     */
+    private static final long MAX_FRAME_INTERVAL = 500000000L;
+
+    private static final long POWER_SAVE_CHECK_INTERVAL = 1000L;
+
+    private final PowerManager mPowerManager;
+
+    private int mDegradations;
+    private int mTriggers;
+    private int mMinStepDuration;
+    private float mDurationScale;
+    private long mFrameBudget;
+
+    private long mLastFrameTime;
+    private int mRecentOverBudgetFrames;
+    private boolean mPowerSave;
+    private long mPowerSaveCheckTime;
+
+    private long mCollapsedSteps;
+    private long mShortenedSteps;
+    private long mDroppedLayers;
+
+    // region Construction
+
+    /**
+     * Creates a policy triggered by the frame pressure only.
+     */
+    public AnimatorChainQualityPolicy() {
+        this(null);
+    }
+
+    /**
+     * Creates a policy triggered by the frame pressure and by the power save mode.
+     *
+     * @param context any context, used to reach the {@link PowerManager}
+     */
+    public AnimatorChainQualityPolicy(Context context) {
+        super();
+
+        this.mPowerManager = context != null
+                ? (PowerManager) context.getApplicationContext().getSystemService(Context.POWER_SERVICE) : null;
+        this.mDegradations = DEGRADATION_ALL;
+        this.mTriggers = TRIGGER_FRAME_PRESSURE | TRIGGER_POWER_SAVE;
+        this.mMinStepDuration = DEFAULT_MIN_STEP_DURATION;
+        this.mDurationScale = DEFAULT_DURATION_SCALE;
+        this.mFrameBudget = DEFAULT_FRAME_BUDGET;
+        this.mLastFrameTime = -1;
+        this.mPowerSaveCheckTime = -POWER_SAVE_CHECK_INTERVAL;
+    }
+
+    // endregion
+
+    // region Public methods
+
+    /**
+     * Sets the degradations applied while the quality is lowered.
+     *
+     * @param degradations a combination of the {@code DEGRADATION_*} constants; it defaults to all of them
+     * @return the {@link AnimatorChainQualityPolicy} itself, allowing chained method calls
+     */
+    public AnimatorChainQualityPolicy setDegradations(int degradations) {
+        this.mDegradations = degradations;
+        return this;
+    }
+
+    /**
+     * Sets the conditions lowering the quality.
+     *
+     * @param triggers a combination of the {@code TRIGGER_*} constants; it defaults to all of them
+     * @return the {@link AnimatorChainQualityPolicy} itself, allowing chained method calls
+     */
+    public AnimatorChainQualityPolicy setTriggers(int triggers) {
+        this.mTriggers = triggers;
+        return this;
+    }
+
+    /**
+     * Sets the duration under which an intermediate item is collapsed into its end state.
+     *
+     * @param minStepDurationMs the duration, in milliseconds; it defaults to 100
+     * @return the {@link AnimatorChainQualityPolicy} itself, allowing chained method calls
+     */
+    public AnimatorChainQualityPolicy setMinStepDuration(int minStepDurationMs) {
+        this.mMinStepDuration = minStepDurationMs;
+        return this;
+    }
+
+    /**
+     * Sets the factor the delays and durations are multiplied by when shortened.
+     *
+     * @param durationScale the factor, between {@code 0} and {@code 1}; it defaults to {@code 0.5}
+     * @return the {@link AnimatorChainQualityPolicy} itself, allowing chained method calls
+     */
+    public AnimatorChainQualityPolicy setDurationScale(float durationScale) {
+        if (durationScale < 0f || durationScale > 1f) {
+            throw new IllegalArgumentException("The scale must be between 0 and 1: " + durationScale);
+        }
+
+        this.mDurationScale = durationScale;
+        return this;
+    }
+
+    /**
+     * Sets the time a frame is expected to take.
+     *
+     * @param frameBudgetNanos the budget, in nanoseconds; it defaults to 60 frames per second
+     * @return the {@link AnimatorChainQualityPolicy} itself, allowing chained method calls
+     */
+    public AnimatorChainQualityPolicy setFrameBudget(long frameBudgetNanos) {
+        this.mFrameBudget = frameBudgetNanos;
+        return this;
+    }
+
+    /**
+     * Gets the conditions currently lowering the quality.
+     *
+     * @return a combination of the {@code TRIGGER_*} constants, {@code 0} when at full quality
+     */
+    public int getActiveTriggers() {
+        return this.getActiveTriggers(false);
+    }
+
+    /**
+     * Gets the number of items collapsed into their end state so far.
+     *
+     * @return the number of items
+     */
+    public long getCollapsedSteps() {
+        return this.mCollapsedSteps;
+    }
+
+    /**
+     * Gets the number of items played with a shortened timing so far.
+     *
+     * @return the number of items
+     */
+    public long getShortenedSteps() {
+        return this.mShortenedSteps;
+    }
+
+    /**
+     * Gets the number of items played without the hardware layer they needed so far.
+     *
+     * @return the number of items
+     */
+    public long getDroppedLayers() {
+        return this.mDroppedLayers;
+    }
+
+    @Override
+    public String toString() {
+        return "triggers=" + this.getActiveTriggers()
+                + " collapsed=" + this.mCollapsedSteps
+                + " shortened=" + this.mShortenedSteps
+                + " droppedLayers=" + this.mDroppedLayers;
+    }
+
+    // endregion
+
+    // region Package methods
+
+    /**
+     * Records the time of a frame drawn while a chain runs.<br/>
+     * Many chains can report the same frame: only the intervals between
+     * different frames are checked against the budget.
+     *
+     * @param frameTimeNanos the frame time, in nanoseconds
+     */
+    void onFrame(long frameTimeNanos) {
+        if (frameTimeNanos <= this.mLastFrameTime) {
+            return;
+        }
+
+        if (this.mLastFrameTime >= 0) {
+            long interval = frameTimeNanos - this.mLastFrameTime;
+            if (interval <= MAX_FRAME_INTERVAL) {
+                boolean overBudget = interval > this.mFrameBudget + this.mFrameBudget / 2;
+                this.mRecentOverBudgetFrames = ((this.mRecentOverBudgetFrames << 1) | (overBudget ? 1 : 0))
+                        & ((1 << RECENT_FRAMES) - 1);
+            }
+        }
+        this.mLastFrameTime = frameTimeNanos;
+    }
+
+    /**
+     * Decides the degradations of an item that is starting.
+     *
+     * @param delay      the delay of the item, in milliseconds
+     * @param duration   the duration of the item, in milliseconds
+     * @param timed      {@code false} if the timing of the item must be kept, as for the
+     *                   last item of an iteration or for a stage
+     * @param layer      {@code true} if the item needs a hardware layer
+     * @param overBudget {@code true} if the frames are known to be over budget by someone else
+     * @return a combination of the {@code DEGRADATION_*} constants
+     */
+    int degrade(long delay, long duration, boolean timed, boolean layer, boolean overBudget) {
+        if (this.getActiveTriggers(overBudget) == 0) {
+            return 0;
+        }
+
+        int degradations = 0;
+
+        if (timed && (this.mDegradations & DEGRADATION_COLLAPSE_STEPS) != 0 && duration < this.mMinStepDuration) {
+            degradations |= DEGRADATION_COLLAPSE_STEPS;
+            this.mCollapsedSteps++;
+        } else if (timed && (this.mDegradations & DEGRADATION_SHORTEN_DURATIONS) != 0
+                && (delay > 0 || duration > 0)) {
+            degradations |= DEGRADATION_SHORTEN_DURATIONS;
+            this.mShortenedSteps++;
+        }
+
+        if (layer && (this.mDegradations & DEGRADATION_DROP_LAYERS) != 0) {
+            degradations |= DEGRADATION_DROP_LAYERS;
+            this.mDroppedLayers++;
+        }
+
+        return degradations;
+    }
+
+    /**
+     * Gets the delay of an item once degraded.
+     *
+     * @param delay        the delay, in any unit
+     * @param degradations the degradations of the item
+     * @return the delay, in the same unit
+     */
+    long getDelay(long delay, int degradations) {
+        if ((degradations & DEGRADATION_COLLAPSE_STEPS) != 0) {
+            return 0;
+        }
+        if ((degradations & DEGRADATION_SHORTEN_DURATIONS) != 0) {
+            return (long) (delay * this.mDurationScale);
+        }
+        return delay;
+    }
+
+    /**
+     * Gets the duration of an item once degraded.
+     *
+     * @param duration     the duration, in any unit
+     * @param degradations the degradations of the item
+     * @return the duration, in the same unit
+     */
+    long getDuration(long duration, int degradations) {
+        return this.getDelay(duration, degradations);
+    }
+
+    // endregion
+
+    // region Private methods
+
+    private int getActiveTriggers(boolean overBudget) {
+        int triggers = 0;
+
+        if ((this.mTriggers & TRIGGER_FRAME_PRESSURE) != 0
+                && (overBudget || Integer.bitCount(this.mRecentOverBudgetFrames) >= OVER_BUDGET_THRESHOLD)) {
+            triggers |= TRIGGER_FRAME_PRESSURE;
+        }
+        if ((this.mTriggers & TRIGGER_POWER_SAVE) != 0 && this.isPowerSaveMode()) {
+            triggers |= TRIGGER_POWER_SAVE;
+        }
+        return triggers;
+    }
+
+    /**
+     * Tells whether the system is in power save mode, asking it at most once per second.
+     */
+    private boolean isPowerSaveMode() {
+        if (this.mPowerManager == null || Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP) {
+            return false;
+        }
+
+        long now = SystemClock.uptimeMillis();
+        if (now - this.mPowerSaveCheckTime >= POWER_SAVE_CHECK_INTERVAL) {
+            this.mPowerSave = this.mPowerManager.isPowerSaveMode();
+            this.mPowerSaveCheckTime = now;
+        }
+        return this.mPowerSave;
+    }
+
+    // endregion
+}
@@ -0,0 +1,364 @@
+package it.spot.android.animatorchain;
+
+import android.view.Choreographer;
+
+import java.util.ArrayList;
+
+/**
+ * This class coordinates the executions of many {@link AnimatorChain}s, so that
+ * together they don't go past the frame budget.<br/>
+ * Chains are registered through {@link AnimatorChain#setScheduler(AnimatorChainScheduler)},
+ * or all at once through {@link AnimatorChain#setDefaultScheduler(AnimatorChainScheduler)}:
+ * their executions are then started by the scheduler, which
+ * <ul>
+ * <li>caps the number of chains running at the same time, queueing the others;</li>
+ * <li>starts the queued chains by priority, and in order of arrival within the same priority;</li>
+ * <li>starts the low priority chains only at the beginning of a frame, all together,
+ * and delays them while the recent frames have gone past the budget.</li>
+ * </ul>
+ * Normal and high priority chains are started right away when a slot is free. A chain
+ * leaves its slot when it completes or is cancelled. A queued chain holding its views
+ * weakly, through {@link AnimatorChain#enableWeakReferences(boolean)}, doesn't keep them
+ * alive, and leaves the queue without starting as soon as one of them is collected.
+ * It must be used on the main thread.
+ *
+ * @author a.rinaldi
+ */
+public final class AnimatorChainScheduler implements Choreographer.FrameCallback {
+
+    /**
+     * The priority of the chains that can be delayed while frames go past the budget.
+     */
+    public static final int PRIORITY_LOW = 0;
+
+    /**
+     * The priority of the chains started right away when a slot is free. This is the default priority.
+     */
+    public static final int PRIORITY_NORMAL = 1;
+
+    /**
+     * The priority of the chains started before all the others.
+     */
+    public static final int PRIORITY_HIGH = 2;
+
+    private static final int DEFAULT_MAX_RUNNING_CHAINS = 16;
+    private static final long DEFAULT_FRAME_BUDGET = 16666667L;
+    private static final long DEFAULT_MAX_DEFERRAL = 500000000L;
+    private static final long NANOS_PER_MICRO = 1000L;
+
+    /**
+     * The number of recent frames checked against the budget.
+     */
+    private static final int RECENT_FRAMES = 8;
+
+    /**
+     * The number of recent frames past the budget that make the low priority starts wait.
+     */
+    private static final int OVER_BUDGET_THRESHOLD = 2;
+
+    private static AnimatorChainScheduler sInstance;
+
+    private final ArrayList<Entry> mQueue;
+    private final ArrayList<AnimatorChain> mRunning;
+
+    private int mMaxRunningChains;
+    private long mFrameBudget;
+    private long mMaxDeferral;
+
+    private boolean mFrameCallbackPosted;
+    private long mLastFrameTime;
+    private int mRecentOverBudgetFrames;
+
+    private long mStartedCount;
+    private long mDeferredFrames;
+    private final AnimatorChainHistogram mQueueTimes;
+
+    // region Construction
+
+    public AnimatorChainScheduler() {
+        super();
+
+        this.mQueue = new ArrayList<Entry>();
+        this.mRunning = new ArrayList<AnimatorChain>();
+        this.mMaxRunningChains = DEFAULT_MAX_RUNNING_CHAINS;
+        this.mFrameBudget = DEFAULT_FRAME_BUDGET;
+        this.mMaxDeferral = DEFAULT_MAX_DEFERRAL;
+        this.mLastFrameTime = -1;
+        this.mQueueTimes = new AnimatorChainHistogram();
+    }
+
+    /**
+     * Gets the app-wide scheduler.
+     *
+     * @return the scheduler
+     */
+    public static AnimatorChainScheduler getInstance() {
+        if (sInstance == null) {
+            sInstance = new AnimatorChainScheduler();
+        }
+        return sInstance;
+    }
+
+    // endregion
+
+    // region Public methods
+
+    /**
+     * Sets the maximum number of chains running at the same time.
+     *
+     * @param maxRunningChains the maximum number of chains, at least {@code 1}; it defaults to 16
+     * @return the {@link AnimatorChainScheduler} itself, allowing chained method calls
+     */
+    public AnimatorChainScheduler setMaxRunningChains(int maxRunningChains) {
+        if (maxRunningChains < 1) {
+            throw new IllegalArgumentException("At least one chain must be able to run: " + maxRunningChains);
+        }
+
+        this.mMaxRunningChains = maxRunningChains;
+        this.startQueuedChains(false);
+        return this;
+    }
+
+    /**
+     * Sets the time a frame is expected to take.
+     *
+     * @param frameBudgetNanos the budget, in nanoseconds; it defaults to 60 frames per second
+     * @return the {@link AnimatorChainScheduler} itself, allowing chained method calls
+     */
+    public AnimatorChainScheduler setFrameBudget(long frameBudgetNanos) {
+        this.mFrameBudget = frameBudgetNanos;
+        return this;
+    }
+
+    /**
+     * Sets the maximum time a low priority chain can be delayed because of
+     * the frames going past the budget, after which it's started anyway.
+     *
+     * @param maxDeferralMs the time, in milliseconds; it defaults to half a second
+     * @return the {@link AnimatorChainScheduler} itself, allowing chained method calls
+     */
+    public AnimatorChainScheduler setMaxDeferral(long maxDeferralMs) {
+        this.mMaxDeferral = maxDeferralMs * 1000000L;
+        return this;
+    }
+
+    public int getRunningCount() {
+        return this.mRunning.size();
+    }
+
+    public int getQueuedCount() {
+        return this.mQueue.size();
+    }
+
+    /**
+     * Gets the number of chains started by the scheduler so far.
+     *
+     * @return the number of chains
+     */
+    public long getStartedCount() {
+        return this.mStartedCount;
+    }
+
+    /**
+     * Gets the number of frames in which low priority chains have been
+     * delayed because of the frames going past the budget.
+     *
+     * @return the number of frames
+     */
+    public long getDeferredFrames() {
+        return this.mDeferredFrames;
+    }
+
+    /**
+     * Gets the times the chains have waited in the queue, in microseconds.
+     *
+     * @return the histogram of the times
+     */
+    public AnimatorChainHistogram getQueueTimes() {
+        return this.mQueueTimes;
+    }
+
+    /**
+     * Tells whether the recent frames have gone past the budget, so
+     * that the low priority chains are being delayed.
+     *
+     * @return {@code true} if the frames are over budget
+     */
+    public boolean isOverBudget() {
+        return Integer.bitCount(this.mRecentOverBudgetFrames) >= OVER_BUDGET_THRESHOLD;
+    }
+
+    @Override
+    public String toString() {
+        return "running=" + this.mRunning.size()
+                + " queued=" + this.mQueue.size()
+                + " started=" + this.mStartedCount
+                + " deferredFrames=" + this.mDeferredFrames
+                + " overBudget=" + this.isOverBudget()
+                + " queueTimes[" + this.mQueueTimes + "]";
+    }
+
+    // endregion
+
+    // region Package methods
+
+    /**
+     * Queues the start of a chain, starting it right away if allowed.
+     *
+     * @param chain    the chain to start
+     * @param priority the priority of the chain
+     */
+    void enqueue(AnimatorChain chain, int priority) {
+        this.remove(chain);
+
+        Entry entry = new Entry(chain, priority, System.nanoTime());
+
+        int index = this.mQueue.size();
+        while (index > 0 && this.mQueue.get(index - 1).priority < priority) {
+            index--;
+        }
+        this.mQueue.add(index, entry);
+
+        this.startQueuedChains(false);
+        this.postFrameCallback();
+    }
+
+    /**
+     * Removes a chain from the queue or frees its slot, because it has
+     * been cancelled or it has completed.
+     *
+     * @param chain the chain to remove
+     */
+    void remove(AnimatorChain chain) {
+        if (this.mRunning.remove(chain)) {
+            this.startQueuedChains(false);
+            return;
+        }
+
+        for (int i = 0; i < this.mQueue.size(); i++) {
+            if (this.mQueue.get(i).chain == chain) {
+                this.mQueue.remove(i);
+                return;
+            }
+        }
+    }
+
+    // endregion
+
+    // region Choreographer.FrameCallback implementation
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        this.mFrameCallbackPosted = false;
+
+        this.removeCollectedChains();
+
+        if (this.mLastFrameTime >= 0) {
+            boolean overBudget = frameTimeNanos - this.mLastFrameTime > this.mFrameBudget + this.mFrameBudget / 2;
+            this.mRecentOverBudgetFrames = ((this.mRecentOverBudgetFrames << 1) | (overBudget ? 1 : 0))
+                    & ((1 << RECENT_FRAMES) - 1);
+        }
+        this.mLastFrameTime = frameTimeNanos;
+
+        this.startQueuedChains(true);
+        this.postFrameCallback();
+    }
+
+    // endregion
+
+    // region Private methods
+
+    /**
+     * Starts the queued chains while there are free slots, in order of priority.
+     *
+     * @param frameStart {@code true} when called at the beginning of a frame, the only
+     *                   moment low priority chains are started at
+     */
+    private void startQueuedChains(boolean frameStart) {
+        boolean overBudget = this.isOverBudget();
+        boolean deferred = false;
+        long now = System.nanoTime();
+
+        int index = 0;
+        while (index < this.mQueue.size() && this.mRunning.size() < this.mMaxRunningChains) {
+            Entry entry = this.mQueue.get(index);
+
+            if (entry.chain.isScheduledTargetCollected()) {
+                this.mQueue.remove(index);
+                entry.chain.dropScheduled();
+                continue;
+            }
+
+            if (entry.priority <= PRIORITY_LOW) {
+                boolean expired = now - entry.enqueueTime >= this.mMaxDeferral;
+                if (!frameStart || (overBudget && !expired)) {
+                    deferred |= frameStart;
+                    index++;
+                    continue;
+                }
+            }
+
+            this.mQueue.remove(index);
+            this.mRunning.add(entry.chain);
+            this.mStartedCount++;
+            this.mQueueTimes.record((now - entry.enqueueTime) / NANOS_PER_MICRO);
+
+            entry.chain.startScheduled();
+        }
+
+        if (deferred) {
+            this.mDeferredFrames++;
+        }
+    }
+
+    /**
+     * Drops the queued chains whose views have been collected, so that the queue
+     * doesn't wait for a free slot to let them go.
+     */
+    private void removeCollectedChains() {
+        for (int i = this.mQueue.size() - 1; i >= 0; i--) {
+            Entry entry = this.mQueue.get(i);
+            if (entry.chain.isScheduledTargetCollected()) {
+                this.mQueue.remove(i);
+                entry.chain.dropScheduled();
+            }
+        }
+    }
+
+    /**
+     * Keeps watching the frames while some chain is queued or running.
+     */
+    private void postFrameCallback() {
+        if (this.mFrameCallbackPosted) {
+            return;
+        }
+
+        if (this.mQueue.isEmpty() && this.mRunning.isEmpty()) {
+            this.mLastFrameTime = -1;
+            this.mRecentOverBudgetFrames = 0;
+            return;
+        }
+
+        this.mFrameCallbackPosted = true;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    // endregion
+
+    // region Inner classes
+
+    private static final class Entry {
+
+        final AnimatorChain chain;
+        final int priority;
+        final long enqueueTime;
+
+        Entry(AnimatorChain chain, int priority, long enqueueTime) {
+            this.chain = chain;
+            this.priority = priority;
+            this.enqueueTime = enqueueTime;
+        }
+    }
+
+    // endregion
+}
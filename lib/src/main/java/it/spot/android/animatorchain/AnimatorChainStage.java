@@ -0,0 +1,204 @@
+package it.spot.android.animatorchain;
+
+import android.view.ViewPropertyAnimator;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * This class represents a step of a chain made of many items running together,
+ * on different targets or on different properties of the same target.<br/>
+ * Every child is bound to the index of a target among the ones the chain is executed
+ * on, or to {@link #ALL_TARGETS}; the stage lasts as long as its longest child, and the
+ * chain moves on to the next item when all the children have finished.<br/>
+ * Chains containing stages are always executed as a timeline: a single frame callback
+ * writes every child, and the join happens within the frame in which the last child ends,
+ * instead of waiting for the end actions of many animators. Its own properties and duration
+ * are ignored, while its start delay, interpolator and layer policy apply to the whole step:
+ * the interpolator warps the time of the stage before it's handed to the children, each of
+ * which then applies its own.
+ * Children animating the same property of the same target start from the value it had
+ * when the stage started, so they should animate different properties.<br/>
+ * {@link AnimatorChainEvaluator} plays a stage as a wait, while {@link AnimatorChainBatch}
+ * and {@link AnimatorChainTemplate} reject the chains containing stages.
+ *
+ * @author a.rinaldi
+ */
+public class AnimatorChainStage extends AnimatorChainItem {
+
+    /**
+     * The index of the children applied to every target of the chain.
+     */
+    public static final int ALL_TARGETS = -1;
+
+    private final AtomicReference<Children> mChildren;
+
+    // region Construction
+
+    protected AnimatorChainStage() {
+        super();
+
+        this.mChildren = new AtomicReference<Children>(new Children(0, new int[0], new AnimatorChainItem[0]));
+    }
+
+    /**
+     * A public static factory method which returns an instance
+     * of {@link AnimatorChainStage}.
+     *
+     * @return a stage instance
+     */
+    public static AnimatorChainStage create() {
+        return new AnimatorChainStage();
+    }
+
+    // endregion
+
+    // region Public methods
+
+    /**
+     * Adds a child applied to every target of the chain.
+     *
+     * @param item the child to add
+     * @return the {@link AnimatorChainStage} itself, allowing chained method calls
+     */
+    public AnimatorChainStage add(AnimatorChainItem item) {
+        return this.add(ALL_TARGETS, item);
+    }
+
+    /**
+     * Adds a child applied to a single target of the chain.
+     *
+     * @param targetIndex the index of the target among the ones the chain is executed on,
+     *                    or {@link #ALL_TARGETS}
+     * @param item        the child to add
+     * @return the {@link AnimatorChainStage} itself, allowing chained method calls
+     */
+    public AnimatorChainStage add(int targetIndex, AnimatorChainItem item) {
+        if (item instanceof AnimatorChainStage) {
+            throw new IllegalArgumentException("Stages can't be nested");
+        }
+        if (targetIndex < ALL_TARGETS) {
+            throw new IllegalArgumentException("Invalid target index: " + targetIndex);
+        }
+
+        Children current;
+        Children next;
+        do {
+            current = this.mChildren.get();
+
+            int count = current.items.length;
+            int[] targets = Arrays.copyOf(current.targets, count + 1);
+            AnimatorChainItem[] items = Arrays.copyOf(current.items, count + 1);
+            targets[count] = targetIndex;
+            items[count] = item;
+            next = new Children(current.generation + 1, targets, items);
+        } while (!this.mChildren.compareAndSet(current, next));
+
+        item.addOwner(this.mChildOwner);
+        this.notifyOwners();
+        return this;
+    }
+
+    public int getChildCount() {
+        return this.mChildren.get().items.length;
+    }
+
+    /**
+     * Lets the stage wait for its whole length, since its children
+     * can't be run by a single {@link ViewPropertyAnimator}.
+     *
+     * @param animator the {@link ViewPropertyAnimator} to set up
+     * @return the animator itself, allowing chaining.
+     */
+    @Override
+    public ViewPropertyAnimator apply(ViewPropertyAnimator animator) {
+        CompiledAnimatorChain.Row row = new CompiledAnimatorChain.Row();
+        this.readInto(row);
+
+        return animator.setDuration(row.duration)
+                .setStartDelay(row.delay)
+                .setInterpolator(row.interpolator);
+    }
+
+    // endregion
+
+    // region Package methods
+
+    /**
+     * Gets a counter that changes every time the stage, or any of its children, is changed.
+     *
+     * @return the current version of the stage
+     */
+    @Override
+    int getVersion() {
+        Children children = this.mChildren.get();
+
+        // every term only grows, so any change makes the sum grow too
+        int version = super.getVersion() + children.generation;
+        for (AnimatorChainItem item : children.items) {
+            version += item.getVersion();
+        }
+        return version;
+    }
+
+    /**
+     * Copies the stage into the given row, as a row without properties lasting
+     * as long as the longest child, along with a snapshot of the children.
+     *
+     * @param row the row to fill
+     */
+    @Override
+    void readInto(CompiledAnimatorChain.Row row) {
+        // read before the children, so that a concurrent change leaves the row stale rather than wrong
+        int version = this.getVersion();
+        Children children = this.mChildren.get();
+
+        super.readInto(row);
+
+        CompiledAnimatorChain stage = CompiledAnimatorChain.compile(Arrays.asList(children.items));
+        int duration = 0;
+        for (int child = 0; child < stage.size(); child++) {
+            duration = Math.max(duration, stage.getStartDelay(child) + stage.getDuration(child));
+        }
+
+        row.reset();
+        row.version = version;
+        row.duration = duration;
+        row.stage = stage;
+        row.stageTargets = children.targets;
+    }
+
+    // endregion
+
+    // region Inner classes
+
+    /**
+     * A private owner of the children, telling the owners of the stage about
+     * their changes, since they change the stage too.
+     */
+    private final IAnimatorChainItemOwner mChildOwner = new IAnimatorChainItemOwner() {
+
+        @Override
+        public void onItemChanged(AnimatorChainItem item) {
+            notifyOwners();
+        }
+    };
+
+    /**
+     * An immutable version of the children of the stage.
+     */
+    private static final class Children {
+
+        final int generation;
+        final int[] targets;
+        final AnimatorChainItem[] items;
+
+        Children(int generation, int[] targets, AnimatorChainItem[] items) {
+            this.generation = generation;
+            this.targets = targets;
+            this.items = items;
+        }
+    }
+
+    // endregion
+}
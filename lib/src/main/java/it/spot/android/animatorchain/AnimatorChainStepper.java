@@ -0,0 +1,162 @@
+package it.spot.android.animatorchain;
+
+/**
+ * This class holds the frame stepping shared by the executions that play the items
+ * of a {@link CompiledAnimatorChain} forward on one or many targets, restarting it
+ * from the first item at every repetition, such as {@link AnimatorChainCursor} and
+ * {@link AnimatorChainBatch}.<br/>
+ * The position, repeat count and item start time of every target are kept in parallel
+ * arrays, one slot per target, so that stepping any number of targets allocates nothing.
+ * When a frame crosses the end of an item, the remaining time is carried over to the
+ * following one, as {@link AnimatorChainTimeline} does; the values are read and written
+ * through an {@link IAnimatorChainStepperCallback}.
+ *
+ * @author a.rinaldi
+ */
+final class AnimatorChainStepper {
+
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    private final IAnimatorChainStepperCallback mCallback;
+
+    private final int[] mPositions;
+    private final int[] mRepeatCounts;
+    private final long[] mItemStartTimes;
+    private final boolean[] mItemStarted;
+
+    // region Construction
+
+    /**
+     * @param slots    the number of targets
+     * @param callback the execution to drive
+     */
+    AnimatorChainStepper(int slots, IAnimatorChainStepperCallback callback) {
+        super();
+
+        this.mCallback = callback;
+
+        this.mPositions = new int[slots];
+        this.mRepeatCounts = new int[slots];
+        this.mItemStartTimes = new long[slots];
+        this.mItemStarted = new boolean[slots];
+    }
+
+    // endregion
+
+    // region Package methods
+
+    /**
+     * Moves a target to the first item of the chain.
+     *
+     * @param slot           the index of the target
+     * @param startTimeNanos the time the target starts at, in nanoseconds
+     */
+    void reset(int slot, long startTimeNanos) {
+        this.mPositions[slot] = 0;
+        this.mRepeatCounts[slot] = 0;
+        this.mItemStartTimes[slot] = startTimeNanos;
+        this.mItemStarted[slot] = false;
+    }
+
+    /**
+     * Moves a target to the given frame time, crossing as many item boundaries as needed.
+     *
+     * @param slot           the index of the target
+     * @param compiledChain  the items to play
+     * @param frameTimeNanos the frame time, in nanoseconds
+     * @return {@code true} if the target needs another frame, {@code false} if it's over
+     * or if the execution has been stopped by the callback
+     */
+    boolean advance(int slot, CompiledAnimatorChain compiledChain, long frameTimeNanos) {
+        if (this.mPositions[slot] < 0) {
+            return false;
+        }
+
+        long elapsed = frameTimeNanos - this.mItemStartTimes[slot];
+        if (elapsed < 0) {
+            // the start of this target hasn't come yet
+            return true;
+        }
+
+        IAnimatorChainStepperCallback callback = this.mCallback;
+        long iterationStart = -1;
+
+        while (true) {
+            int position = this.mPositions[slot];
+            long delay = compiledChain.getStartDelay(position) * NANOS_PER_MILLI;
+            long duration = compiledChain.getDuration(position) * NANOS_PER_MILLI;
+
+            if (!this.mItemStarted[slot] && elapsed >= delay) {
+                this.mItemStarted[slot] = true;
+                if (!callback.onItemStart(slot, position)) {
+                    return false;
+                }
+            }
+
+            if (elapsed < delay + duration) {
+                if (elapsed > delay) {
+                    float fraction = (float) (elapsed - delay) / duration;
+                    callback.write(slot, position, compiledChain.getInterpolator(position).getInterpolation(fraction));
+                }
+                return true;
+            }
+
+            callback.write(slot, position, 1f);
+            if (!callback.onItemEnd(slot, position)) {
+                return false;
+            }
+
+            this.mItemStarted[slot] = false;
+            this.mItemStartTimes[slot] += delay + duration;
+            elapsed -= delay + duration;
+
+            position++;
+            if (position == compiledChain.size()) {
+                if (!callback.canRepeat(slot, this.mRepeatCounts[slot])) {
+                    this.mPositions[slot] = -1;
+                    return false;
+                }
+
+                position = 0;
+                this.mPositions[slot] = position;
+                this.mRepeatCounts[slot]++;
+                if (!callback.onRepeat(slot, this.mRepeatCounts[slot])) {
+                    return false;
+                }
+            }
+
+            this.mPositions[slot] = position;
+            callback.captureFrom(slot, position);
+
+            if (position == 0) {
+                if (elapsed == iterationStart) {
+                    // a whole iteration has taken no time: the next one waits for the next frame
+                    return true;
+                }
+                iterationStart = elapsed;
+            }
+        }
+    }
+
+    /**
+     * Gets the index of the item a target is playing.
+     *
+     * @param slot the index of the target
+     * @return the index of the item, or {@code -1} if the target is over
+     */
+    int getPosition(int slot) {
+        return this.mPositions[slot];
+    }
+
+    /**
+     * Tells whether a target has played the whole chain, repetitions included.
+     *
+     * @param slot the index of the target
+     * @return {@code true} if the target is over
+     */
+    boolean isOver(int slot) {
+        return this.mPositions[slot] < 0;
+    }
+
+    // endregion
+}
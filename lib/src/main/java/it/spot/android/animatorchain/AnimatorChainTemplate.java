@@ -0,0 +1,129 @@
+package it.spot.android.animatorchain;
+
+import android.view.View;
+
+/**
+ * This class is an immutable definition of a chain, meant to be built once and
+ * executed on any number of views.<br/>
+ * It holds a {@link CompiledAnimatorChain} snapshot, so the items and interpolators
+ * of the chain it has been built from are shared by all the executions, and later
+ * changes to that chain don't affect it. Being immutable, it can be built on any
+ * thread and shared freely, e.g. through an {@link AnimatorChainTemplateCache}.<br/>
+ * Every execution only needs an {@link AnimatorChainCursor}, which runs the items
+ * through a frame callback of its own as the {@link AnimatorChain#EXECUTION_MODE_TIMELINE}
+ * mode does; cursors can be pooled through an {@link AnimatorChainCursorPool}.<br/>
+ * A template only holds the items and the number of iterations: the cursors play the
+ * items forward, without hardware layers, and the layer policy, the quality policy and
+ * the metrics of the chain it has been built from don't apply to them. Stages are not
+ * supported.
+ *
+ * @author a.rinaldi
+ */
+public final class AnimatorChainTemplate {
+
+    private final CompiledAnimatorChain mCompiledChain;
+    private final int mIterations;
+
+    // region Construction
+
+    /**
+     * @param compiledChain the items of the chain, without stages
+     * @param iterations    the times the chain is played, including the first one
+     */
+    public AnimatorChainTemplate(CompiledAnimatorChain compiledChain, int iterations) {
+        super();
+
+        if (iterations < 1) {
+            throw new IllegalArgumentException("A template must be played at least once: " + iterations);
+        }
+        if (compiledChain.hasStages()) {
+            throw new IllegalArgumentException("A template can't play stages: use an AnimatorChain");
+        }
+
+        this.mCompiledChain = compiledChain;
+        this.mIterations = iterations;
+    }
+
+    /**
+     * Builds a template on the current state of a chain, including its repetitions.<br/>
+     * The chain must be eager, without stages, and restart when repeated.
+     *
+     * @param chain the chain to copy
+     * @return the template
+     */
+    public static AnimatorChainTemplate from(AnimatorChain chain) {
+        if (chain.isLazy()) {
+            throw new IllegalArgumentException("A lazy chain can't be turned into a template");
+        }
+        if (chain.getRepeatMode() != AnimatorChain.REPEAT_MODE_RESTART) {
+            throw new IllegalArgumentException("A template can only restart the chain when repeated");
+        }
+
+        return new AnimatorChainTemplate(chain.compile(), chain.getIterationCount());
+    }
+
+    // endregion
+
+    // region Public methods
+
+    /**
+     * Starts the execution of the template on a view.
+     *
+     * @param targetView the view the animations will be applied to
+     * @return the cursor of the execution, allowing to cancel it
+     */
+    public AnimatorChainCursor execute(View targetView) {
+        return this.execute(targetView, null);
+    }
+
+    /**
+     * Starts the execution of the template on a view.<br/>
+     * The listener is notified about the items of this execution only; if it's an
+     * {@link IAnimatorChainEventListener}, it's notified about the repetitions and
+     * the completion too.
+     *
+     * @param targetView the view the animations will be applied to
+     * @param listener   the listener of the execution, or {@code null}
+     * @return the cursor of the execution, allowing to cancel it
+     */
+    public AnimatorChainCursor execute(View targetView, IAnimatorChainListener listener) {
+        AnimatorChainCursor cursor = new AnimatorChainCursor(null);
+        cursor.init(this, targetView, listener);
+        cursor.start();
+        return cursor;
+    }
+
+    /**
+     * Starts the execution of the template on a view, with a cursor taken from a pool.<br/>
+     * The cursor goes back to the pool when {@link AnimatorChainCursor#release()} is
+     * called, so that binding and recycling views doesn't allocate anything once
+     * the pool holds enough cursors.
+     *
+     * @param targetView the view the animations will be applied to
+     * @param listener   the listener of the execution, or {@code null}
+     * @param pool       the pool to take the cursor from
+     * @return the cursor of the execution, allowing to cancel and release it
+     */
+    public AnimatorChainCursor execute(View targetView, IAnimatorChainListener listener,
+                                       AnimatorChainCursorPool pool) {
+        AnimatorChainCursor cursor = pool.acquire();
+        cursor.init(this, targetView, listener);
+        cursor.start();
+        return cursor;
+    }
+
+    public CompiledAnimatorChain getCompiledChain() {
+        return this.mCompiledChain;
+    }
+
+    /**
+     * Gets the times the chain is played, including the first one.
+     *
+     * @return the number of iterations
+     */
+    public int getIterations() {
+        return this.mIterations;
+    }
+
+    // endregion
+}
@@ -0,0 +1,110 @@
+package it.spot.android.animatorchain;
+
+import android.util.LruCache;
+
+/**
+ * This class keeps a bounded number of {@link AnimatorChainTemplate}s by id, so
+ * that the chains used in many places are defined once.<br/>
+ * When full, the least recently used template is dropped. All the methods are
+ * thread safe; a process-wide instance is available through {@link #getDefault()}.
+ *
+ * @author a.rinaldi
+ */
+public final class AnimatorChainTemplateCache {
+
+    private static final int DEFAULT_MAX_SIZE = 64;
+
+    private static AnimatorChainTemplateCache sDefault;
+
+    private final LruCache<String, AnimatorChainTemplate> mTemplates;
+
+    // region Construction
+
+    /**
+     * @param maxSize the maximum number of templates kept
+     */
+    public AnimatorChainTemplateCache(int maxSize) {
+        super();
+
+        this.mTemplates = new LruCache<String, AnimatorChainTemplate>(maxSize);
+    }
+
+    /**
+     * Gets the process-wide cache, holding up to 64 templates.
+     *
+     * @return the cache
+     */
+    public static synchronized AnimatorChainTemplateCache getDefault() {
+        if (sDefault == null) {
+            sDefault = new AnimatorChainTemplateCache(DEFAULT_MAX_SIZE);
+        }
+        return sDefault;
+    }
+
+    // endregion
+
+    // region Public methods
+
+    /**
+     * Gets a template.
+     *
+     * @param id the id of the template
+     * @return the template, or {@code null} if not present
+     */
+    public AnimatorChainTemplate get(String id) {
+        return this.mTemplates.get(id);
+    }
+
+    /**
+     * Adds a template, replacing the one with the same id.
+     *
+     * @param id       the id of the template
+     * @param template the template to add
+     * @return the previous template with the same id, or {@code null}
+     */
+    public AnimatorChainTemplate put(String id, AnimatorChainTemplate template) {
+        return this.mTemplates.put(id, template);
+    }
+
+    /**
+     * Adds a template built on the current state of a chain, unless a template
+     * with the same id is already present.
+     *
+     * @param id    the id of the template
+     * @param chain the chain to copy
+     * @return the template with the given id
+     */
+    public AnimatorChainTemplate register(String id, AnimatorChain chain) {
+        synchronized (this.mTemplates) {
+            AnimatorChainTemplate template = this.mTemplates.get(id);
+            if (template == null) {
+                template = AnimatorChainTemplate.from(chain);
+                this.mTemplates.put(id, template);
+            }
+            return template;
+        }
+    }
+
+    /**
+     * Removes a template.
+     *
+     * @param id the id of the template
+     * @return the removed template, or {@code null} if not present
+     */
+    public AnimatorChainTemplate remove(String id) {
+        return this.mTemplates.remove(id);
+    }
+
+    /**
+     * Removes all the templates.
+     */
+    public void clear() {
+        this.mTemplates.evictAll();
+    }
+
+    public int size() {
+        return this.mTemplates.size();
+    }
+
+    // endregion
+}
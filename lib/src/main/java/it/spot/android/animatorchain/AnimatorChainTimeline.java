@@ -0,0 +1,703 @@
+package it.spot.android.animatorchain;
+
+import android.view.Choreographer;
+
+import java.util.Arrays;
+
+/**
+ * This class drives the execution of a whole {@link AnimatorChain} as one
+ * continuous timeline, instead of starting a {@link android.view.ViewPropertyAnimator}
+ * for every chained item.<br/>
+ * A single {@link Choreographer} callback computes, frame by frame, the interpolated
+ * values of the current item and writes them to the targets. When a frame crosses
+ * the end of an item, the remaining time is carried over to the following one, so
+ * that step boundaries fall inside a frame rather than between two frames.<br/>
+ * More targets can share the same timeline, each one shifted by its own offset:
+ * every target keeps only a small cursor, while the chain definition and the frame
+ * callback are shared. The listeners of the chain follow the first target.<br/>
+ * On an {@link AnimatorChainStage} every target writes the children bound to it, each
+ * one at its own fraction, and leaves the stage when the longest child ends: the join
+ * happens within the frame, like any other item boundary.<br/>
+ * The backward iterations of the {@link AnimatorChain#REPEAT_MODE_REVERSE} mode walk
+ * the items by decreasing index, taking the values to go back to from the previous
+ * rows, or from the values read before the first frame.<br/>
+ * The timing of every item is fixed when the item starts, after the degradations
+ * decided by the {@link AnimatorChainQualityPolicy} of the chain, if any: they're decided
+ * once per item, when the first target reaches it, and followed by all the targets.<br/>
+ * After an auto-suspension the first frame jumps straight to the current item, without
+ * notifying the items skipped in the meantime: the item running when the timeline was
+ * suspended ends as usual, and a single repeat notification reports the repetitions
+ * skipped, if any.<br/>
+ * The changes made to the items while the timeline runs are picked up when the targets
+ * reach them, while the items added or removed are only picked up when the iteration
+ * wraps, as long as a single target is running.<br/>
+ * The timing logic lives in {@link #advance(long)}, which doesn't depend on the
+ * {@link Choreographer} and can be driven by any clock.
+ *
+ * @author a.rinaldi
+ */
+class AnimatorChainTimeline implements Choreographer.FrameCallback {
+
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    private final AnimatorChain mChain;
+    private final IAnimatorChainTarget[] mTargets;
+    private final long mStagger;
+
+    private final int[] mPositions;
+    private final int[] mRepeatCounts;
+    private final long[] mItemStartTimes;
+    private final long[] mItemDelays;
+    private final long[] mItemDurations;
+    private final boolean[] mItemStarted;
+    private final float[] mFrom;
+    private float[] mTo;
+    private float[] mInitialValues;
+
+    // the degradations decided for every item, and the repeat count they've been decided in
+    private int[] mDegradations;
+    private int[] mDegradationRepeatCounts;
+
+    private CompiledAnimatorChain mCompiledChain;
+    private int mActiveTargets;
+
+    private boolean mRunning;
+    private boolean mFirstFrame;
+    private boolean mPaused;
+    private boolean mResuming;
+    private boolean mSuspended;
+    private boolean mCatchingUp;
+    private AnimatorChainVisibilityWatcher mVisibilityWatcher;
+    private long mLastFrameTime;
+
+    // region Construction
+
+    /**
+     * @param chain       the chain to execute
+     * @param targets   the targets the chain will be applied to
+     * @param staggerMs the delay, in milliseconds, between the start of a target and the following one
+     */
+    AnimatorChainTimeline(AnimatorChain chain, IAnimatorChainTarget[] targets, long staggerMs) {
+        super();
+
+        int count = targets.length;
+
+        this.mChain = chain;
+        this.mTargets = targets.clone();
+        this.mStagger = staggerMs * NANOS_PER_MILLI;
+
+        this.mPositions = new int[count];
+        this.mRepeatCounts = new int[count];
+        this.mItemStartTimes = new long[count];
+        this.mItemDelays = new long[count];
+        this.mItemDurations = new long[count];
+        this.mItemStarted = new boolean[count];
+        this.mFrom = new float[count * AnimatorChainProperty.COUNT];
+    }
+
+    // endregion
+
+    // region Package methods
+
+    /**
+     * Starts driving the chain from its first item on the next frame.
+     */
+    void start() {
+        this.reset();
+
+        if (this.mVisibilityWatcher != null) {
+            this.mVisibilityWatcher.start();
+        }
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    /**
+     * Stops driving the chain, leaving the targets as they are.
+     */
+    void cancel() {
+        this.mRunning = false;
+        Choreographer.getInstance().removeFrameCallback(this);
+
+        for (int target = 0; target < this.mTargets.length; target++) {
+            this.release(target);
+        }
+
+        if (this.mVisibilityWatcher != null) {
+            this.mVisibilityWatcher.stop();
+        }
+    }
+
+    /**
+     * Suspends the timeline while its target views are not visible, as long
+     * as it's executed through the {@link Choreographer}.
+     *
+     * @param targets the targets of the views to watch, i.e. the targets of the timeline
+     */
+    void watchVisibility(ViewAnimatorChainTarget[] targets) {
+        this.mVisibilityWatcher = new AnimatorChainVisibilityWatcher(this, targets);
+    }
+
+    /**
+     * Stops doing any frame work because the targets can't be seen, while the
+     * time keeps running.
+     */
+    void suspend() {
+        if (this.mRunning && !this.mSuspended) {
+            this.mSuspended = true;
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+    }
+
+    /**
+     * Starts doing frame work again after {@link #suspend()}: the next frame
+     * catches up with the time elapsed in the meantime.
+     */
+    void wake() {
+        if (this.mSuspended) {
+            this.mSuspended = false;
+            this.mCatchingUp = true;
+
+            AnimatorChainMetrics metrics = this.mChain.getMetrics();
+            if (metrics != null) {
+                metrics.onDiscontinuity();
+            }
+
+            if (this.mRunning && !this.mPaused) {
+                Choreographer.getInstance().postFrameCallback(this);
+            }
+        }
+    }
+
+    /**
+     * Stops driving the chain, keeping the position of every target.
+     */
+    void pause() {
+        if (this.mRunning && !this.mPaused) {
+            this.mPaused = true;
+            this.mResuming = false;
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+    }
+
+    /**
+     * Starts driving the chain again, from the positions kept by {@link #pause()}.
+     */
+    void resume() {
+        if (this.mRunning && this.mPaused) {
+            this.mPaused = false;
+            this.mResuming = true;
+
+            if (!this.mSuspended) {
+                Choreographer.getInstance().postFrameCallback(this);
+            }
+        }
+    }
+
+    /**
+     * Prepares the timeline to be driven from the first item of the chain,
+     * without scheduling any frame.
+     */
+    void reset() {
+        this.mRunning = true;
+        this.mFirstFrame = true;
+        this.mPaused = false;
+        this.mResuming = false;
+        this.mSuspended = false;
+        this.mCatchingUp = false;
+        this.mActiveTargets = this.mTargets.length;
+
+        for (int target = 0; target < this.mTargets.length; target++) {
+            this.mPositions[target] = 0;
+            this.mRepeatCounts[target] = 0;
+            this.mItemStarted[target] = false;
+        }
+
+        if (this.mDegradationRepeatCounts != null) {
+            Arrays.fill(this.mDegradationRepeatCounts, -1);
+        }
+    }
+
+    /**
+     * Moves all the targets to the given frame time.<br/>
+     * The first call sets the starting time of the timeline.
+     *
+     * @param frameTimeNanos the frame time, in nanoseconds
+     * @return {@code true} if the timeline is still running
+     */
+    boolean advance(long frameTimeNanos) {
+        if (!this.mRunning || this.mPaused || this.mSuspended) {
+            return false;
+        }
+
+        if (this.mResuming) {
+            this.mResuming = false;
+
+            // shifts the timeline by the time spent in pause, so that every
+            // target continues from the fraction it was paused at
+            if (!this.mFirstFrame) {
+                long pause = frameTimeNanos - this.mLastFrameTime;
+                for (int target = 0; target < this.mTargets.length; target++) {
+                    this.mItemStartTimes[target] += pause;
+                }
+            }
+        }
+        this.mLastFrameTime = frameTimeNanos;
+
+        boolean catchingUp = this.mCatchingUp;
+        this.mCatchingUp = false;
+
+        if (this.mFirstFrame) {
+            this.mFirstFrame = false;
+            this.mCompiledChain = this.mChain.prepareChainItem(0);
+
+            if (this.mCompiledChain.size() == 0) {
+                this.mRunning = false;
+                this.mChain.dispatchComplete();
+                return false;
+            }
+
+            if (this.mChain.getRepeatMode() == AnimatorChain.REPEAT_MODE_REVERSE) {
+                this.captureInitialValues();
+            }
+
+            for (int target = 0; target < this.mTargets.length; target++) {
+                this.mItemStartTimes[target] = frameTimeNanos + target * this.mStagger;
+                this.captureFrom(target, false);
+            }
+        }
+
+        AnimatorChainQualityPolicy qualityPolicy = this.mChain.getQualityPolicy();
+        if (qualityPolicy != null) {
+            qualityPolicy.onFrame(frameTimeNanos);
+        }
+
+        AnimatorChainMetrics metrics = this.mChain.getMetrics();
+        if (metrics != null && this.mPositions[0] >= 0 && frameTimeNanos >= this.mItemStartTimes[0]) {
+            metrics.onFrame(this.mPositions[0], frameTimeNanos);
+        }
+
+        for (int target = 0; target < this.mTargets.length; target++) {
+            if (this.mPositions[target] < 0) {
+                continue;
+            }
+
+            if (this.isCollected(target)) {
+                // the view, held weakly, is gone
+                this.mChain.cancel();
+                return false;
+            }
+
+            this.doTargetFrame(target, frameTimeNanos, catchingUp);
+
+            if (!this.mRunning) {
+                // a listener cancelled the chain
+                return false;
+            }
+        }
+
+        if (this.mActiveTargets == 0) {
+            this.mRunning = false;
+            this.mChain.dispatchComplete();
+        }
+        return this.mRunning;
+    }
+
+    // endregion
+
+    // region Choreographer.FrameCallback implementation
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (this.mVisibilityWatcher != null && this.mRunning && !this.mVisibilityWatcher.isAnyViewShown()) {
+            this.mVisibilityWatcher.suspend();
+            return;
+        }
+
+        if (this.advance(frameTimeNanos)) {
+            Choreographer.getInstance().postFrameCallback(this);
+        } else if (!this.mRunning && this.mVisibilityWatcher != null) {
+            this.mVisibilityWatcher.stop();
+        }
+    }
+
+    // endregion
+
+    // region Private methods
+
+    /**
+     * Moves a single target to the given frame time, crossing as many item
+     * boundaries as needed.
+     *
+     * @param catchingUp {@code true} if the timeline has just woken up, so that the
+     *                   items ended while it was suspended are skipped silently
+     */
+    private void doTargetFrame(int target, long frameTimeNanos, boolean catchingUp) {
+        long elapsed = frameTimeNanos - this.mItemStartTimes[target];
+        if (elapsed < 0) {
+            // the staggered start of this target hasn't come yet
+            return;
+        }
+
+        long iterationStart = -1;
+        int initialRepeatCount = this.mRepeatCounts[target];
+        boolean skipping = false;
+
+        while (true) {
+            int position = this.mPositions[target];
+            long delay = this.mItemDelays[target];
+            long duration = this.mItemDurations[target];
+
+            if (skipping && elapsed < delay + duration) {
+                // the frame falls in this item, which is set up as usual, once its timing is degraded
+                skipping = false;
+                this.captureFrom(target, false);
+
+                if (target == 0 && this.mRepeatCounts[target] != initialRepeatCount) {
+                    this.mChain.dispatchRepeat(this.mRepeatCounts[target]);
+                    if (!this.mRunning) {
+                        return;
+                    }
+                }
+                continue;
+            }
+
+            // a reversed item plays its motion first, and its delay after it
+            boolean reversed = this.mChain.isReversed(this.mRepeatCounts[target]);
+            long motionStart = reversed ? 0 : delay;
+
+            if (!skipping && !this.mItemStarted[target] && elapsed >= motionStart) {
+                this.mItemStarted[target] = true;
+
+                if (target == 0) {
+                    this.mChain.dispatchItemStart(position, frameTimeNanos);
+                    if (!this.mRunning) {
+                        return;
+                    }
+                }
+            }
+
+            boolean stage = this.mCompiledChain.isStage(position);
+
+            if (elapsed < delay + duration) {
+                if (reversed) {
+                    if (!stage) {
+                        float fraction = elapsed >= duration ? 1f : (float) elapsed / duration;
+                        this.writeReversed(target,
+                                this.mCompiledChain.getReversedInterpolator(position).getInterpolation(fraction));
+                    }
+                } else {
+                    float fraction = elapsed <= delay ? 0f : (float) (elapsed - delay) / duration;
+                    float interpolated = this.mCompiledChain.getInterpolator(position).getInterpolation(fraction);
+                    if (stage) {
+                        this.writeStage(target, interpolated);
+                    } else {
+                        this.write(target, interpolated);
+                    }
+                }
+                return;
+            }
+
+            if (reversed) {
+                if (!stage) {
+                    this.writeReversed(target, 1f);
+                }
+            } else if (stage) {
+                this.writeStage(target, 1f);
+            } else {
+                this.write(target, 1f);
+            }
+
+            if (target == 0 && !skipping) {
+                this.mChain.dispatchItemEnd(position, frameTimeNanos);
+                if (!this.mRunning) {
+                    return;
+                }
+            }
+
+            int repeatCount = this.mRepeatCounts[target];
+
+            if (!this.advance(target, !catchingUp)) {
+                this.mPositions[target] = -1;
+                this.mActiveTargets--;
+                this.release(target);
+                return;
+            }
+
+            if (!this.mRunning) {
+                return;
+            }
+
+            this.mItemStarted[target] = false;
+            this.mItemStartTimes[target] += delay + duration;
+            elapsed -= delay + duration;
+            if (!this.prepareChainItem(target, this.mRepeatCounts[target] != repeatCount)) {
+                this.mPositions[target] = -1;
+                this.mActiveTargets--;
+                this.release(target);
+                return;
+            }
+
+            skipping = catchingUp;
+            this.captureFrom(target, skipping);
+
+            if (skipping && this.mRepeatCounts[target] != repeatCount) {
+                elapsed -= this.skipIterations(target, elapsed);
+            }
+
+            if (this.mRepeatCounts[target] != repeatCount) {
+                if (elapsed == iterationStart) {
+                    // a whole iteration has taken no time: the next one waits for the next frame
+                    return;
+                }
+                iterationStart = elapsed;
+            }
+        }
+    }
+
+    /**
+     * Moves the cursor of a target, standing at the start of an iteration, over as many whole
+     * iterations as fit in the given time and as the chain can still be repeated.<br/>
+     * Every iteration brings the target to the same state, or every couple of them when the
+     * chain is reversed, so nothing needs to be written.
+     *
+     * @return the time, in nanoseconds, taken by the skipped iterations
+     */
+    private long skipIterations(int target, long elapsed) {
+        if (this.mChain.isLazy()) {
+            return 0;
+        }
+
+        long iterationDuration = 0;
+        for (int position = 0; position < this.mCompiledChain.size(); position++) {
+            iterationDuration += (this.mCompiledChain.getStartDelay(position)
+                    + this.mCompiledChain.getDuration(position)) * NANOS_PER_MILLI;
+        }
+        if (iterationDuration == 0) {
+            return 0;
+        }
+
+        // the iteration the target stands at has to be played, so that the chain ends as usual
+        long iterations = elapsed / iterationDuration;
+        int maxRepeatCount = this.mChain.getRepeatCount();
+        if (maxRepeatCount != AnimatorChain.REPEAT_INFINITE) {
+            iterations = Math.min(iterations, maxRepeatCount - this.mRepeatCounts[target]);
+        }
+        if (this.mChain.getRepeatMode() == AnimatorChain.REPEAT_MODE_REVERSE) {
+            iterations &= ~1L;
+        }
+        if (iterations <= 0) {
+            return 0;
+        }
+
+        this.mRepeatCounts[target] += iterations;
+        this.mItemStartTimes[target] += iterations * iterationDuration;
+        return iterations * iterationDuration;
+    }
+
+    /**
+     * Moves the cursor of a target to its next item, restarting the chain if needed and allowed.
+     *
+     * @param notify {@code false} to restart the chain without notifying the listeners
+     * @return {@code true} if there is an item to execute, {@code false} if the chain is over
+     */
+    private boolean advance(int target, boolean notify) {
+        if (this.mChain.isLazy()) {
+            // the finished item leaves the window of the chain
+            this.mPositions[target] = 0;
+            return this.mChain.consumeChainItems(1);
+        }
+
+        int size = this.mCompiledChain.size();
+        boolean reversed = this.mChain.isReversed(this.mRepeatCounts[target]);
+        int position = this.mPositions[target] + (reversed ? -1 : 1);
+
+        if (position == (reversed ? -1 : size)) {
+            if (!this.mChain.canRepeat(this.mRepeatCounts[target])) {
+                return false;
+            }
+            this.mRepeatCounts[target]++;
+            position = this.mChain.isReversed(this.mRepeatCounts[target]) ? size - 1 : 0;
+
+            if (target == 0 && notify) {
+                this.mChain.dispatchRepeat(this.mRepeatCounts[target]);
+            }
+        }
+
+        this.mPositions[target] = position;
+        return true;
+    }
+
+    /**
+     * Takes the latest snapshot of the chain for the item a target has moved to.<br/>
+     * The positions of the targets refer to the running snapshot, so a snapshot with items
+     * added or removed is only taken when the target has just started a new iteration and
+     * no other target is running: until then the running snapshot is kept as it is.
+     *
+     * @param wrapped {@code true} if the target has just started a new iteration
+     * @return {@code true} if there is an item to execute, {@code false} if the new snapshot is empty
+     */
+    private boolean prepareChainItem(int target, boolean wrapped) {
+        CompiledAnimatorChain latest = this.mChain.prepareChainItem(this.mPositions[target]);
+        if (latest.size() == this.mCompiledChain.size() || this.mChain.isLazy()) {
+            this.mCompiledChain = latest;
+        } else if (wrapped && this.mActiveTargets == 1) {
+            this.mCompiledChain = latest;
+            if (latest.size() == 0) {
+                return false;
+            }
+            this.mPositions[target] = this.mChain.isReversed(this.mRepeatCounts[target]) ? latest.size() - 1 : 0;
+        }
+        return true;
+    }
+
+    /**
+     * Reads from a target the starting values of the properties animated by
+     * its current item, setting up its timing and its layer too.
+     *
+     * @param skipping {@code true} if the item is likely to be skipped: its timing is not
+     *                 degraded and its layer is left as it is
+     */
+    private void captureFrom(int target, boolean skipping) {
+        int position = this.mPositions[target];
+        int delayMs = this.mCompiledChain.getStartDelay(position);
+        int durationMs = this.mCompiledChain.getDuration(position);
+        boolean needsLayer = this.mChain.needsLayer(this.mCompiledChain, position, target);
+
+        int degradations = skipping ? 0 : this.degrade(target, position, delayMs, durationMs);
+
+        long delay = delayMs * NANOS_PER_MILLI;
+        long duration = durationMs * NANOS_PER_MILLI;
+        if (degradations != 0) {
+            AnimatorChainQualityPolicy qualityPolicy = this.mChain.getQualityPolicy();
+            delay = qualityPolicy.getDelay(delay, degradations);
+            duration = qualityPolicy.getDuration(duration, degradations);
+            needsLayer &= (degradations & AnimatorChainQualityPolicy.DEGRADATION_DROP_LAYERS) == 0;
+        }
+
+        this.mItemDelays[target] = delay;
+        this.mItemDurations[target] = duration;
+        if (!skipping) {
+            this.setHardwareLayer(target, needsLayer);
+        }
+
+        if (this.mChain.isReversed(this.mRepeatCounts[target])) {
+            if (!this.mCompiledChain.isStage(position)) {
+                int offset = target * AnimatorChainProperty.COUNT;
+                this.mCompiledChain.readFrom(position, this.mTargets[target], this.mFrom, offset);
+                this.mCompiledChain.readValuesBefore(position, this.mInitialValues, this.mTo, offset);
+            }
+        } else if (this.mCompiledChain.isStage(position)) {
+            this.mCompiledChain.readStageFrom(position, target, this.mTargets[target], this.mFrom,
+                    target * AnimatorChainProperty.COUNT);
+        } else {
+            this.mCompiledChain.readFrom(position, this.mTargets[target], this.mFrom,
+                    target * AnimatorChainProperty.COUNT);
+        }
+    }
+
+    /**
+     * Decides the degradations of the item a target is starting, unless another
+     * target has already reached it, so that the policy counts every item once.
+     */
+    private int degrade(int target, int position, int delayMs, int durationMs) {
+        if (this.mChain.getQualityPolicy() == null) {
+            return 0;
+        }
+
+        int repeatCount = this.mRepeatCounts[target];
+        int count = this.mTargets.length;
+        if (count > 1 && this.mDegradationRepeatCounts != null && position < this.mDegradationRepeatCounts.length
+                && this.mDegradationRepeatCounts[position] == repeatCount) {
+            return this.mDegradations[position];
+        }
+
+        // the layers can be dropped as long as any target needs one
+        boolean needsLayer = false;
+        for (int i = 0; i < count && !needsLayer; i++) {
+            needsLayer = this.mChain.needsLayer(this.mCompiledChain, position, i);
+        }
+
+        int degradations = this.mChain.degrade(this.mCompiledChain, position, repeatCount, delayMs, durationMs,
+                needsLayer);
+
+        if (count > 1) {
+            if (this.mDegradationRepeatCounts == null || position >= this.mDegradationRepeatCounts.length) {
+                int size = Math.max(this.mCompiledChain.size(), position + 1);
+                this.mDegradations = new int[size];
+                this.mDegradationRepeatCounts = new int[size];
+                Arrays.fill(this.mDegradationRepeatCounts, -1);
+            }
+            this.mDegradations[position] = degradations;
+            this.mDegradationRepeatCounts[position] = repeatCount;
+        }
+        return degradations;
+    }
+
+    private boolean isCollected(int target) {
+        return this.mTargets[target] instanceof ViewAnimatorChainTarget
+                && ((ViewAnimatorChainTarget) this.mTargets[target]).isCollected();
+    }
+
+    /**
+     * Restores the layer of a target and stops watching its detachment, once it's done.
+     */
+    private void release(int target) {
+        if (this.mTargets[target] instanceof ViewAnimatorChainTarget) {
+            ((ViewAnimatorChainTarget) this.mTargets[target]).release();
+        }
+    }
+
+    private void setHardwareLayer(int target, boolean enabled) {
+        if (this.mTargets[target] instanceof ViewAnimatorChainTarget) {
+            ((ViewAnimatorChainTarget) this.mTargets[target]).setHardwareLayer(enabled);
+        }
+    }
+
+    /**
+     * Writes to a target the values of the properties animated by its
+     * current item, at the given interpolated fraction.
+     */
+    private void write(int target, float interpolated) {
+        this.mCompiledChain.writeTo(this.mPositions[target], this.mFrom, target * AnimatorChainProperty.COUNT,
+                interpolated, this.mTargets[target]);
+    }
+
+    /**
+     * Writes to a target the values of the properties animated by its current
+     * item played backward, at the given reversed interpolated fraction.
+     */
+    private void writeReversed(int target, float interpolated) {
+        this.mCompiledChain.writeReversedTo(this.mPositions[target], this.mFrom, this.mTo,
+                target * AnimatorChainProperty.COUNT, interpolated, this.mTargets[target]);
+    }
+
+    /**
+     * Reads the values of all the properties of every target before the first item,
+     * which the backward iterations bring the targets back to.
+     */
+    private void captureInitialValues() {
+        int count = this.mTargets.length * AnimatorChainProperty.COUNT;
+        if (this.mInitialValues == null) {
+            this.mInitialValues = new float[count];
+            this.mTo = new float[count];
+        }
+
+        for (int target = 0; target < this.mTargets.length; target++) {
+            for (int property = 0; property < AnimatorChainProperty.COUNT; property++) {
+                this.mInitialValues[target * AnimatorChainProperty.COUNT + property] =
+                        this.mTargets[target].getProperty(property);
+            }
+        }
+    }
+
+    /**
+     * Writes to a target the values of the properties animated by the children
+     * of its current stage, at the given interpolated fraction of the stage.
+     */
+    private void writeStage(int target, float interpolated) {
+        this.mCompiledChain.writeStageTo(this.mPositions[target], target, interpolated, this.mFrom,
+                target * AnimatorChainProperty.COUNT, this.mTargets[target]);
+    }
+
+    // endregion
+}
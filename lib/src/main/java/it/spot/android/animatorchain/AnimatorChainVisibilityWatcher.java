@@ -0,0 +1,195 @@
+package it.spot.android.animatorchain;
+
+import android.graphics.Point;
+import android.graphics.Rect;
+import android.view.View;
+import android.view.ViewParent;
+import android.view.ViewTreeObserver;
+
+/**
+ * This class watches the target views of an {@link AnimatorChainTimeline}, suspending
+ * it while none of them can be seen and waking it up as soon as one of them is shown
+ * again.<br/>
+ * Detaching from the window is caught by a {@link View.OnAttachStateChangeListener},
+ * while the visibility is checked by the timeline at every frame: a view can be seen
+ * when it's shown and the place it's laid out at isn't scrolled or clipped away by its
+ * parents. The transformations of the view itself are left out, so that a view the
+ * chain moves in from outside of the screen isn't suspended before it's moved. While suspended,
+ * the only work left is a cheap check before every draw of the window.<br/>
+ * The views are reached through their targets, so that they're held weakly when
+ * the chain holds them weakly, and a collected view is never shown again.
+ *
+ * @author a.rinaldi
+ */
+class AnimatorChainVisibilityWatcher implements View.OnAttachStateChangeListener, ViewTreeObserver.OnPreDrawListener {
+
+    private final AnimatorChainTimeline mTimeline;
+    private final ViewAnimatorChainTarget[] mTargets;
+    private final ViewTreeObserver[] mObservers;
+    private final Rect mVisibleRect;
+    private final Point mParentOffset;
+
+    private boolean mSuspended;
+
+    // region Construction
+
+    AnimatorChainVisibilityWatcher(AnimatorChainTimeline timeline, ViewAnimatorChainTarget[] targets) {
+        super();
+
+        this.mTimeline = timeline;
+        this.mTargets = targets.clone();
+        this.mObservers = new ViewTreeObserver[targets.length];
+        this.mVisibleRect = new Rect();
+        this.mParentOffset = new Point();
+    }
+
+    // endregion
+
+    // region Package methods
+
+    /**
+     * Starts watching the views.
+     */
+    void start() {
+        for (ViewAnimatorChainTarget target : this.mTargets) {
+            View view = target.getView();
+            if (view != null) {
+                view.addOnAttachStateChangeListener(this);
+            }
+        }
+    }
+
+    /**
+     * Stops watching the views, removing all the registered listeners.
+     */
+    void stop() {
+        for (ViewAnimatorChainTarget target : this.mTargets) {
+            View view = target.getView();
+            if (view != null) {
+                view.removeOnAttachStateChangeListener(this);
+            }
+        }
+        this.unregisterPreDraw();
+        this.mSuspended = false;
+    }
+
+    /**
+     * Tells whether at least one of the views is attached, shown and laid out
+     * inside the visible part of the window.
+     *
+     * @return {@code true} if some view can be seen
+     */
+    boolean isAnyViewShown() {
+        for (ViewAnimatorChainTarget target : this.mTargets) {
+            View view = target.getView();
+            if (view != null && view.getWindowToken() != null && view.isShown() && this.isOnScreen(view)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Suspends the timeline and waits for one of the views to be shown again.
+     */
+    void suspend() {
+        if (this.mSuspended) {
+            return;
+        }
+
+        this.mSuspended = true;
+        this.mTimeline.suspend();
+        this.registerPreDraw();
+    }
+
+    // endregion
+
+    // region View.OnAttachStateChangeListener implementation
+
+    @Override
+    public void onViewAttachedToWindow(View v) {
+        if (!this.mSuspended) {
+            return;
+        }
+
+        if (this.isAnyViewShown()) {
+            this.wake();
+        } else {
+            // the observer of a view changes when it's attached
+            this.unregisterPreDraw();
+            this.registerPreDraw();
+        }
+    }
+
+    @Override
+    public void onViewDetachedFromWindow(View v) {
+        if (!this.isAnyViewShown()) {
+            this.suspend();
+        }
+    }
+
+    // endregion
+
+    // region ViewTreeObserver.OnPreDrawListener implementation
+
+    @Override
+    public boolean onPreDraw() {
+        if (this.mSuspended && this.isAnyViewShown()) {
+            this.wake();
+        }
+        return true;
+    }
+
+    // endregion
+
+    // region Private methods
+
+    private void wake() {
+        this.mSuspended = false;
+        this.unregisterPreDraw();
+        this.mTimeline.wake();
+    }
+
+    /**
+     * Tells whether the bounds a view is laid out at intersect the part of its parent
+     * left visible by the scrolling and the clipping of the hierarchy.
+     */
+    private boolean isOnScreen(View view) {
+        ViewParent parent = view.getParent();
+        if (!(parent instanceof View)) {
+            return true;
+        }
+
+        View parentView = (View) parent;
+        if (!parentView.getGlobalVisibleRect(this.mVisibleRect, this.mParentOffset)) {
+            return false;
+        }
+
+        int left = this.mParentOffset.x + view.getLeft();
+        int top = this.mParentOffset.y + view.getTop();
+        return this.mVisibleRect.intersects(left, top, left + view.getWidth(), top + view.getHeight());
+    }
+
+    private void registerPreDraw() {
+        for (int i = 0; i < this.mTargets.length; i++) {
+            View view = this.mTargets[i].getView();
+            if (this.mObservers[i] == null && view != null) {
+                this.mObservers[i] = view.getViewTreeObserver();
+                this.mObservers[i].addOnPreDrawListener(this);
+            }
+        }
+    }
+
+    private void unregisterPreDraw() {
+        for (int i = 0; i < this.mObservers.length; i++) {
+            if (this.mObservers[i] != null) {
+                if (this.mObservers[i].isAlive()) {
+                    this.mObservers[i].removeOnPreDrawListener(this);
+                }
+                this.mObservers[i] = null;
+            }
+        }
+    }
+
+    // endregion
+}
@@ -0,0 +1,160 @@
+package it.spot.android.animatorchain;
+
+import android.animation.TimeInterpolator;
+
+import java.lang.ref.WeakReference;
+import java.util.WeakHashMap;
+
+/**
+ * This class is a {@link TimeInterpolator} that replaces an expensive curve, such as
+ * a path based or composite one, with a table of its values sampled at regular
+ * intervals, linearly interpolated at every frame.<br/>
+ * The number of samples trades precision for memory and baking time: the error of
+ * the linear interpolation decreases with the square of the number of samples for
+ * smooth curves, while an evaluation always costs one table lookup. Curves cheaper
+ * than a lookup, such as most of the framework analytic ones, don't need baking.<br/>
+ * Baked curves are cached by the identity of their source interpolator and number of
+ * samples, so that all the items using the same curve share the same table. The cache
+ * doesn't keep the source interpolators alive.
+ *
+ * @author a.rinaldi
+ */
+public final class BakedInterpolator implements TimeInterpolator {
+
+    /**
+     * The number of samples used by {@link #bake(TimeInterpolator)}.
+     */
+    public static final int DEFAULT_SAMPLES = 256;
+
+    private static final int MIN_SAMPLES = 2;
+
+    private static final WeakHashMap<TimeInterpolator, BakedInterpolator[]> sCache =
+            new WeakHashMap<TimeInterpolator, BakedInterpolator[]>();
+
+    private final WeakReference<TimeInterpolator> mSource;
+    private final float[] mValues;
+    private final float[] mSlopes;
+    private final int mLastIndex;
+
+    // region Construction
+
+    private BakedInterpolator(TimeInterpolator source, int samples) {
+        super();
+
+        this.mSource = new WeakReference<TimeInterpolator>(source);
+        this.mValues = new float[samples];
+        this.mSlopes = new float[samples];
+        this.mLastIndex = samples - 1;
+
+        for (int i = 0; i < samples; i++) {
+            this.mValues[i] = source.getInterpolation((float) i / this.mLastIndex);
+        }
+
+        // the differences between following samples, so that an evaluation reads a single row
+        for (int i = 0; i < this.mLastIndex; i++) {
+            this.mSlopes[i] = this.mValues[i + 1] - this.mValues[i];
+        }
+    }
+
+    /**
+     * Bakes a curve with {@link #DEFAULT_SAMPLES} samples.
+     *
+     * @param source the curve to bake
+     * @return the baked curve, shared with the previous calls for the same curve
+     */
+    public static BakedInterpolator bake(TimeInterpolator source) {
+        return bake(source, DEFAULT_SAMPLES);
+    }
+
+    /**
+     * Bakes a curve with the given number of samples, including both ends.
+     *
+     * @param source  the curve to bake
+     * @param samples the number of samples, at least {@code 2}
+     * @return the baked curve, shared with the previous calls for the same curve and samples
+     */
+    public static BakedInterpolator bake(TimeInterpolator source, int samples) {
+        if (samples < MIN_SAMPLES) {
+            throw new IllegalArgumentException("At least " + MIN_SAMPLES + " samples are needed: " + samples);
+        }
+
+        if (source instanceof BakedInterpolator && ((BakedInterpolator) source).getSamples() == samples) {
+            return (BakedInterpolator) source;
+        }
+
+        synchronized (sCache) {
+            BakedInterpolator[] baked = sCache.get(source);
+            if (baked != null) {
+                for (BakedInterpolator interpolator : baked) {
+                    if (interpolator.getSamples() == samples) {
+                        return interpolator;
+                    }
+                }
+            }
+
+            BakedInterpolator interpolator = new BakedInterpolator(source, samples);
+
+            int size = baked != null ? baked.length : 0;
+            BakedInterpolator[] newBaked = new BakedInterpolator[size + 1];
+            if (baked != null) {
+                System.arraycopy(baked, 0, newBaked, 0, size);
+            }
+            newBaked[size] = interpolator;
+            sCache.put(source, newBaked);
+
+            return interpolator;
+        }
+    }
+
+    // endregion
+
+    // region Public methods
+
+    /**
+     * Removes all the baked curves from the cache; the curves already
+     * in use keep working.
+     */
+    public static void clearCache() {
+        synchronized (sCache) {
+            sCache.clear();
+        }
+    }
+
+    public int getSamples() {
+        return this.mValues.length;
+    }
+
+    // endregion
+
+    // region Package methods
+
+    /**
+     * Gets the curve that has been baked, held weakly so that the cache doesn't keep it alive.
+     *
+     * @return the source curve, or {@code null} if it has been collected
+     */
+    TimeInterpolator getSource() {
+        return this.mSource.get();
+    }
+
+    // endregion
+
+    // region TimeInterpolator implementation
+
+    @Override
+    public float getInterpolation(float input) {
+        float position = input * this.mLastIndex;
+
+        if (!(position > 0f)) {
+            return this.mValues[0];
+        }
+        if (!(position < this.mLastIndex)) {
+            return this.mValues[this.mLastIndex];
+        }
+
+        int index = (int) position;
+        return this.mValues[index] + this.mSlopes[index] * (position - index);
+    }
+
+    // endregion
+}
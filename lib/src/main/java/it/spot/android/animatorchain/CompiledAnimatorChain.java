@@ -0,0 +1,635 @@
+package it.spot.android.animatorchain;
+
+import android.animation.TimeInterpolator;
+import android.view.ViewPropertyAnimator;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class is an immutable snapshot of the items of an {@link AnimatorChain},
+ * packed into flat arrays of primitives.<br/>
+ * Every item becomes a row made of a bitmask of the animated properties, the
+ * target values (one slot per {@link AnimatorChainProperty}), the duration, the
+ * start delay, the layer policy and the index of its interpolator in a shared table.<br/>
+ * An {@link AnimatorChainStage} becomes a row without properties, lasting as long as
+ * its longest child, that refers to a nested snapshot of its children.<br/>
+ * Reading a row is a plain array access, without taking any lock on the items.
+ * Changes made to the items through their setters are picked up by
+ * {@link #patch(List, int)}, which the chain calls when it reaches an item.
+ *
+ * @author a.rinaldi
+ */
+public final class CompiledAnimatorChain {
+
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    private final AnimatorChainItem[] mItems;
+    private final int[] mVersions;
+    private final int[] mPropertyMasks;
+    private final float[] mTargets;
+    private final int[] mDurations;
+    private final int[] mDelays;
+    private final int[] mLayerPolicies;
+    private final int[] mInterpolatorIndexes;
+    private final TimeInterpolator[] mInterpolators;
+    private final CompiledAnimatorChain[] mStages;
+    private final int[][] mStageTargets;
+    private final boolean mHasStages;
+    private TimeInterpolator[] mReversedInterpolators;
+
+    // region Construction
+
+    private CompiledAnimatorChain(AnimatorChainItem[] items, int[] versions, int[] propertyMasks, float[] targets,
+                                  int[] durations, int[] delays, int[] layerPolicies, int[] interpolatorIndexes,
+                                  TimeInterpolator[] interpolators, CompiledAnimatorChain[] stages,
+                                  int[][] stageTargets) {
+        super();
+
+        this.mItems = items;
+        this.mVersions = versions;
+        this.mPropertyMasks = propertyMasks;
+        this.mTargets = targets;
+        this.mDurations = durations;
+        this.mDelays = delays;
+        this.mLayerPolicies = layerPolicies;
+        this.mInterpolatorIndexes = interpolatorIndexes;
+        this.mInterpolators = interpolators;
+        this.mStages = stages;
+        this.mStageTargets = stageTargets;
+
+        boolean hasStages = false;
+        for (CompiledAnimatorChain stage : stages) {
+            hasStages |= stage != null;
+        }
+        this.mHasStages = hasStages;
+    }
+
+    /**
+     * Packs the given items into a new snapshot.<br/>
+     * Every item is read from a single published version, and interpolators shared by more items
+     * are stored only once.
+     *
+     * @param items the items to compile
+     * @return the snapshot
+     */
+    public static CompiledAnimatorChain compile(List<AnimatorChainItem> items) {
+        int size = items.size();
+
+        AnimatorChainItem[] itemsArray = items.toArray(new AnimatorChainItem[size]);
+        int[] versions = new int[size];
+        int[] propertyMasks = new int[size];
+        float[] targets = new float[size * AnimatorChainProperty.COUNT];
+        int[] durations = new int[size];
+        int[] delays = new int[size];
+        int[] layerPolicies = new int[size];
+        int[] interpolatorIndexes = new int[size];
+        TimeInterpolator[] interpolators = new TimeInterpolator[size];
+        CompiledAnimatorChain[] stages = new CompiledAnimatorChain[size];
+        int[][] stageTargets = new int[size][];
+        int interpolatorsCount = 0;
+
+        Row row = new Row();
+        for (int i = 0; i < size; i++) {
+            itemsArray[i].readInto(row);
+
+            int index = indexOf(interpolators, interpolatorsCount, row.interpolator);
+            if (index < 0) {
+                index = interpolatorsCount;
+                interpolators[interpolatorsCount++] = row.interpolator;
+            }
+
+            row.copyTo(i, versions, propertyMasks, targets, durations, delays, layerPolicies);
+            interpolatorIndexes[i] = index;
+            stages[i] = row.stage;
+            stageTargets[i] = row.stageTargets;
+        }
+
+        TimeInterpolator[] sharedInterpolators = new TimeInterpolator[interpolatorsCount];
+        System.arraycopy(interpolators, 0, sharedInterpolators, 0, interpolatorsCount);
+
+        return new CompiledAnimatorChain(itemsArray, versions, propertyMasks, targets, durations, delays,
+                layerPolicies, interpolatorIndexes, sharedInterpolators, stages, stageTargets);
+    }
+
+    // endregion
+
+    // region Public methods
+
+    /**
+     * Returns a snapshot whose row at the given index reflects the current state
+     * of the corresponding item.<br/>
+     * If the row is already up to date the snapshot itself is returned; if the list
+     * of items has changed since the compilation, the whole list is compiled again.
+     *
+     * @param items    the items the snapshot has been compiled from
+     * @param position the index of the row to check
+     * @return an up to date snapshot for the given row
+     */
+    public CompiledAnimatorChain patch(List<AnimatorChainItem> items, int position) {
+        if (!this.isSameStructure(items)) {
+            return compile(items);
+        }
+        return this.patch(position);
+    }
+
+    /**
+     * Tells whether the snapshot reflects the current state of all the given items.
+     *
+     * @param items the items the snapshot has been compiled from
+     * @return {@code true} if no item has been added, removed or changed
+     */
+    public boolean isCurrent(List<AnimatorChainItem> items) {
+        return this.isSameStructure(items) && this.isCurrent();
+    }
+
+    /**
+     * Applies the properties of a row to an instance of
+     * {@link ViewPropertyAnimator} without starting it.
+     *
+     * @param position the index of the row
+     * @param animator the {@link ViewPropertyAnimator} to set up
+     * @return the animator itself, allowing chaining.
+     */
+    public ViewPropertyAnimator apply(int position, ViewPropertyAnimator animator) {
+        animator.setDuration(this.mDurations[position])
+                .setStartDelay(this.mDelays[position])
+                .setInterpolator(this.getInterpolator(position));
+
+        int mask = this.mPropertyMasks[position];
+        int offset = position * AnimatorChainProperty.COUNT;
+
+        for (int property = 0; property < AnimatorChainProperty.COUNT; property++) {
+            if ((mask & (1 << property)) != 0) {
+                AnimatorChainProperty.animate(animator, property, this.mTargets[offset + property]);
+            }
+        }
+
+        return animator;
+    }
+
+    /**
+     * Applies the reverse of a row to an instance of {@link ViewPropertyAnimator}
+     * without starting it: the properties go back to the values they had before
+     * the row, along the mirror of its forward motion.
+     *
+     * @param position      the index of the row
+     * @param animator      the {@link ViewPropertyAnimator} to set up
+     * @param initialValues the values of the properties before the first row, one slot per property
+     * @param startDelay    the delay, in milliseconds, before the motion
+     * @return the animator itself, allowing chaining.
+     */
+    public ViewPropertyAnimator applyReversed(int position, ViewPropertyAnimator animator, float[] initialValues,
+                                              long startDelay) {
+        animator.setDuration(this.mDurations[position])
+                .setStartDelay(startDelay)
+                .setInterpolator(this.getReversedInterpolator(position));
+
+        int mask = this.mPropertyMasks[position];
+        for (int property = 0; property < AnimatorChainProperty.COUNT; property++) {
+            if ((mask & (1 << property)) != 0) {
+                AnimatorChainProperty.animate(animator, property,
+                        this.getValueBefore(position, property, initialValues, 0));
+            }
+        }
+
+        return animator;
+    }
+
+    public int size() {
+        return this.mItems.length;
+    }
+
+    /**
+     * Gets the bitmask of the properties animated by a row, where the
+     * bit {@code 1 << property} is set for every animated property.
+     *
+     * @param position the index of the row
+     * @return the bitmask
+     */
+    public int getPropertyMask(int position) {
+        return this.mPropertyMasks[position];
+    }
+
+    public boolean hasProperty(int position, int property) {
+        return (this.mPropertyMasks[position] & (1 << property)) != 0;
+    }
+
+    public float getTarget(int position, int property) {
+        return this.mTargets[position * AnimatorChainProperty.COUNT + property];
+    }
+
+    public int getDuration(int position) {
+        return this.mDurations[position];
+    }
+
+    public int getStartDelay(int position) {
+        return this.mDelays[position];
+    }
+
+    /**
+     * Gets the layer policy of a row, as set on its item.
+     *
+     * @param position the index of the row
+     * @return one of the {@code AnimatorChain.LAYER_POLICY_*} constants
+     */
+    public int getLayerPolicy(int position) {
+        return this.mLayerPolicies[position];
+    }
+
+    public int getInterpolatorIndex(int position) {
+        return this.mInterpolatorIndexes[position];
+    }
+
+    public TimeInterpolator getInterpolator(int position) {
+        return this.mInterpolators[this.mInterpolatorIndexes[position]];
+    }
+
+    /**
+     * Gets the interpolator of a row played backward in time.<br/>
+     * The reversed interpolators are created on first use, once per distinct
+     * interpolator, and shared like the interpolators themselves.
+     *
+     * @param position the index of the row
+     * @return the reversed interpolator
+     */
+    public TimeInterpolator getReversedInterpolator(int position) {
+        TimeInterpolator[] reversedInterpolators = this.mReversedInterpolators;
+        if (reversedInterpolators == null) {
+            // a race only creates some equivalent interpolators twice
+            reversedInterpolators = new TimeInterpolator[this.mInterpolators.length];
+            for (int i = 0; i < reversedInterpolators.length; i++) {
+                if (this.mInterpolators[i] != null) {
+                    reversedInterpolators[i] = new ReversedInterpolator(this.mInterpolators[i]);
+                }
+            }
+            this.mReversedInterpolators = reversedInterpolators;
+        }
+        return reversedInterpolators[this.mInterpolatorIndexes[position]];
+    }
+
+    /**
+     * Gets the value a property had before a row, i.e. the target of the last
+     * previous row animating it, or its initial value if none does.<br/>
+     * Stages are not taken into account.
+     *
+     * @param position      the index of the row
+     * @param property      the property, one of the {@link AnimatorChainProperty} constants
+     * @param initialValues the values of the properties before the first row
+     * @param offset        the index of the first slot of the initial values
+     * @return the value
+     */
+    public float getValueBefore(int position, int property, float[] initialValues, int offset) {
+        int bit = 1 << property;
+        for (int i = position - 1; i >= 0; i--) {
+            if ((this.mPropertyMasks[i] & bit) != 0) {
+                return this.mTargets[i * AnimatorChainProperty.COUNT + property];
+            }
+        }
+        return initialValues[offset + property];
+    }
+
+    /**
+     * Tells whether some row comes from an {@link AnimatorChainStage}.
+     *
+     * @return {@code true} if the snapshot contains stages
+     */
+    public boolean hasStages() {
+        return this.mHasStages;
+    }
+
+    public boolean isStage(int position) {
+        return this.mStages[position] != null;
+    }
+
+    /**
+     * Gets the snapshot of the children of a stage.
+     *
+     * @param position the index of the row
+     * @return the children, or {@code null} if the row is not a stage
+     */
+    public CompiledAnimatorChain getStage(int position) {
+        return this.mStages[position];
+    }
+
+    /**
+     * Gets the index of the target a child of a stage is applied to.
+     *
+     * @param position the index of the row
+     * @param child    the index of the child
+     * @return the index of the target, or {@link AnimatorChainStage#ALL_TARGETS}
+     */
+    public int getStageTarget(int position, int child) {
+        return this.mStageTargets[position][child];
+    }
+
+    /**
+     * Gets the bitmask of the properties animated by a row, including the
+     * children of a stage for the given target.
+     *
+     * @param position    the index of the row
+     * @param targetIndex the index of the target
+     * @return the bitmask
+     */
+    public int getPropertyMask(int position, int targetIndex) {
+        CompiledAnimatorChain stage = this.mStages[position];
+        if (stage == null) {
+            return this.mPropertyMasks[position];
+        }
+
+        int mask = 0;
+        for (int child = 0; child < stage.size(); child++) {
+            if (this.appliesTo(position, child, targetIndex)) {
+                mask |= stage.mPropertyMasks[child];
+            }
+        }
+        return mask;
+    }
+
+    // endregion
+
+    // region Package methods
+
+    /**
+     * Returns a snapshot whose row at the given index reflects the current state
+     * of the corresponding item, for a caller that knows the list of items hasn't
+     * changed since the compilation.<br/>
+     * A position beyond the last row, held by a caller still running an older snapshot
+     * with more items, has nothing to check.
+     *
+     * @param position the index of the row to check
+     * @return an up to date snapshot for the given row
+     */
+    CompiledAnimatorChain patch(int position) {
+        if (position >= this.mItems.length) {
+            return this;
+        }
+
+        AnimatorChainItem item = this.mItems[position];
+        if (item.getVersion() == this.mVersions[position]) {
+            return this;
+        }
+
+        Row row = new Row();
+        item.readInto(row);
+
+        int[] versions = this.mVersions.clone();
+        int[] propertyMasks = this.mPropertyMasks.clone();
+        float[] targets = this.mTargets.clone();
+        int[] durations = this.mDurations.clone();
+        int[] delays = this.mDelays.clone();
+        int[] layerPolicies = this.mLayerPolicies.clone();
+        int[] interpolatorIndexes = this.mInterpolatorIndexes.clone();
+        CompiledAnimatorChain[] stages = this.mStages.clone();
+        int[][] stageTargets = this.mStageTargets.clone();
+        TimeInterpolator[] interpolators = this.mInterpolators;
+
+        int index = indexOf(interpolators, interpolators.length, row.interpolator);
+        if (index < 0) {
+            index = interpolators.length;
+            interpolators = new TimeInterpolator[index + 1];
+            System.arraycopy(this.mInterpolators, 0, interpolators, 0, index);
+            interpolators[index] = row.interpolator;
+        }
+
+        row.copyTo(position, versions, propertyMasks, targets, durations, delays, layerPolicies);
+        interpolatorIndexes[position] = index;
+        stages[position] = row.stage;
+        stageTargets[position] = row.stageTargets;
+
+        return new CompiledAnimatorChain(this.mItems, versions, propertyMasks, targets, durations, delays,
+                layerPolicies, interpolatorIndexes, interpolators, stages, stageTargets);
+    }
+
+    /**
+     * Tells whether the snapshot reflects the current state of its items, for a
+     * caller that knows the list of items hasn't changed since the compilation.
+     *
+     * @return {@code true} if no item has changed
+     */
+    boolean isCurrent() {
+        for (int i = 0; i < this.mItems.length; i++) {
+            if (this.mItems[i].getVersion() != this.mVersions[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads from a target the starting values of the properties animated by a row.
+     *
+     * @param position the index of the row
+     * @param target   the target to read from
+     * @param from     the array to store the values into, one slot per property
+     * @param offset   the index of the first slot in the array
+     */
+    void readFrom(int position, IAnimatorChainTarget target, float[] from, int offset) {
+        int mask = this.mPropertyMasks[position];
+
+        for (int property = 0; property < AnimatorChainProperty.COUNT; property++) {
+            if ((mask & (1 << property)) != 0) {
+                from[offset + property] = target.getProperty(property);
+            }
+        }
+    }
+
+    /**
+     * Writes to a target the values of the properties animated by a row,
+     * at the given interpolated fraction.
+     *
+     * @param position     the index of the row
+     * @param from         the starting values, one slot per property
+     * @param offset       the index of the first slot in the array
+     * @param interpolated the interpolated fraction of the row
+     * @param target       the target to write to
+     */
+    void writeTo(int position, float[] from, int offset, float interpolated, IAnimatorChainTarget target) {
+        int mask = this.mPropertyMasks[position];
+        int targetsOffset = position * AnimatorChainProperty.COUNT;
+
+        for (int property = 0; property < AnimatorChainProperty.COUNT; property++) {
+            if ((mask & (1 << property)) != 0) {
+                float start = from[offset + property];
+                target.setProperty(property, start + (this.mTargets[targetsOffset + property] - start) * interpolated);
+            }
+        }
+    }
+
+    /**
+     * Computes the values the properties animated by a row had before it, to
+     * play the row backward.
+     *
+     * @param position      the index of the row
+     * @param initialValues the values of the properties before the first row, one slot per property
+     * @param to            the array to store the values into, one slot per property
+     * @param offset        the index of the first slot in both arrays
+     */
+    void readValuesBefore(int position, float[] initialValues, float[] to, int offset) {
+        int mask = this.mPropertyMasks[position];
+
+        for (int property = 0; property < AnimatorChainProperty.COUNT; property++) {
+            if ((mask & (1 << property)) != 0) {
+                to[offset + property] = this.getValueBefore(position, property, initialValues, offset);
+            }
+        }
+    }
+
+    /**
+     * Writes to a target the values of the properties animated by a row played
+     * backward, at the given interpolated fraction.
+     *
+     * @param position     the index of the row
+     * @param from         the values at the start of the reversed row, one slot per property
+     * @param to           the values before the row, one slot per property
+     * @param offset       the index of the first slot in both arrays
+     * @param interpolated the reversed interpolated fraction of the row
+     * @param target       the target to write to
+     */
+    void writeReversedTo(int position, float[] from, float[] to, int offset, float interpolated,
+                         IAnimatorChainTarget target) {
+        int mask = this.mPropertyMasks[position];
+
+        for (int property = 0; property < AnimatorChainProperty.COUNT; property++) {
+            if ((mask & (1 << property)) != 0) {
+                float start = from[offset + property];
+                target.setProperty(property, start + (to[offset + property] - start) * interpolated);
+            }
+        }
+    }
+
+    /**
+     * Reads from a target the starting values of the properties animated by
+     * the children of a stage applied to it.
+     *
+     * @param position    the index of the row
+     * @param targetIndex the index of the target
+     * @param target      the target to read from
+     * @param from        the array to store the values into, one slot per property
+     * @param offset      the index of the first slot in the array
+     */
+    void readStageFrom(int position, int targetIndex, IAnimatorChainTarget target, float[] from, int offset) {
+        CompiledAnimatorChain stage = this.mStages[position];
+
+        for (int child = 0; child < stage.size(); child++) {
+            if (this.appliesTo(position, child, targetIndex)) {
+                stage.readFrom(child, target, from, offset);
+            }
+        }
+    }
+
+    /**
+     * Writes to a target the values of the properties animated by the children
+     * of a stage applied to it, each one at its own fraction.<br/>
+     * The interpolated fraction of the stage is mapped back to a time of the stage,
+     * so that its interpolator warps the time seen by all the children.
+     *
+     * @param position     the index of the row
+     * @param targetIndex  the index of the target
+     * @param interpolated the interpolated fraction of the stage
+     * @param from         the starting values, one slot per property
+     * @param offset       the index of the first slot in the array
+     * @param target       the target to write to
+     */
+    void writeStageTo(int position, int targetIndex, float interpolated, float[] from, int offset,
+                      IAnimatorChainTarget target) {
+        CompiledAnimatorChain stage = this.mStages[position];
+        long elapsedNanos = (long) ((double) interpolated * this.mDurations[position] * NANOS_PER_MILLI);
+
+        for (int child = 0; child < stage.size(); child++) {
+            if (!this.appliesTo(position, child, targetIndex)) {
+                continue;
+            }
+
+            long delay = stage.mDelays[child] * NANOS_PER_MILLI;
+            long duration = stage.mDurations[child] * NANOS_PER_MILLI;
+
+            float fraction;
+            if (elapsedNanos <= delay) {
+                fraction = 0f;
+            } else if (elapsedNanos >= delay + duration) {
+                fraction = 1f;
+            } else {
+                fraction = (float) (elapsedNanos - delay) / duration;
+            }
+
+            stage.writeTo(child, from, offset, stage.getInterpolator(child).getInterpolation(fraction), target);
+        }
+    }
+
+    // endregion
+
+    // region Private methods
+
+    private boolean appliesTo(int position, int child, int targetIndex) {
+        int stageTarget = this.mStageTargets[position][child];
+        return stageTarget == AnimatorChainStage.ALL_TARGETS || stageTarget == targetIndex;
+    }
+
+    private boolean isSameStructure(List<AnimatorChainItem> items) {
+        if (items.size() != this.mItems.length) {
+            return false;
+        }
+
+        for (int i = 0; i < this.mItems.length; i++) {
+            if (items.get(i) != this.mItems[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(TimeInterpolator[] interpolators, int count, TimeInterpolator interpolator) {
+        for (int i = 0; i < count; i++) {
+            if (interpolators[i] == interpolator) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // endregion
+
+    // region Inner classes
+
+    /**
+     * A mutable holder used to read an {@link AnimatorChainItem} atomically.
+     */
+    static final class Row {
+
+        int version;
+        int mask;
+        int duration;
+        int delay;
+        int layerPolicy;
+        TimeInterpolator interpolator;
+        CompiledAnimatorChain stage;
+        int[] stageTargets;
+        final float[] targets = new float[AnimatorChainProperty.COUNT];
+
+        void reset() {
+            this.mask = 0;
+            this.stage = null;
+            this.stageTargets = null;
+            Arrays.fill(this.targets, 0f);
+        }
+
+        void set(int property, float value) {
+            this.mask |= 1 << property;
+            this.targets[property] = value;
+        }
+
+        void copyTo(int position, int[] versions, int[] propertyMasks, float[] targets, int[] durations, int[] delays,
+                    int[] layerPolicies) {
+            versions[position] = this.version;
+            propertyMasks[position] = this.mask;
+            durations[position] = this.duration;
+            delays[position] = this.delay;
+            layerPolicies[position] = this.layerPolicy;
+            System.arraycopy(this.targets, 0, targets, position * AnimatorChainProperty.COUNT,
+                    AnimatorChainProperty.COUNT);
+        }
+    }
+
+    // endregion
+}
@@ -0,0 +1,22 @@
+package it.spot.android.animatorchain;
+
+/**
+ * A listener interface that, besides the events of every chained animation item,
+ * allows to be notified when the whole chain is repeated or completed.
+ *
+ * @author a.rinaldi
+ */
+public interface IAnimatorChainEventListener extends IAnimatorChainListener {
+
+    /**
+     * Notifies that the chain has reached its end and is about to be restarted.
+     *
+     * @param repeatCount the times the chain has been restarted, including this one
+     */
+    void onChainRepeat(int repeatCount);
+
+    /**
+     * Notifies that the execution of the chain is over.
+     */
+    void onChainComplete();
+}
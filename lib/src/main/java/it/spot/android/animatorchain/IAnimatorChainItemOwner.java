@@ -0,0 +1,19 @@
+package it.spot.android.animatorchain;
+
+/**
+ * A simple interface that represents anything holding some {@link AnimatorChainItem}s,
+ * such as a chain or a stage, that wants to know when they change instead of
+ * looking at them one by one.
+ *
+ * @author a.rinaldi
+ */
+interface IAnimatorChainItemOwner {
+
+    /**
+     * Notifies that a new version of an item has been published.<br/>
+     * It can be called from any thread, by the thread that changed the item.
+     *
+     * @param item the changed item
+     */
+    void onItemChanged(AnimatorChainItem item);
+}
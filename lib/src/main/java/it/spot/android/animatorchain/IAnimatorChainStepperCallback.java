@@ -0,0 +1,66 @@
+package it.spot.android.animatorchain;
+
+/**
+ * A simple interface that represents an execution driven by an
+ * {@link AnimatorChainStepper}, which writes the values of its targets and
+ * reacts to the item boundaries crossed by every frame.<br/>
+ * The notifications return {@code false} when the execution has been
+ * cancelled or restarted meanwhile, so that the stepper stops at once.
+ *
+ * @author a.rinaldi
+ */
+interface IAnimatorChainStepperCallback {
+
+    /**
+     * Notifies that the delay of an item is over for a target.
+     *
+     * @param slot     the index of the target
+     * @param position the index of the item
+     * @return {@code false} if the execution has been stopped
+     */
+    boolean onItemStart(int slot, int position);
+
+    /**
+     * Notifies that an item is finished for a target, whose values have already been written.
+     *
+     * @param slot     the index of the target
+     * @param position the index of the item
+     * @return {@code false} if the execution has been stopped
+     */
+    boolean onItemEnd(int slot, int position);
+
+    /**
+     * Tells whether the chain can be played again by a target at the end of an iteration.
+     *
+     * @param slot        the index of the target
+     * @param repeatCount the number of repetitions already started
+     * @return {@code true} if the chain can be repeated
+     */
+    boolean canRepeat(int slot, int repeatCount);
+
+    /**
+     * Notifies that a target has started a new iteration.
+     *
+     * @param slot        the index of the target
+     * @param repeatCount the number of repetitions started so far
+     * @return {@code false} if the execution has been stopped
+     */
+    boolean onRepeat(int slot, int repeatCount);
+
+    /**
+     * Reads the starting values of the item a target is about to play.
+     *
+     * @param slot     the index of the target
+     * @param position the index of the item
+     */
+    void captureFrom(int slot, int position);
+
+    /**
+     * Writes to a target the values of an item at the given interpolated fraction.
+     *
+     * @param slot         the index of the target
+     * @param position     the index of the item
+     * @param interpolated the interpolated fraction
+     */
+    void write(int slot, int position, float interpolated);
+}
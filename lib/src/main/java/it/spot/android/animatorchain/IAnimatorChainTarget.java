@@ -0,0 +1,28 @@
+package it.spot.android.animatorchain;
+
+/**
+ * A simple interface that represents anything the properties animated
+ * by an {@link AnimatorChain} can be read from and written to.<br/>
+ * It allows to drive custom drawables, items drawn on a canvas or headless
+ * targets with the same chains used for views.
+ *
+ * @author a.rinaldi
+ */
+public interface IAnimatorChainTarget {
+
+    /**
+     * Gets the current value of a property.
+     *
+     * @param property one of the {@link AnimatorChainProperty} identifiers
+     * @return the current value
+     */
+    float getProperty(int property);
+
+    /**
+     * Sets the current value of a property.
+     *
+     * @param property one of the {@link AnimatorChainProperty} identifiers
+     * @param value    the new value
+     */
+    void setProperty(int property, float value);
+}
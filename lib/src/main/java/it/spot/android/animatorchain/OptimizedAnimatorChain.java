@@ -0,0 +1,288 @@
+package it.spot.android.animatorchain;
+
+import android.animation.TimeInterpolator;
+import android.view.ViewPropertyAnimator;
+import android.view.animation.LinearInterpolator;
+
+/**
+ * This class is an execution plan of a {@link CompiledAnimatorChain} that needs fewer
+ * {@link ViewPropertyAnimator}s to produce the same motion.<br/>
+ * It's built by a single pass over the rows of the snapshot, that:
+ * <ul>
+ * <li>removes from every row the properties that are already at their target value,
+ * as set by a previous row of the same iteration;</li>
+ * <li>marks the rows without delay and duration as snaps, to be set directly;</li>
+ * <li>merges into a single segment the following rows that wait without animating
+ * anything, and the following linear rows that keep animating the same properties
+ * at the same speed.</li>
+ * </ul>
+ * Rows keep the indexes of the snapshot: a segment starts at its first row and spans
+ * the following ones, so that the listeners can still be notified about every item.
+ * When an item changes while the chain runs the plan is built again, and the chain may
+ * then find itself in the middle of a segment: such a row has no plan of its own, and
+ * has to be executed as it is.<br/>
+ * The plan assumes that nothing but the chain changes the target while it runs.
+ *
+ * @author a.rinaldi
+ */
+final class OptimizedAnimatorChain {
+
+    private static final int MASK_TRANSLATION_X = 1 << AnimatorChainProperty.TRANSLATION_X;
+    private static final int MASK_TRANSLATION_Y = 1 << AnimatorChainProperty.TRANSLATION_Y;
+    private static final int MASK_X = 1 << AnimatorChainProperty.X;
+    private static final int MASK_Y = 1 << AnimatorChainProperty.Y;
+
+    private static final float SPEED_TOLERANCE = 1e-3f;
+
+    private final CompiledAnimatorChain mCompiledChain;
+    private final int[] mSpans;
+    private final int[] mPropertyMasks;
+    private final int[] mDurations;
+    private final int[] mDelays;
+    private final int[] mInterpolatorPositions;
+
+    // region Construction
+
+    private OptimizedAnimatorChain(CompiledAnimatorChain compiledChain, int[] spans, int[] propertyMasks,
+                                   int[] durations, int[] delays, int[] interpolatorPositions) {
+        super();
+
+        this.mCompiledChain = compiledChain;
+        this.mSpans = spans;
+        this.mPropertyMasks = propertyMasks;
+        this.mDurations = durations;
+        this.mDelays = delays;
+        this.mInterpolatorPositions = interpolatorPositions;
+    }
+
+    /**
+     * Builds the execution plan of a snapshot.
+     *
+     * @param compiledChain the snapshot to optimize
+     * @return the plan
+     */
+    static OptimizedAnimatorChain optimize(CompiledAnimatorChain compiledChain) {
+        int size = compiledChain.size();
+
+        int[] spans = new int[size];
+        int[] propertyMasks = new int[size];
+        int[] durations = new int[size];
+        int[] delays = new int[size];
+        int[] interpolatorPositions = new int[size];
+
+        // the values set by the rows already visited, valid for the known properties only
+        float[] values = new float[AnimatorChainProperty.COUNT];
+        int known = 0;
+
+        // the values at the start of the animated part of the current segment
+        float[] segmentFrom = new float[AnimatorChainProperty.COUNT];
+        int segmentKnown = 0;
+        int segment = -1;
+
+        for (int i = 0; i < size; i++) {
+            int mask = compiledChain.getPropertyMask(i);
+            int effectiveMask = 0;
+
+            for (int property = 0; property < AnimatorChainProperty.COUNT; property++) {
+                int bit = 1 << property;
+                if ((mask & bit) != 0
+                        && ((known & bit) == 0 || values[property] != compiledChain.getTarget(i, property))) {
+                    effectiveMask |= bit;
+                }
+            }
+
+            int delay = compiledChain.getStartDelay(i);
+            int duration = compiledChain.getDuration(i);
+
+            if (segment >= 0 && isWait(propertyMasks[segment], durations[segment], delays[segment])
+                    && (delay > 0 || duration > 0)) {
+                // a wait followed by a timed row becomes the delay of the row
+                spans[segment]++;
+                propertyMasks[segment] = effectiveMask;
+                delays[segment] += durations[segment] + delay;
+                durations[segment] = duration;
+                interpolatorPositions[segment] = i;
+
+                System.arraycopy(values, 0, segmentFrom, 0, AnimatorChainProperty.COUNT);
+                segmentKnown = known;
+            } else if (segment >= 0 && effectiveMask == propertyMasks[segment] && delay == 0 && duration > 0
+                    && durations[segment] > 0
+                    && isLinear(compiledChain.getInterpolator(interpolatorPositions[segment]))
+                    && isLinear(compiledChain.getInterpolator(i))
+                    && hasSameSpeed(compiledChain, segment + spans[segment] - 1, i, effectiveMask,
+                    durations[segment], segmentFrom, segmentKnown)) {
+                // the row continues the linear motion of the segment
+                spans[segment]++;
+                durations[segment] += duration;
+            } else {
+                segment = i;
+                spans[i] = 1;
+                propertyMasks[i] = effectiveMask;
+                durations[i] = duration;
+                delays[i] = delay;
+                interpolatorPositions[i] = i;
+
+                System.arraycopy(values, 0, segmentFrom, 0, AnimatorChainProperty.COUNT);
+                segmentKnown = known;
+            }
+
+            for (int property = 0; property < AnimatorChainProperty.COUNT; property++) {
+                if ((mask & (1 << property)) != 0) {
+                    values[property] = compiledChain.getTarget(i, property);
+                }
+            }
+
+            // x and translationX (y and translationY) move each other
+            int linked = linkedMask(mask);
+            known = (known & ~linked) | (mask & ~linked);
+        }
+
+        return new OptimizedAnimatorChain(compiledChain, spans, propertyMasks, durations, delays,
+                interpolatorPositions);
+    }
+
+    // endregion
+
+    // region Package methods
+
+    /**
+     * Tells whether the plan has been built on the given snapshot.
+     *
+     * @param compiledChain the snapshot to compare
+     * @return {@code true} if the plan matches the snapshot
+     */
+    boolean isBuiltOn(CompiledAnimatorChain compiledChain) {
+        return this.mCompiledChain == compiledChain;
+    }
+
+    /**
+     * Gets the number of rows executed by the segment starting at a row.
+     *
+     * @param position the index of the first row of the segment
+     * @return the number of rows, or {@code 0} if the row is in the middle of a segment
+     */
+    int getSpan(int position) {
+        return this.mSpans[position];
+    }
+
+    int getDuration(int position) {
+        return this.mDurations[position];
+    }
+
+    int getStartDelay(int position) {
+        return this.mDelays[position];
+    }
+
+    /**
+     * Tells whether a segment has neither delay nor duration, so that its
+     * properties can be set directly instead of being animated.
+     *
+     * @param position the index of the first row of the segment
+     * @return {@code true} if the segment is a snap, {@code false} if it isn't or if
+     * the row is in the middle of a segment
+     */
+    boolean isSnap(int position) {
+        return this.mSpans[position] != 0 && this.mDelays[position] == 0 && this.mDurations[position] == 0;
+    }
+
+    /**
+     * Applies the properties of a segment to an instance of
+     * {@link ViewPropertyAnimator} without starting it.
+     *
+     * @param position the index of the first row of the segment
+     * @param animator the {@link ViewPropertyAnimator} to set up
+     * @return the animator itself, allowing chaining.
+     */
+    ViewPropertyAnimator apply(int position, ViewPropertyAnimator animator) {
+        animator.setDuration(this.mDurations[position])
+                .setStartDelay(this.mDelays[position])
+                .setInterpolator(this.mCompiledChain.getInterpolator(this.mInterpolatorPositions[position]));
+
+        int mask = this.mPropertyMasks[position];
+        int last = position + this.mSpans[position] - 1;
+
+        for (int property = 0; property < AnimatorChainProperty.COUNT; property++) {
+            if ((mask & (1 << property)) != 0) {
+                AnimatorChainProperty.animate(animator, property, this.mCompiledChain.getTarget(last, property));
+            }
+        }
+
+        return animator;
+    }
+
+    /**
+     * Sets the final values of the properties of a segment to a target.
+     *
+     * @param position the index of the first row of the segment
+     * @param target   the target to write to
+     */
+    void set(int position, IAnimatorChainTarget target) {
+        int mask = this.mPropertyMasks[position];
+        int last = position + this.mSpans[position] - 1;
+
+        for (int property = 0; property < AnimatorChainProperty.COUNT; property++) {
+            if ((mask & (1 << property)) != 0) {
+                target.setProperty(property, this.mCompiledChain.getTarget(last, property));
+            }
+        }
+    }
+
+    // endregion
+
+    // region Private methods
+
+    private static boolean isWait(int mask, int duration, int delay) {
+        return mask == 0 && (delay > 0 || duration > 0);
+    }
+
+    private static boolean isLinear(TimeInterpolator interpolator) {
+        return interpolator instanceof LinearInterpolator;
+    }
+
+    /**
+     * Tells whether a row animates every property of the mask at the same speed
+     * as the segment ending with the previous row.
+     */
+    private static boolean hasSameSpeed(CompiledAnimatorChain compiledChain, int last, int position, int mask,
+                                        int segmentDuration, float[] segmentFrom, int segmentKnown) {
+        if ((mask & segmentKnown) != mask || (mask & linkedMask(mask)) != 0) {
+            return false;
+        }
+
+        int duration = compiledChain.getDuration(position);
+        for (int property = 0; property < AnimatorChainProperty.COUNT; property++) {
+            if ((mask & (1 << property)) != 0) {
+                float from = compiledChain.getTarget(last, property);
+                float segmentSpeed = (from - segmentFrom[property]) / segmentDuration;
+                float speed = (compiledChain.getTarget(position, property) - from) / duration;
+
+                if (Math.abs(segmentSpeed - speed) > SPEED_TOLERANCE * Math.max(1f, Math.abs(speed))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the mask of the properties that are changed as a side effect of the given ones.
+     */
+    private static int linkedMask(int mask) {
+        int linked = 0;
+        if ((mask & MASK_X) != 0) {
+            linked |= MASK_TRANSLATION_X;
+        }
+        if ((mask & MASK_TRANSLATION_X) != 0) {
+            linked |= MASK_X;
+        }
+        if ((mask & MASK_Y) != 0) {
+            linked |= MASK_TRANSLATION_Y;
+        }
+        if ((mask & MASK_TRANSLATION_Y) != 0) {
+            linked |= MASK_Y;
+        }
+        return linked;
+    }
+
+    // endregion
+}
@@ -0,0 +1,60 @@
+package it.spot.android.animatorchain;
+
+/**
+ * This class is a headless {@link IAnimatorChainTarget} that simply keeps
+ * the values written to it, counting the writes.<br/>
+ * It allows to run and inspect chains without any view, e.g. in tests
+ * and benchmarks.
+ *
+ * @author a.rinaldi
+ */
+public class RecordingAnimatorChainTarget implements IAnimatorChainTarget {
+
+    private final float[] mValues;
+    private long mWriteCount;
+
+    // region Construction
+
+    /**
+     * Creates a target whose properties are all zero, except the
+     * scales and the alpha that are one.
+     */
+    public RecordingAnimatorChainTarget() {
+        super();
+
+        this.mValues = new float[AnimatorChainProperty.COUNT];
+        this.mValues[AnimatorChainProperty.SCALE_X] = 1f;
+        this.mValues[AnimatorChainProperty.SCALE_Y] = 1f;
+        this.mValues[AnimatorChainProperty.ALPHA] = 1f;
+    }
+
+    // endregion
+
+    // region Public methods
+
+    /**
+     * Gets the number of values written to the target so far.
+     *
+     * @return the count
+     */
+    public long getWriteCount() {
+        return this.mWriteCount;
+    }
+
+    // endregion
+
+    // region IAnimatorChainTarget implementation
+
+    @Override
+    public float getProperty(int property) {
+        return this.mValues[property];
+    }
+
+    @Override
+    public void setProperty(int property, float value) {
+        this.mValues[property] = value;
+        this.mWriteCount++;
+    }
+
+    // endregion
+}
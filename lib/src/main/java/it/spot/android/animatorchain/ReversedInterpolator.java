@@ -0,0 +1,34 @@
+package it.spot.android.animatorchain;
+
+import android.animation.TimeInterpolator;
+
+/**
+ * This class plays another {@link TimeInterpolator} backward in time, so that
+ * an item reversed by {@link AnimatorChain#REPEAT_MODE_REVERSE} moves exactly
+ * as the mirror of its forward motion.
+ *
+ * @author a.rinaldi
+ */
+final class ReversedInterpolator implements TimeInterpolator {
+
+    private final TimeInterpolator mSource;
+
+    // region Construction
+
+    ReversedInterpolator(TimeInterpolator source) {
+        super();
+
+        this.mSource = source;
+    }
+
+    // endregion
+
+    // region TimeInterpolator implementation
+
+    @Override
+    public float getInterpolation(float input) {
+        return 1f - this.mSource.getInterpolation(1f - input);
+    }
+
+    // endregion
+}
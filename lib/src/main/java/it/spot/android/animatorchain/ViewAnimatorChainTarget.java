@@ -0,0 +1,144 @@
+package it.spot.android.animatorchain;
+
+import android.view.View;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * This class is the {@link IAnimatorChainTarget} implementation
+ * that reads and writes the properties of a {@link View}.<br/>
+ * The view can be held through a {@link WeakReference}, so that a running chain
+ * doesn't keep it, and the window it belongs to, from being collected: once the
+ * view is gone, reading and writing its properties does nothing.
+ *
+ * @author a.rinaldi
+ */
+public class ViewAnimatorChainTarget implements IAnimatorChainTarget {
+
+    private final View mView;
+    private final WeakReference<View> mViewReference;
+
+    private boolean mHardwareLayer;
+    private int mPreviousLayerType;
+    private View.OnAttachStateChangeListener mDetachListener;
+
+    // region Construction
+
+    public ViewAnimatorChainTarget(View view) {
+        this(view, false);
+    }
+
+    /**
+     * @param view the view to animate
+     * @param weak {@code true} to hold the view through a {@link WeakReference}
+     */
+    public ViewAnimatorChainTarget(View view, boolean weak) {
+        super();
+
+        this.mView = weak ? null : view;
+        this.mViewReference = weak ? new WeakReference<View>(view) : null;
+    }
+
+    // endregion
+
+    // region Public methods
+
+    /**
+     * Gets the view.
+     *
+     * @return the view, or {@code null} if held weakly and already collected
+     */
+    public View getView() {
+        return this.mViewReference == null ? this.mView : this.mViewReference.get();
+    }
+
+    /**
+     * Tells whether the view, held weakly, has been collected.
+     *
+     * @return {@code true} if the view is gone
+     */
+    public boolean isCollected() {
+        return this.mViewReference != null && this.mViewReference.get() == null;
+    }
+
+    // endregion
+
+    // region Package methods
+
+    /**
+     * Renders the view into a hardware layer, or restores the layer type it had before.<br/>
+     * Enabling an already enabled layer does nothing, so that the same layer is kept
+     * across following items.
+     *
+     * @param enabled {@code true} to use a hardware layer
+     */
+    void setHardwareLayer(boolean enabled) {
+        if (enabled == this.mHardwareLayer) {
+            return;
+        }
+
+        this.mHardwareLayer = enabled;
+
+        View view = this.getView();
+        if (view == null) {
+            return;
+        }
+
+        if (enabled) {
+            this.mPreviousLayerType = view.getLayerType();
+            view.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+
+            if (view.getWindowToken() != null) {
+                view.buildLayer();
+            }
+        } else {
+            view.setLayerType(this.mPreviousLayerType, null);
+        }
+    }
+
+    /**
+     * Sets the listener notified when the view is detached from its window,
+     * replacing the previous one.
+     *
+     * @param listener the listener, or {@code null} to remove the previous one
+     */
+    void setDetachListener(View.OnAttachStateChangeListener listener) {
+        View view = this.getView();
+
+        if (view != null && this.mDetachListener != null) {
+            view.removeOnAttachStateChangeListener(this.mDetachListener);
+        }
+        this.mDetachListener = listener;
+        if (view != null && listener != null) {
+            view.addOnAttachStateChangeListener(listener);
+        }
+    }
+
+    /**
+     * Restores the layer of the view and removes the detach listener, once the chain is over.
+     */
+    void release() {
+        this.setHardwareLayer(false);
+        this.setDetachListener(null);
+    }
+
+    // endregion
+
+    // region IAnimatorChainTarget implementation
+
+    @Override
+    public float getProperty(int property) {
+        View view = this.getView();
+        return view != null ? AnimatorChainProperty.get(view, property) : 0f;
+    }
+
+    @Override
+    public void setProperty(int property, float value) {
+        View view = this.getView();
+        if (view != null) {
+            AnimatorChainProperty.set(view, property, value);
+        }
+    }
+
+    // endregion
+}